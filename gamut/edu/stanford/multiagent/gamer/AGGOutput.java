@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+
+/**
+ * Writes a game which has an action-graph form, such as a 
+ * local-effect or congestion game, in the file format of the AGG
+ * (action-graph game) tools.  The file lists the players' action
+ * sets, the action graph, and for every action node its payoff as
+ * a sum of one table for each neighbour, indexed by the count 
+ * there.  Each table has one entry per count from 0 to the number
+ * of players, so the size of the file grows with the number of 
+ * players times the number of edges in the action graph.
+ * <p>
+ * Function nodes are all of the sum type (0), and payoffs are 
+ * additive (type 2): one line for each neighbour of the node, in
+ * the order of the action graph, giving the term added to the 
+ * payoff when 0, 1, ... up to all of the players are counted at
+ * that neighbour.  With -int_payoffs each term is rounded on its
+ * own, so a sum may differ from the rounded payoff by a few units.
+ */
+
+public class AGGOutput extends GameOutput
+{
+
+    public void writeGame(PrintWriter out, Game g)
+	throws Exception
+    {
+	ActionGraph agg = g.getActionGraph();
+	if (agg == null)
+	    throw new Exception("AGGOutput can only write games with an " +
+				"action graph, such as local-effect and " +
+				"congestion games");
+
+	if (Global.params.getBooleanParameter(Game.pNormalize.name))
+	    throw new Exception("AGGOutput cannot be used with " + 
+				Game.pNormalize.name);
+
+	out.println(commentString(GAMER_STRING, "# "));
+
+	out.println(commentString(g.getDescription(), "# "));
+
+	int players = agg.getNumPlayers();
+	int numActionNodes = agg.getNumActionNodes();
+	int numFunctionNodes = agg.getNumFunctionNodes();
+
+	out.println("# Players");
+	out.println(players);
+	out.println("# Action nodes");
+	out.println(numActionNodes);
+	out.println("# Function nodes");
+	out.println(numFunctionNodes);
+
+	out.println("# Sizes of action sets");
+	StringBuffer buff = new StringBuffer();
+	for (int p = 0; p < players; p++)
+	    buff.append(agg.getActionSet(p).length).append(" ");
+	out.println(buff.toString().trim());
+
+	out.println("# Action sets");
+	for (int p = 0; p < players; p++)
+	    out.println(listToString(agg.getActionSet(p)));
+
+	out.println("# Action graph");
+	for (int i = 0; i < numActionNodes + numFunctionNodes; i++) {
+	    int[] nbrs = agg.getNeighbours(i);
+	    out.println(nbrs.length + " " + listToString(nbrs));
+	}
+
+	out.println("# Types of function nodes");
+	buff = new StringBuffer();
+	for (int f = 0; f < numFunctionNodes; f++)
+	    buff.append("0 ");
+	out.println(buff.toString().trim());
+
+	out.println("# Payoffs");
+	for (int i = 0; i < numActionNodes; i++)
+	    writePayoffs(out, g, agg, i);
+    }
+
+
+    /**
+     * Writes the payoffs for one action node, a table for each of
+     * its neighbours.
+     */
+    private void writePayoffs(PrintWriter out, Game g, ActionGraph agg,
+			      int node)
+	throws Exception
+    {
+	int[] nbrs = agg.getNeighbours(node);
+
+	out.println("2");
+	for (int k = 0; k < nbrs.length; k++) {
+	    double[] table = agg.getTable(node, k);
+
+	    StringBuffer buff = new StringBuffer();
+	    for (int c = 0; c < table.length; c++) {
+		if (c > 0)
+		    buff.append(" ");
+		buff.append(g.getOutputPayoff(table[c]));
+	    }
+	    out.println(buff.toString());
+	}
+    }
+
+
+    private static String listToString(int[] list)
+    {
+	StringBuffer buff = new StringBuffer();
+	for (int i = 0; i < list.length; i++) {
+	    if (i > 0)
+		buff.append(" ");
+	    buff.append(list[i]);
+	}
+
+	return buff.toString();
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.util.*;
+
+/**
+ * An action-graph representation of a game, for games in which
+ * each player's payoff depends only on the action it chooses and
+ * on how many players choose each of a few nearby actions.
+ * <p>
+ * Every action of every player is an action node; players may
+ * share nodes.  Function nodes count the players choosing any of
+ * a set of action nodes.  The payoff for choosing an action node
+ * is a function of the counts at its neighbours, given as a sum
+ * of terms, each a table indexed by the count at one neighbour.
+ * Storing the tables rather than the payoffs keeps the game
+ * polynomial in the number of players.
+ */
+
+public class ActionGraph
+{
+    // -- the action node chosen by each action of each player
+    private int[][] actionSets;
+    private int numActionNodes;
+    private int numFunctionNodes;
+
+    // -- for every node, action nodes first and then function
+    // -- nodes, the nodes whose counts it depends on
+    private int[][] neighbours;
+
+    // -- for every action node, the neighbour each term of its
+    // -- payoff reads, and the table for the term
+    private int[][] termNeighbours;
+    private double[][][] termTables;
+
+
+    /**
+     * Creates an action graph.
+     *
+     * @param actionSets the action node for each action of each 
+     * player, where action i of player p is actionSets[p][i-1]
+     * @param numActionNodes the number of action nodes
+     * @param numFunctionNodes the number of function nodes
+     */
+    public ActionGraph(int[][] actionSets, int numActionNodes,
+		       int numFunctionNodes)
+    {
+	this.actionSets = actionSets;
+	this.numActionNodes = numActionNodes;
+	this.numFunctionNodes = numFunctionNodes;
+
+	int numNodes = numActionNodes + numFunctionNodes;
+	neighbours = new int[numNodes][];
+	for (int i = 0; i < numNodes; i++)
+	    neighbours[i] = new int[0];
+
+	termNeighbours = new int[numActionNodes][];
+	termTables = new double[numActionNodes][][];
+    }
+
+
+    /**
+     * Sets the action nodes counted by a function node.
+     *
+     * @param f the function node, from 0
+     * @param actionNodes the action nodes it counts
+     */
+    public void setFunctionNode(int f, int[] actionNodes)
+    {
+	neighbours[numActionNodes + f] = actionNodes;
+    }
+
+
+    /**
+     * Sets the payoff for choosing an action node.
+     *
+     * @param node the action node
+     * @param nodeNeighbours the nodes the payoff depends on, 
+     * action nodes from 0 and function node f as 
+     * getNumActionNodes() + f
+     * @param terms the position in nodeNeighbours of the 
+     * neighbour each term depends on
+     * @param tables the table for each term, indexed by the count
+     * at its neighbour
+     */
+    public void setPayoff(int node, int[] nodeNeighbours, int[] terms,
+			  double[][] tables)
+    {
+	neighbours[node] = nodeNeighbours;
+	termNeighbours[node] = terms;
+	termTables[node] = tables;
+    }
+
+
+    public int getNumPlayers()
+    {
+	return actionSets.length;
+    }
+
+
+    public int getNumActionNodes()
+    {
+	return numActionNodes;
+    }
+
+
+    public int getNumFunctionNodes()
+    {
+	return numFunctionNodes;
+    }
+
+
+    /**
+     * Returns the action node of each of a player's actions.
+     */
+    public int[] getActionSet(int player)
+    {
+	return actionSets[player];
+    }
+
+
+    /**
+     * Returns the nodes whose counts a node depends on.  For a
+     * function node these are the action nodes it counts.
+     */
+    public int[] getNeighbours(int node)
+    {
+	return neighbours[node];
+    }
+
+
+    /**
+     * Returns the payoff for choosing an action node when its
+     * neighbours have the given counts.
+     *
+     * @param node the action node
+     * @param config the count at each of the node's neighbours
+     */
+    public double getPayoff(int node, int[] config)
+    {
+	int[] terms = termNeighbours[node];
+	double[][] tables = termTables[node];
+
+	double payoff = 0;
+	for (int t = 0; t < terms.length; t++)
+	    payoff += tables[t][config[terms[t]]];
+
+	return payoff;
+    }
+
+
+    /**
+     * Returns what the count at one neighbour adds to the payoff
+     * for choosing an action node, for each count from 0 to the
+     * number of players.  The payoff is the sum of these tables 
+     * over the node's neighbours.
+     *
+     * @param node the action node
+     * @param k the position of the neighbour in getNeighbours(node)
+     */
+    public double[] getTable(int node, int k)
+    {
+	int[] terms = termNeighbours[node];
+	double[][] tables = termTables[node];
+
+	double[] table = new double[actionSets.length + 1];
+	for (int t = 0; t < terms.length; t++)
+	    if (terms[t] == k)
+		for (int c = 0; c < table.length; c++)
+		    table[c] += tables[t][c];
+
+	return table;
+    }
+
+
+    /**
+     * Returns the count at every node in an outcome.
+     *
+     * @param outcome the action of each player, from 1
+     */
+    public int[] getCounts(int[] outcome)
+    {
+	int[] counts = new int[numActionNodes + numFunctionNodes];
+
+	for (int p = 0; p < actionSets.length; p++)
+	    counts[actionSets[p][outcome[p] - 1]]++;
+
+	for (int f = numActionNodes; f < counts.length; f++) {
+	    int[] counted = neighbours[f];
+	    for (int i = 0; i < counted.length; i++)
+		counts[f] += counts[counted[i]];
+	}
+
+	return counts;
+    }
+
+
+    /**
+     * Returns the payoffs of all players in an outcome, counting
+     * the players at each node only once.
+     *
+     * @param outcome the action of each player, from 1
+     */
+    public double[] getPayoffs(int[] outcome)
+    {
+	int[] counts = getCounts(outcome);
+	double[] payoffs = new double[actionSets.length];
+
+	for (int p = 0; p < payoffs.length; p++) {
+	    int node = actionSets[p][outcome[p] - 1];
+	    int[] terms = termNeighbours[node];
+	    int[] nbrs = neighbours[node];
+	    double[][] tables = termTables[node];
+
+	    double payoff = 0;
+	    for (int t = 0; t < terms.length; t++)
+		payoff += tables[t][counts[nbrs[terms[t]]]];
+	    payoffs[p] = payoff;
+	}
+
+	return payoffs;
+    }
+}
@@ -88,6 +88,7 @@ public class BidirectionalLEG extends RandomLEG
 
 	// Generate the graph for the game.
 	graph.doGenerate();
+	graph.freeze();
 
 	setDescription(getDescription() + "\nGraph Params:\n" + graph.getDescription());
 
@@ -144,5 +145,7 @@ public class BidirectionalLEG extends RandomLEG
 		}
 	    }
 	}
+
+	tabulateFunctions();
     }
 }
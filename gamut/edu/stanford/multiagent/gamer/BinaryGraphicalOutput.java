@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+
+/**
+ * Writes a graphical or polymatrix game in the compact binary form
+ * of GraphicalGameFormat, which is far smaller and faster to read
+ * than any of the text forms.  The game can be read back with
+ * FileGraphicalGame.
+ */
+
+public class BinaryGraphicalOutput extends GameOutput
+{
+
+    public boolean isBinary()
+    {
+	return true;
+    }
+
+
+    public void writeGame(OutputStream out, Game g)
+	throws Exception
+    {
+	if (!(g instanceof GraphicalGame))
+	    throw new Exception("BinaryGraphicalOutput can only write " +
+				"graphical and polymatrix games");
+
+	DataOutputStream data = new DataOutputStream(out);
+	GraphicalGameFormat.writeBinary(data, (GraphicalGame) g);
+	data.flush();
+    }
+
+
+    /**
+     * The game can only be written as bytes.
+     */
+    public void writeGame(PrintWriter out, Game g)
+	throws Exception
+    {
+	throw new Exception("BinaryGraphicalOutput must write to a stream");
+    }
+}
@@ -102,6 +102,7 @@ public abstract class CompoundGame extends GraphicalGame
 
 	// Generate the complete graph.
 	graph.doGenerate();
+	graph.freeze();
 
 	// The same DoubleTensor will be used for all subgames 
 	// in the polymatrix game
@@ -130,22 +131,10 @@ public abstract class CompoundGame extends GraphicalGame
 	indices[1] = 2;
 	symMatrix.setValue(P, indices);
 
-	// Now add edges to the graph for the game between each
-	// pair of distinct players in each direction using the
-	// symmetric matrix as the edge object
-	for (int i = 0; i < getNumPlayers(); i++) {
-	    for (int j = 0; j < getNumPlayers(); j++) {
-		if (i != j) {
-		    try {
-			graph.setEdgeData(i, j, symMatrix);
-		    } catch (Exception e) {
-			System.out.println("Error setting graph values");
-			e.printStackTrace();
-			System.exit(1);
-		    }
-		}
-	    }
-	}
+	// Every edge of the complete graph, between each pair of
+	// distinct players in each direction, carries the same 
+	// symmetric matrix, so it is stored once for all edges
+	((CompleteGraph) graph).setUniformEdgeData(symMatrix);
     }
 
 }
@@ -35,6 +35,13 @@ public class CongestionGame extends Game
     // facility
     private Function[][] payFuncs;
 
+    // -- payTable[j][i][n] is the value of payFuncs[j][i] when n
+    // -- players have chosen facility i
+    private double[][][] payTable;
+
+    // -- the game as an action graph, made from the tables
+    private ActionGraph actionGraph;
+
     private boolean randomize;
 
 
@@ -60,9 +67,9 @@ public class CongestionGame extends Game
 
 	pFuncArgs = new Parameters.ParamInfo("func_params", Parameters.ParamInfo.CMDLINE_PARAM, null, null, "parameters to be handed off to the function, must be enclosed in [].  If the function class in use does not always create decreasing functions, the parameters should be set so that the function is decreasing.");
 
-	pSym = new Parameters.ParamInfo("sym_funcs", Parameters.ParamInfo.BOOLEAN_PARAM, null, null, "should be true if it is desired that all players have the same set of payoff functions.");
+	pSym = new Parameters.ParamInfo("sym_funcs", Parameters.ParamInfo.BOOLEAN_PARAM, null, null, "should be true if it is desired that all players have the same set of payoff functions.  Otherwise each player has its own functions, and at most 100 players are allowed.");
 	
-	cgParam = new Parameters.ParamInfo[] {Game.players, pFacilities,
+	cgParam = new Parameters.ParamInfo[] {Game.manyPlayers, pFacilities,
 					      pFunc, pFuncArgs, pSym};
 	Global.registerParams(CongestionGame.class, cgParam);
 
@@ -172,10 +179,20 @@ public class CongestionGame extends Game
     {
       if(!Global.isPartOf(Global.FUNC, getStringParameter(pFunc.name), "DecreasingFunction"))
 	 throw new Exception ("Function must be decreasing!");
+
+      // -- without symmetric functions each player has its own
+      // -- tables, so the game grows with the square of the players
+      long most = ((Long) Game.players.high).longValue();
+      if(!getBooleanParameter(pSym.name) &&
+	 getLongParameter(Game.players.name) > most)
+	 throw new Exception ("Only " + most + " players are allowed " +
+			      "without " + pSym.name + "!");
     }
 
 
     public void randomizeParameters() { 
+	boolean symSet = parameters.setByUser(pSym.name);
+
 	super.randomizeParameters();
 	
 	try {
@@ -189,6 +206,15 @@ public class CongestionGame extends Game
 
 	// Deal with the CMDLINE_PARAM
 	super.randomizeParameters();
+
+	// -- many players are only allowed with symmetric functions
+	long most = ((Long) Game.players.high).longValue();
+	try {
+	    if(!symSet && getLongParameter(Game.players.name) > most)
+		parameters.setParameter(pSym.name, Boolean.TRUE);
+	} catch (Exception e) {
+	    Global.handleError(e, "Randomizing Params");
+	}
     }
 
 
@@ -253,11 +279,7 @@ public class CongestionGame extends Game
 	double payoff = 0;
 	for (int i = 0; i < facs; i++) {
 	    if (didChooseFac(outcome[player], i)) {
-		if (getBooleanParameter(pSym.name)) {
-		    payoff += payFuncs[0][i].eval(numChosen[i]);
-		} else {
-		    payoff += payFuncs[player][i].eval(numChosen[i]);
-		}
+		payoff += payTable[player][i][numChosen[i]];
 	    }
 	}
 	
@@ -295,11 +317,7 @@ public class CongestionGame extends Game
 	    
 	    for (int i = 0; i < facs; i++) {
 		if (didChooseFac(outcome[player], i)) {
-		    if (getBooleanParameter(pSym.name)) {
-			payoff += payFuncs[0][i].eval(numChosen[i]);
-		    } else {
-			payoff += payFuncs[player][i].eval(numChosen[i]);
-		    }
+		    payoff += payTable[player][i][numChosen[i]];
 		}
 	    }
 
@@ -333,6 +351,93 @@ public class CongestionGame extends Game
 		}
 	    }
 	}
+
+	// Tabulate every function at each possible number of 
+	// players choosing the facility.  With symmetric payoffs
+	// all players share the tables of player 0.
+	payTable = new double[players][][];
+	for (int j = 0; j < players; j++) {
+	    if (j > 0 && getBooleanParameter(pSym.name)) {
+		payTable[j] = payTable[0];
+		continue;
+	    }
+
+	    payTable[j] = new double[facs][];
+	    for (int i = 0; i < facs; i++)
+		payTable[j][i] = payFuncs[j][i].tabulate(0, players);
+	}
+
+	actionGraph = null;
+    }
+
+
+
+    /**
+     * Returns the game as an action graph, with a function node 
+     * counting the players at each facility.  Each subset of the
+     * facilities is an action node whose payoff is the sum of the
+     * tables of its facilities.  Unless the payoff functions are
+     * symmetric, every player has its own action nodes.
+     */
+    public ActionGraph getActionGraph()
+    {
+	if (actionGraph != null)
+	    return actionGraph;
+
+	int players = getNumPlayers();
+	int facs = (int) getLongParameter(pFacilities.name);
+	int actions = getNumActions(0);
+	int owners = getBooleanParameter(pSym.name) ? 1 : players;
+	int numActionNodes = owners * actions;
+
+	int[][] actionSets = new int[players][actions];
+	for (int j = 0; j < players; j++)
+	    for (int a = 0; a < actions; a++)
+		actionSets[j][a] = (owners == 1 ? 0 : j * actions) + a;
+
+	ActionGraph agg = new ActionGraph(actionSets, numActionNodes, facs);
+
+	// -- the action nodes at which each facility is chosen
+	for (int i = 0; i < facs; i++) {
+	    int count = 0;
+	    for (int a = 1; a <= actions; a++)
+		if (didChooseFac(a, i))
+		    count++;
+
+	    int[] counted = new int[owners * count];
+	    int pos = 0;
+	    for (int j = 0; j < owners; j++)
+		for (int a = 1; a <= actions; a++)
+		    if (didChooseFac(a, i))
+			counted[pos++] = j * actions + a - 1;
+
+	    agg.setFunctionNode(i, counted);
+	}
+
+	for (int j = 0; j < owners; j++)
+	    for (int a = 1; a <= actions; a++) {
+		int count = 0;
+		for (int i = 0; i < facs; i++)
+		    if (didChooseFac(a, i))
+			count++;
+
+		int[] nbrs = new int[count];
+		int[] terms = new int[count];
+		double[][] tables = new double[count][];
+		int pos = 0;
+		for (int i = 0; i < facs; i++)
+		    if (didChooseFac(a, i)) {
+			nbrs[pos] = numActionNodes + i;
+			terms[pos] = pos;
+			tables[pos] = payTable[j][i];
+			pos++;
+		    }
+
+		agg.setPayoff(j * actions + a - 1, nbrs, terms, tables);
+	    }
+
+	actionGraph = agg;
+	return actionGraph;
     }
 
 }
@@ -17,6 +17,7 @@
 package edu.stanford.multiagent.gamer;
 
 import java.util.*;
+import java.io.*;
 import edu.stanford.multiagent.gamer.functions.*;
 
 /**
@@ -37,6 +38,14 @@ public class CournotDuopoly extends Game
     private Function[] costFuncs;
     private Function pFunc;
 
+    // -- The game is stored in structured form: the payoff matrix
+    // -- of each player is a Hankel matrix, a function of y1+y2 only,
+    // -- scaled by the player's own quantity, minus a cost that
+    // -- depends only on that quantity.  So it is enough to keep
+    // -- the functions' values at each quantity, indexed by quantity.
+    private double[][] cost;
+    private double[] price;
+
     private boolean randomize=false;
 
     // -----------------------------------------------------
@@ -232,19 +241,132 @@ public class CournotDuopoly extends Game
      */
     public double getPayoff(int[] outcome, int player) 
     {
-	int y[] = new int[2];
-
-	for (int i = 0; i < 2; i++)
-	    y[i] = outcome[i];
+	int y = outcome[player];
 
-	double payoff = (double) (pFunc.eval(y[0] + y[1]) * y[player] -
-	    costFuncs[player].eval(y[player]));
+	double payoff = (double) (price[outcome[0] + outcome[1]] * y -
+	    cost[player][y]);
 
 	return payoff;
     }
 
 
 
+    /**
+     * Expands the payoffs of a player into a dense matrix,
+     * indexed by the actions of player 1 and then player 2.
+     *
+     * @param player the player whose payoffs should be returned
+     */
+    public DoubleTensor getPayoffTensor(int player)
+    {
+	int n = getNumActions(0);
+	DoubleTensor t = new DoubleTensor(getNumActions());
+	double[] values = t.getValues();
+	double[] c = cost[player];
+
+	for (int y1 = 1; y1 <= n; y1++) {
+	    int row = (y1 - 1) * n;
+	    for (int y2 = 1; y2 <= n; y2++) {
+		int y = (player == 0 ? y1 : y2);
+		values[row + y2 - 1] = (double) (price[y1 + y2] * y - c[y]);
+	    }
+	}
+
+	return t;
+    }
+
+
+
+    /**
+     * Finds the smallest and largest payoffs in time linear in
+     * the number of actions.  When a player's own quantity y is
+     * fixed, its payoffs are y times the prices P(y+1) .. P(y+n)
+     * less a constant, so their extremes come from the extremes 
+     * of the prices over that window, which are found for every
+     * y at once by sliding the window along the price vector.
+     */
+    public void setNormMinAndMax()
+    {
+	int n = getNumActions(0);
+	double[] wMin = new double[n + 1];
+	double[] wMax = new double[n + 1];
+
+	// -- deques of indices into price, for the window minimum
+	// -- and maximum
+	int[] dMin = new int[2 * n + 1], dMax = new int[2 * n + 1];
+	int minHead = 0, minTail = 0, maxHead = 0, maxTail = 0;
+
+	for (int s = 2; s <= 2 * n; s++) {
+	    while (minTail > minHead && price[dMin[minTail - 1]] >= price[s])
+		minTail--;
+	    dMin[minTail++] = s;
+	    while (maxTail > maxHead && price[dMax[maxTail - 1]] <= price[s])
+		maxTail--;
+	    dMax[maxTail++] = s;
+
+	    // -- the window for quantity y is y+1 .. y+n
+	    int y = s - n;
+	    if (y >= 1) {
+		while (dMin[minHead] < y + 1)
+		    minHead++;
+		while (dMax[maxHead] < y + 1)
+		    maxHead++;
+		wMin[y] = price[dMin[minHead]];
+		wMax[y] = price[dMax[maxHead]];
+	    }
+	}
+
+	oldMin = Double.POSITIVE_INFINITY;
+	oldMax = Double.NEGATIVE_INFINITY;
+	for (int player = 0; player < 2; player++)
+	    for (int y = 1; y <= n; y++) {
+		double lo = (double) (wMin[y] * y - cost[player][y]);
+		double hi = (double) (wMax[y] * y - cost[player][y]);
+		oldMin = Math.min(oldMin, lo);
+		oldMax = Math.max(oldMax, hi);
+	    }
+
+	minAndMaxSet = true;
+    }
+
+
+
+    /**
+     * Writes the game in structured form: the price at each total
+     * quantity and the costs at each quantity, from which every
+     * payoff follows.  Takes space linear in the number of
+     * actions.  The values are written as generated, so this
+     * cannot be combined with normalization or integer payoffs.
+     */
+    public void writeGame(PrintWriter out)
+    {
+	if (Global.params.getBooleanParameter(Game.pNormalize.name) ||
+	    Global.params.getBooleanParameter(Game.intPayoffs.name))
+	    throw new UnsupportedOperationException("Structured Cournot output cannot be normalized or converted to integers.");
+
+	out.println("# This is an ad-hoc Cournot Duopoly output format.");
+	out.println("# It may change with future versions of GAMUT.");
+	out.println("# If the players choose quantities y1 and y2, the " +
+		    "payoff to player i is");
+	out.println("#     P(y1+y2)*yi - Ci(yi)\n");
+
+	int n = getNumActions(0);
+
+	out.print("P: [ ");
+	for (int s = 2; s <= 2 * n; s++)
+	    out.print(price[s] + " ");
+	out.println("]");
+
+	for (int player = 0; player < 2; player++) {
+	    out.print("C" + (player + 1) + ": [ ");
+	    for (int y = 1; y <= n; y++)
+		out.print(cost[player][y] + " ");
+	    out.println("]");
+	}
+    }
+
+
+
     /**
      * Generate the inverse demand and cost functions.
      */
@@ -256,6 +378,13 @@ public class CournotDuopoly extends Game
 	pFunc.doGenerate();
 	costFuncs[0].doGenerate();
 	costFuncs[1].doGenerate();
+
+	// -- tabulate the functions over their integer domains
+	int n = getNumActions(0);
+	price = pFunc.tabulate(2, 2 * n);
+	cost = new double[2][];
+	cost[0] = costFuncs[0].tabulate(1, n);
+	cost[1] = costFuncs[1].tabulate(1, n);
     }
     
 
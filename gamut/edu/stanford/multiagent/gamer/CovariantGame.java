@@ -89,7 +89,11 @@ public class CovariantGame extends MatrixGame
   }
   
   /** 
-   * Fills in the payoffs
+   * Fills in the payoffs.  Each outcome's payoffs are L*z, where
+   * z is a vector of independent normal(0,1) values and L is the
+   * Cholesky factor of the covariance matrix, kept as a packed 
+   * lower triangle.  The results are written straight into the
+   * payoff tensors.
    */
   public void doGenerate()
   {
@@ -99,48 +103,105 @@ public class CovariantGame extends MatrixGame
 
 
     double r = getDoubleParameter(rParam.name);
-    //    double a = Math.sqrt(r);
-    //    double b = Math.sqrt(1-r);
+    int n = getNumPlayers();
 
-    double[][] a = new double[getNumPlayers()][getNumPlayers()];
+    double[][] a = new double[n][n];
 
-    for(int i=0; i<getNumPlayers(); i++)
-      for(int j=0; j<getNumPlayers(); j++)
+    for(int i=0; i<n; i++)
+      for(int j=0; j<n; j++)
 	a[i][j]= (i==j ? 1 : r);
 
-    Matrix sigma=new Matrix(a, getNumPlayers(), getNumPlayers());
+    Matrix sigma=new Matrix(a, n, n);
     CholeskyDecomposition chol = sigma.chol();
     if(!chol.isSPD())
       System.err.println("WARNING: SIGMA is not SPD!");
 
-    Matrix lMat = chol.getL();
-    double[][] z=new double[getNumPlayers()][1];
-    
-    
-    Outcome outcome=new Outcome(getNumPlayers(), getNumActions());
-    
-    for(outcome.reset(); outcome.hasMoreOutcomes(); outcome.nextOutcome())
+    // -- row i of L holds i+1 entries, starting at i*(i+1)/2
+    double[][] lArr = chol.getL().getArray();
+    double[] l = new double[n*(n+1)/2];
+    for(int i=0, k=0; i<n; i++)
+      for(int j=0; j<=i; j++)
+	l[k++] = lArr[i][j];
+
+    double[][] values = new double[n][];
+    for(int i=0; i<n; i++)
+      values[i] = getPayoffTensor(i).getValues();
+
+    if(Global.parallel)
+      fillParallel(l, values);
+    else
+      fillSequential(l, values);
+  }
+
+
+
+  /**
+   * Sets the payoffs at one position of the payoff arrays from 
+   * the normal values in z.
+   */
+  private static void setCorrelated(double[] l, double[] z, 
+				    double[][] values, int index)
+  {
+    for(int i=0, k=0; i<values.length; i++)
       {
+	double s=0;
+	for(int j=0; j<=i; j++)
+	  s += l[k++] * z[j];
+	values[i][index] = s;
+      }
+  }
 
-//  	double x=Global.rand.nextGaussian();
 
-//  	for(int i=0; i<getNumPlayers(); i++)
-//  	  {
-//  	    double y = Global.rand.nextGaussian();
 
-//  	    setPayoff(outcome.getOutcome(), i, a*x+b*y);
-//  	  }
+  /**
+   * Draws the payoffs from Global.rand, one outcome at a time in 
+   * the order of Outcome, which gives the same games as always.
+   */
+  private void fillSequential(double[] l, double[][] values)
+  {
+    double[] z = new double[getNumPlayers()];
+    DoubleTensor t = getPayoffTensor(0);
 
+    Outcome outcome=new Outcome(getNumPlayers(), getNumActions());
+
+    for(outcome.reset(); outcome.hasMoreOutcomes(); outcome.nextOutcome())
+      {
 	for(int i=0; i<z.length; i++)
-	  z[i][0]=Global.rand.nextGaussian();
+	  z[i]=Global.rand.nextGaussian();
 
-	Matrix m = new Matrix(z, z.length, 1);
+	setCorrelated(l, z, values, t.getIndex(outcome.getOutcome()));
+      }
+  }
 
-	Matrix x = lMat.times(m);
 
-	for(int i=0; i<getNumPlayers(); i++)
-	  setPayoff(outcome.getOutcome(), i, x.get(i,0));
-	
-      }
+
+  /**
+   * Draws the payoffs in blocks of outcomes on all processors, 
+   * each block from its own stream split from one draw of
+   * Global.rand.
+   */
+  private void fillParallel(final double[] l, final double[][] values)
+  {
+    final long seed = Global.rand.nextLong();
+    final int nOutcomes = values[0].length;
+    final int n = getNumPlayers();
+    final int blockSize = Parallel.BLOCK_SIZE;
+    int nBlocks = (nOutcomes + blockSize - 1) / blockSize;
+
+    Parallel.run(nBlocks, new Parallel.Body() {
+	public void run(int block) {
+	  RandomStream rand = new RandomStream(seed, block);
+	  double[] z = new double[n];
+
+	  int end = Math.min((block + 1) * blockSize, nOutcomes);
+	  for(int index = block * blockSize; index < end; index++)
+	    {
+	      for(int i=0; i<n; i++)
+		z[i] = rand.nextGaussian();
+
+	      setCorrelated(l, z, values, index);
+	    }
+	}
+      });
   }
 }
@@ -38,8 +38,15 @@ import java.util.*;
 
 public class DispersionGame extends Game
 {
-    // Need a data structure to map entropy values to payoffs
-    private HashMap payoffs;
+    // -- The payoff of each way of dispersing the players, 
+    // -- indexed by the rank of the sorted action counts in the 
+    // -- order in which doGenerate lists them
+    private double[] partitionPayoffs;
+
+    // -- numPartitions[n][k][m] is the number of ways of splitting
+    // -- n players over at most k actions with at most m players 
+    // -- on any action, used to rank the action counts
+    private int[][][] numPartitions;
 
 
     //-----------------------------------------------
@@ -74,16 +81,13 @@ public class DispersionGame extends Game
 
     /**
      * Initialize the dispersion game by setting the number
-     * of players and the number of actions and creating the
-     * hashmap for storing entropy/payoff pairs.
+     * of players and the number of actions.
      */
     public void initialize()
 	throws Exception
     {
 	super.initialize();	
 	parsePlayersSameNumberActions();
-
-	payoffs = new HashMap();
     }
 
 
@@ -112,31 +116,85 @@ public class DispersionGame extends Game
 
 
 
-    /** 
-     * The payoff will be the same for each player, based
-     * on how dispersed the actions are as a whole.
+    /**
+     * Count how many ways of splitting n players over at most
+     * k actions, with at most m players on any one action, there 
+     * are for every n, k and m up to the size of the game.
      */
-    public double getPayoff(int[] outcome, int player)
+    private void countPartitions()
+    {
+	int players = getNumPlayers();
+	int maxActions = Global.min(getNumActions(0), players);
+
+	numPartitions = new int[players + 1][maxActions + 1][players + 1];
+
+	for (int k = 0; k <= maxActions; k++)
+	    for (int m = 0; m <= players; m++)
+		numPartitions[0][k][m] = 1;
+
+	for (int n = 1; n <= players; n++)
+	    for (int k = 1; k <= maxActions; k++)
+		for (int m = 1; m <= players; m++) {
+		    // -- either no action has m players, or one
+		    // -- does and the rest are split over the others
+		    int count = numPartitions[n][k][m-1];
+		    if (n >= m)
+			count += numPartitions[n-m][k-1][m];
+		    numPartitions[n][k][m] = count;
+		}
+    }
+
+
+
+    /**
+     * Return the rank of the outcome's sorted action counts 
+     * among all ways of dispersing the players, in the order in
+     * which doGenerate lists them.  The counts are sorted by 
+     * counting how many actions were chosen by each number of 
+     * players, so this takes time linear in the size of the game.
+     */
+    private int getPartitionRank(int[] outcome)
     {
-	// Make an array which holds the number of players
-	// who chose each action
 	int actions = getNumActions(0);
+	int players = getNumPlayers();
+	int maxActions = numPartitions[0].length - 1;
+
 	int[] actionDist = new int[actions];
-	for (int i = 0; i < actions; i++) actionDist[i] = 0;
+	for (int i = 0; i < players; i++) actionDist[outcome[i] - 1]++;
+
+	int[] countFreq = new int[players + 1];
+	for (int i = 0; i < actions; i++) countFreq[actionDist[i]]++;
+
+	// Walk the counts from largest to smallest.  Every way of
+	// splitting the rest of the players whose largest count is
+	// bigger than this one comes earlier in the order.
+	int rank = 0;
+	int remaining = players;
+	int maxCount = players;
+	int part = 0;
+
+	for (int c = players; c > 0 && remaining > 0; c--)
+	    for (int j = countFreq[c]; j > 0; j--) {
+		int k = Global.min(actions - part, maxActions);
+		rank += numPartitions[remaining][k][maxCount]
+		    - numPartitions[remaining][k][c];
+		remaining -= c;
+		maxCount = c;
+		part++;
+	    }
 
-	for (int i = 0; i < getNumPlayers(); i++) {
-	    int chosen = outcome[i] - 1;
-	    actionDist[chosen]++;
-	}
+	return rank;
+    }
 
-	double entropy = getEntropy(actionDist, getNumPlayers());
-	Double entDoub = new Double(entropy);
 
-	if (!payoffs.containsKey(entDoub))
-	    Global.handleError("Payoff not found for given entropy");
 
-	Double payDouble = (Double) payoffs.get(entDoub);
-	return payDouble.doubleValue();
+    /** 
+     * The payoff will be the same for each player, based
+     * on how dispersed the actions are as a whole.
+     */
+    public double getPayoff(int[] outcome, int player)
+    {
+	return partitionPayoffs[getPartitionRank(outcome)];
     }
 
 
@@ -147,31 +205,43 @@ public class DispersionGame extends Game
      */
     public Vector getPayoff(int[] outcome)
     {
-	Vector payVector = new Vector();
-
-	// Make an array which holds the number of players
-	// who chose each action
-	int actions = getNumActions(0);
-	int[] actionDist = new int[actions];
-	for (int i = 0; i < actions; i++) actionDist[i] = 0;
+	int players = getNumPlayers();
+	Vector payVector = new Vector(players);
 
-	for (int i = 0; i < getNumPlayers(); i++) {
-	    int chosen = outcome[i] - 1;
-	    actionDist[chosen]++;
+	Double payDouble = 
+	    new Double(partitionPayoffs[getPartitionRank(outcome)]);
+	for (int i = 0; i < players; i++) {
+	    payVector.add(payDouble);
 	}
 
-	double entropy = getEntropy(actionDist, getNumPlayers());
-	Double entDoub = new Double(entropy);
+	return payVector;
+    }
+
 
-	if (!payoffs.containsKey(entDoub))
-	    Global.handleError("Payoff not found for given entropy");
 
-	Double payDouble = (Double) payoffs.get(entDoub);
-	for (int i = 0; i < getNumPlayers(); i++) {
-	    payVector.add(payDouble);
+    public int getPayoffStructure()
+    {
+	return COMMON_PAYOFF;
+    }
+
+
+
+    /**
+     * Finds the range for normalization from the payoff of each
+     * way of dispersing the players, since every one occurs.
+     */
+    public void setNormMinAndMax()
+    {
+	double min = partitionPayoffs[0], max = partitionPayoffs[0];
+
+	for (int i = 1; i < partitionPayoffs.length; i++) {
+	    if (partitionPayoffs[i] > max)
+		max = partitionPayoffs[i];
+	    else if (partitionPayoffs[i] < min)
+		min = partitionPayoffs[i];
 	}
 
-	return payVector;
+	setNormMinAndMax(min, max);
     }
 
 
@@ -210,7 +280,9 @@ public class DispersionGame extends Game
      * of actions.  Generate a list of payoffs of length equal
      * to the number of groups.  Sort the groups by entropy
      * and assign payoffs, always assigning higher payoffs to
-     * groups with higher entropies.
+     * groups with higher entropies.  The payoffs are then 
+     * stored by the rank of each group's action counts, so 
+     * that looking one up needs no entropy calculation.
      */
     public void doGenerate()
     {
@@ -225,6 +297,12 @@ public class DispersionGame extends Game
 	int actions = getNumActions(0);
 	int players = getNumPlayers();
 
+	countPartitions();
+
+	int numGroups = 
+	    numPartitions[players][Global.min(actions, players)][players];
+	Double[] groupEntropies = new Double[numGroups];
+	int group = 0;
 
 	// Fill in the entropies vector by generating 
 	// the sequence of possible unique outcomes and
@@ -246,6 +324,7 @@ public class DispersionGame extends Game
 	// the rest of the sequence
 	Double ent = new Double(getEntropy (outcome, players));
 	entropies.add(ent);
+	groupEntropies[group++] = ent;
 
 	int remainder = 0;    
 
@@ -289,6 +368,7 @@ public class DispersionGame extends Game
 	    if (remainder == 0) {
 		ent = new Double(getEntropy (outcome, players));
 		entropies.add(ent);
+		groupEntropies[group++] = ent;
 	    }
 	}
 
@@ -310,10 +390,17 @@ public class DispersionGame extends Game
 	
 	// Now match each payoff with an entropy value and
 	// add each pair to the hashmap
+	HashMap payoffs = new HashMap();
 	for (int i = 0; i < numPayoffs; i++) {
 	    Double nextPayoff = (Double) payoffValues.removeSmallest();
 	    Double entDoub = (Double) entropies.removeSmallest();
 	    payoffs.put(entDoub, nextPayoff);
 	}
+
+	// Finally give each group the payoff of its entropy
+	partitionPayoffs = new double[numGroups];
+	for (int i = 0; i < numGroups; i++)
+	    partitionPayoffs[i] = 
+		((Double) payoffs.get(groupEntropies[i])).doubleValue();
     }
 }
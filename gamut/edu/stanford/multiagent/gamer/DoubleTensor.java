@@ -27,6 +27,10 @@ public class DoubleTensor {
     private int[] dimensionSize;
     private double values[];
 
+    // -- where the tensor starts in values, which may be part of
+    // -- a larger array shared with other tensors
+    private int offset;
+
 
     /**
      * Constructor
@@ -46,6 +50,56 @@ public class DoubleTensor {
 	}
 
 	values = new double[valueArraySize];
+	offset = 0;
+    }
+
+
+    /**
+     * Constructs a tensor stored in part of a larger array, 
+     * starting at offset, so that many small tensors can share 
+     * one array.  The values are not copied.
+     *
+     * @param dimSize an array holding the size of the tensor 
+     * in each dimension.
+     * @param values the array holding the values
+     * @param offset the position of the first value in the array
+     */
+    public DoubleTensor(int[] dimSize, double[] values, int offset) {
+	int valueArraySize = 1;
+
+	numDimensions = dimSize.length;
+	dimensionSize = new int[numDimensions];
+
+	for (int i = 0; i < numDimensions; i++) {
+	    dimensionSize[i] = dimSize[i];
+	    valueArraySize *= dimensionSize[i];
+	}
+
+	if (offset < 0 || offset + valueArraySize > values.length)
+	    throw new IndexOutOfBoundsException("Tensor does not fit in array");
+
+	this.values = values;
+	this.offset = offset;
+    }
+
+
+    /**
+     * Constructor for subclasses which store their values in
+     * some other way.  No values array is made.
+     *
+     * @param dimSize an array holding the size of the tensor 
+     * in each dimension.
+     * @param values null
+     */
+    protected DoubleTensor(int[] dimSize, double[] values) {
+	numDimensions = dimSize.length;
+	dimensionSize = new int[numDimensions];
+
+	for (int i = 0; i < numDimensions; i++)
+	    dimensionSize[i] = dimSize[i];
+
+	this.values = values;
+	offset = 0;
     }
 
 
@@ -55,7 +109,7 @@ public class DoubleTensor {
      * that each index in the array is between 1 and the size
      * of that dimension.
      */
-    private int translateIndices(int[] indices) {
+    protected int translateIndices(int[] indices) {
 
 	int valueIndex = 0;
 
@@ -65,7 +119,16 @@ public class DoubleTensor {
 	}
 	valueIndex += indices[numDimensions-1] - 1;
 
-	return valueIndex;
+	return offset + valueIndex;
+    }
+
+
+    /**
+     * Return the position of the indexed spot in the array 
+     * returned by getValues().
+     */
+    public int getIndex(int[] indices) {
+	return translateIndices(indices);
     }
 
 
@@ -86,6 +149,78 @@ public class DoubleTensor {
 	return values[valueIndex];
     }
 
+    /**
+     * Get the value at a position of the array returned by 
+     * getValues(), as given by getIndex().
+     */
+    protected double getValueAt(int position) {
+	return values[position];
+    }
+
+
+    /**
+     * Set the value at a position of the array returned by 
+     * getValues(), as given by getIndex().
+     */
+    protected void setValueAt(double value, int position) {
+	values[position] = value;
+    }
+
+
+    // ----------------------------------------------------
+    // -- Views, which share the values of this tensor
+
+
+    /**
+     * Returns a view of the tensor restricted to some of the
+     * indices of one dimension, in the order given.  The values
+     * are not copied, so setting a value in the view sets it here.
+     *
+     * @param dim the dimension to restrict
+     * @param indices the indices to keep, from 1
+     */
+    public DoubleTensor restrict(int dim, int[] indices) {
+	return new DoubleTensorView(this).restrict(dim, indices);
+    }
+
+
+    /**
+     * Returns a view of the tensor restricted to a range of the
+     * indices of one dimension.
+     *
+     * @param dim the dimension to restrict
+     * @param first the first index to keep, from 1
+     * @param last the last index to keep
+     */
+    public DoubleTensor restrict(int dim, int first, int last) {
+	return new DoubleTensorView(this).restrict(dim, first, last);
+    }
+
+
+    /**
+     * Returns a view of the tensor with its dimensions reordered,
+     * so that dimension i of the view is dimension order[i] here.
+     *
+     * @param order the dimension of this tensor for each dimension
+     * of the view
+     */
+    public DoubleTensor permute(int[] order) {
+	return new DoubleTensorView(this).permute(order);
+    }
+
+
+    /**
+     * Returns a view of the tensor with the index of one dimension
+     * fixed, which has one dimension fewer.
+     *
+     * @param dim the dimension to fix
+     * @param index the index to fix it at, from 1
+     */
+    public DoubleTensor fix(int dim, int index) {
+	return new DoubleTensorView(this).fix(dim, index);
+    }
+
+
     public int getNumDimensions() {
 	return numDimensions;
     }
@@ -97,10 +232,30 @@ public class DoubleTensor {
     public int[] getSizeOfDim()  {
 	return dimensionSize;
     }
+
+    /**
+     * Returns the number of values in the tensor.
+     */
+    public int getSize() {
+	int size = 1;
+	for (int i = 0; i < numDimensions; i++)
+	    size *= dimensionSize[i];
+	return size;
+    }
     
+    /**
+     * Returns the position of the first value in the array 
+     * returned by getValues(), which is 0 unless the tensor was 
+     * made over part of a larger array.
+     */
+    public int getOffset() {
+	return offset;
+    }
+
     /**
      * Probably won't use this much, but occasionally may be
-     * useful to get all values returned in one array.
+     * useful to get all values returned in one array.  The values
+     * of this tensor start at getOffset().
      */
     public double[] getValues() {
 	return values;
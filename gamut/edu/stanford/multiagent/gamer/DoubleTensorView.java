@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+/**
+ * A view of part of a DoubleTensor, made by DoubleTensor.restrict(),
+ * permute() and fix().  Nothing is copied: each index of each 
+ * dimension of the view is mapped to a distance in the underlying
+ * tensor, so getting or setting a value costs one addition per 
+ * dimension, and views of views are no slower than views.
+ */
+
+public class DoubleTensorView extends DoubleTensor {
+
+    // -- the tensor holding the values, and the position in it of
+    // -- the first value of the view
+    private DoubleTensor base;
+    private int start;
+
+    // -- steps[d][i] is how far index i+1 of dimension d is from
+    // -- index 1 in the underlying tensor
+    private int[][] steps;
+
+
+    /**
+     * Constructs a view of the whole of a tensor.
+     *
+     * @param t the tensor
+     */
+    public DoubleTensorView(DoubleTensor t) {
+	super(t.getSizeOfDim(), null);
+
+	int n = t.getNumDimensions();
+	steps = new int[n][];
+
+	if (t instanceof DoubleTensorView) {
+	    DoubleTensorView v = (DoubleTensorView) t;
+	    base = v.base;
+	    start = v.start;
+	    for (int d = 0; d < n; d++)
+		steps[d] = v.steps[d];
+	    return;
+	}
+
+	base = t;
+	start = (n == 0 ? t.getOffset() : t.getIndex(ones(n)));
+
+	int stride = 1;
+	for (int d = n - 1; d >= 0; d--) {
+	    steps[d] = new int[t.getSizeOfDim(d)];
+	    for (int i = 0; i < steps[d].length; i++)
+		steps[d][i] = i * stride;
+	    stride *= t.getSizeOfDim(d);
+	}
+    }
+
+
+    private DoubleTensorView(DoubleTensor base, int start, int[][] steps) {
+	super(sizes(steps), null);
+
+	this.base = base;
+	this.start = start;
+	this.steps = steps;
+    }
+
+
+    private static int[] ones(int n) {
+	int[] indices = new int[n];
+	java.util.Arrays.fill(indices, 1);
+	return indices;
+    }
+
+
+    private static int[] sizes(int[][] steps) {
+	int[] dims = new int[steps.length];
+	for (int d = 0; d < steps.length; d++)
+	    dims[d] = steps[d].length;
+	return dims;
+    }
+
+
+    /**
+     * Returns the position in the underlying tensor of a value.
+     */
+    private int getBasePosition(int[] indices) {
+	int pos = start;
+	for (int d = 0; d < steps.length; d++)
+	    pos += steps[d][indices[d] - 1];
+	return pos;
+    }
+
+
+    public double getValue(int[] indices) {
+	return base.getValueAt(getBasePosition(indices));
+    }
+
+
+    public void setValue(double value, int[] indices) {
+	base.setValueAt(value, getBasePosition(indices));
+    }
+
+
+    protected double getValueAt(int position) {
+	return getValue(getIndices(position));
+    }
+
+
+    protected void setValueAt(double value, int position) {
+	setValue(value, getIndices(position));
+    }
+
+
+    /**
+     * Returns the indices of a position in the array returned by
+     * getValues().
+     */
+    private int[] getIndices(int position) {
+	int[] indices = new int[steps.length];
+	for (int d = steps.length - 1; d >= 0; d--) {
+	    indices[d] = position % steps[d].length + 1;
+	    position /= steps[d].length;
+	}
+	return indices;
+    }
+
+
+    /**
+     * Returns the values in a new dense array, since a view does
+     * not hold its own.  Changing the array does not change the
+     * tensor.
+     */
+    public double[] getValues() {
+	double[] values = new double[getSize()];
+	if (values.length == 0)
+	    return values;
+
+	// -- step through the view in order, keeping the position
+	// -- in the underlying tensor up to date
+	int n = steps.length;
+	int[] indices = new int[n];
+	int pos = getBasePosition(ones(n));
+
+	for (int i = 0; i < values.length; i++) {
+	    values[i] = base.getValueAt(pos);
+
+	    for (int d = n - 1; d >= 0; d--) {
+		if (++indices[d] < steps[d].length) {
+		    pos += steps[d][indices[d]] - steps[d][indices[d] - 1];
+		    break;
+		}
+		pos -= steps[d][indices[d] - 1] - steps[d][0];
+		indices[d] = 0;
+	    }
+	}
+
+	return values;
+    }
+
+
+    public DoubleTensor restrict(int dim, int[] indices) {
+	int[][] newSteps = (int[][]) steps.clone();
+	newSteps[dim] = new int[indices.length];
+
+	for (int i = 0; i < indices.length; i++) {
+	    if (indices[i] < 1 || indices[i] > steps[dim].length)
+		throw new IndexOutOfBoundsException("No index " + indices[i] +
+						    " in dimension " + dim);
+	    newSteps[dim][i] = steps[dim][indices[i] - 1];
+	}
+
+	return new DoubleTensorView(base, start, newSteps);
+    }
+
+
+    public DoubleTensor restrict(int dim, int first, int last) {
+	if (last < first)
+	    throw new IndexOutOfBoundsException("Empty range of indices");
+
+	int[] indices = new int[last - first + 1];
+	for (int i = 0; i < indices.length; i++)
+	    indices[i] = first + i;
+
+	return restrict(dim, indices);
+    }
+
+
+    public DoubleTensor permute(int[] order) {
+	if (order.length != steps.length)
+	    throw new IllegalArgumentException("Permutation has the wrong " +
+					       "number of dimensions");
+
+	boolean[] used = new boolean[order.length];
+	int[][] newSteps = new int[order.length][];
+	for (int d = 0; d < order.length; d++) {
+	    if (order[d] < 0 || order[d] >= order.length || used[order[d]])
+		throw new IllegalArgumentException("Not a permutation");
+	    used[order[d]] = true;
+	    newSteps[d] = steps[order[d]];
+	}
+
+	return new DoubleTensorView(base, start, newSteps);
+    }
+
+
+    public DoubleTensor fix(int dim, int index) {
+	if (index < 1 || index > steps[dim].length)
+	    throw new IndexOutOfBoundsException("No index " + index +
+						" in dimension " + dim);
+
+	int[][] newSteps = new int[steps.length - 1][];
+	for (int d = 0, e = 0; d < steps.length; d++)
+	    if (d != dim)
+		newSteps[e++] = steps[d];
+
+	return new DoubleTensorView(base, start + steps[dim][index - 1], 
+				    newSteps);
+    }
+}
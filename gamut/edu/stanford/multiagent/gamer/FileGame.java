@@ -0,0 +1,801 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+ * A game read from a file written by SimpleOutput, GambitOutput 
+ * (the payoff form of .nfg), GTOutput or IndexedOutput, so that a
+ * saved game can be normalized, restricted or written again in 
+ * another form.  The form is found from the start of the file.
+ * <p>
+ * Text files are mapped into memory and read by a small tokenizer
+ * working on the bytes, which converts most numbers without making
+ * a String of them.  The payoffs are divided into blocks which are
+ * read on all processors; since each payoff's place is known from
+ * its position, the game does not depend on the number of threads.
+ */
+
+public class FileGame extends MatrixGame
+{
+
+    // Parameters: the name of the file
+    private static Parameters.ParamInfo pFile;
+    private static Parameters.ParamInfo[] fgParam;
+
+    static {
+
+	pFile = new Parameters.ParamInfo("file", Parameters.ParamInfo.STRING_PARAM, null, null, "Name of a file written by SimpleOutput, GambitOutput, GTOutput or IndexedOutput.");
+
+	fgParam = new Parameters.ParamInfo[] {pFile};
+	Global.registerParams(FileGame.class, fgParam);
+    }
+
+
+    // -- the payoffs are read in blocks of about this many bytes
+    private static final int BLOCK_BYTES = 1 << 20;
+
+    // -- the description found in the file, if any
+    private String fileDescription;
+
+
+    public FileGame() 
+	throws Exception
+    {
+	super();
+    }
+
+
+    /**
+     * Reads the game, so that its players and actions are known.
+     */
+    public void initialize()
+	throws Exception
+    {
+	super.initialize();
+
+	read(getStringParameter(pFile.name));
+    }
+
+
+    protected void checkParameters() throws Exception 
+    {
+    }
+
+
+    /**
+     * Nothing to randomize: the game is given by the file.
+     */
+    public void randomizeParameters() 
+    {
+    }
+
+
+    protected String getGameHelp()
+    {
+	return "Reads a game saved by SimpleOutput, GambitOutput, " +
+	    "GTOutput or IndexedOutput.";
+    }
+
+
+    /**
+     * The game is read when it is initialized, so there is 
+     * nothing left to generate.
+     */
+    public void doGenerate()
+    {
+	setDescription("Game read from " + getStringParameter(pFile.name) + 
+		       "\n" + (fileDescription == null ? "" : 
+			       fileDescription + "\n") + 
+		       getDescription());
+	setName("Game read from file");
+    }
+
+
+
+    // ---------------------------------------------------
+    // -- Reading
+
+
+    private void read(String fileName)
+	throws Exception
+    {
+	RandomAccessFile file = new RandomAccessFile(fileName, "r");
+	ByteBuffer buf;
+
+	try {
+	    long length = file.length();
+	    if (length > Integer.MAX_VALUE)
+		throw new Exception(fileName + " is too large to read");
+	    buf = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 
+					0, length);
+	} finally {
+	    // -- the mapping stays valid once the file is closed
+	    file.close();
+	}
+
+	if (buf.limit() >= 4 && buf.getInt(0) == GameFile.MAGIC) {
+	    readIndexed(fileName);
+	    return;
+	}
+
+	Tokens t = new Tokens(buf, 0, buf.limit());
+	if (!t.skipSpace())
+	    throw new Exception(fileName + " is empty");
+
+	int c = t.peek();
+	if (c == '#' || c == '[')
+	    readSimple(buf, t);
+	else if (c == 'N')
+	    readGambit(buf, t);
+	else
+	    readGT(buf, t);
+    }
+
+
+    /**
+     * Sets the players and actions and makes room for the payoffs.
+     */
+    private void setActions(int[] actions)
+	throws Exception
+    {
+	long outcomes = 1;
+	for (int p = 0; p < actions.length; p++) {
+	    if (actions[p] < 1)
+		throw new Exception("Player " + (p + 1) + " has no actions");
+	    outcomes *= actions[p];
+	    if (outcomes > Integer.MAX_VALUE)
+		throw new Exception("Game is too large to read");
+	}
+
+	setNumPlayers(actions.length);
+	setNumActions(actions);
+	initMatrix();
+    }
+
+
+    private long getNumOutcomes()
+    {
+	long outcomes = 1;
+	for (int p = 0; p < getNumPlayers(); p++)
+	    outcomes *= getNumActions(p);
+	return outcomes;
+    }
+
+
+    /**
+     * Reads a file written by IndexedOutput, through GameFile.
+     */
+    private void readIndexed(String fileName)
+	throws Exception
+    {
+	GameFile file = new GameFile(fileName);
+	int n = file.getNumPlayers();
+	setActions(file.getNumActions());
+
+	int[] fixed = new int[n];
+	for (int p = 0; p < n; p++) {
+	    double[] values = file.getSlab(fixed, p).getValues();
+	    DoubleTensor t = getPayoffTensor(p);
+	    System.arraycopy(values, 0, t.getValues(), t.getOffset(), 
+			     values.length);
+	}
+    }
+
+
+    /**
+     * Reads a file written by GTOutput: the number of players, the
+     * number of actions of each, and then all of the first player's
+     * payoffs, all of the second's and so on.
+     */
+    private void readGT(ByteBuffer buf, Tokens t)
+	throws Exception
+    {
+	int n = t.nextInt();
+	if (n < 1)
+	    throw new Exception("Bad number of players: " + n);
+
+	int[] actions = new int[n];
+	for (int p = 0; p < n; p++)
+	    actions[p] = t.nextInt();
+	setActions(actions);
+
+	readPayoffs(buf, t.pos, t.end, false);
+    }
+
+
+    /**
+     * Reads a file in the payoff form of Gambit's .nfg format: a 
+     * header naming the players and giving their numbers of 
+     * actions, or their actions' names, and then the payoffs of
+     * all players at each outcome in turn.
+     */
+    private void readGambit(ByteBuffer buf, Tokens t)
+	throws Exception
+    {
+	t.expectWord("NFG");
+	t.nextInt();
+	t.nextWord();
+	fileDescription = t.nextQuoted();
+
+	// -- the players' names
+	int n = 0;
+	t.expect('{');
+	while (!t.accept('}')) {
+	    t.nextQuoted();
+	    n++;
+	}
+
+	// -- the numbers of actions, or lists of their names
+	int[] actions = new int[n];
+	t.expect('{');
+	for (int p = 0; p < n; p++) {
+	    if (t.accept('{')) {
+		while (!t.accept('}')) {
+		    t.nextQuoted();
+		    actions[p]++;
+		}
+	    } else
+		actions[p] = t.nextInt();
+	}
+	t.expect('}');
+
+	// -- an optional comment
+	t.skipSpace();
+	if (t.peek() == '"')
+	    t.nextQuoted();
+
+	t.skipSpace();
+	if (t.peek() == '{')
+	    throw new Exception("Only the payoff form of .nfg files " +
+				"can be read, not the outcome form");
+
+	setActions(actions);
+	readPayoffs(buf, t.pos, t.end, true);
+    }
+
+
+    /**
+     * Reads a file written by SimpleOutput: comments, then a line
+     * for each outcome holding the actions and then the payoffs.  
+     * The numbers of players and actions are taken from the last
+     * line, which is the last outcome.
+     */
+    private void readSimple(ByteBuffer buf, Tokens t)
+	throws Exception
+    {
+	// -- the comments at the top are the description
+	StringBuffer comments = new StringBuffer();
+	t.skipSpace();
+	while (t.peek() == '#') {
+	    String line = t.nextLine().substring(1);
+	    if (line.startsWith(" "))
+		line = line.substring(1);
+	    comments.append(comments.length() > 0 ? "\n" : "").append(line);
+	    t.skipSpace();
+	}
+	if (comments.length() > 0)
+	    fileDescription = comments.toString();
+
+	int start = t.pos;
+
+	// -- the start of the last line
+	int last = t.end;
+	while (last > start && Tokens.isSpace(buf.get(last - 1)))
+	    last--;
+	while (last > start && buf.get(last - 1) != '\n')
+	    last--;
+
+	Tokens lastLine = new Tokens(buf, last, t.end);
+	lastLine.expect('[');
+	int n = 0;
+	int[] actions = new int[16];
+	while (!lastLine.accept(']')) {
+	    if (n == actions.length) {
+		int[] more = new int[2 * n];
+		System.arraycopy(actions, 0, more, 0, n);
+		actions = more;
+	    }
+	    actions[n++] = lastLine.nextInt();
+	}
+
+	int[] sizes = new int[n];
+	System.arraycopy(actions, 0, sizes, 0, n);
+	setActions(sizes);
+
+	readLines(buf, start, t.end);
+    }
+
+
+
+    // ---------------------------------------------------
+    // -- Reading the payoffs in parallel
+
+
+    /**
+     * Returns the strides of the payoff tensors.
+     */
+    private int[] getStrides()
+    {
+	int n = getNumPlayers();
+	int[] strides = new int[n];
+	int stride = 1;
+	for (int p = n - 1; p >= 0; p--) {
+	    strides[p] = stride;
+	    stride *= getNumActions(p);
+	}
+	return strides;
+    }
+
+
+    /**
+     * Returns the values arrays of the payoff tensors.
+     */
+    private double[][] getValueArrays()
+    {
+	double[][] values = new double[getNumPlayers()][];
+	for (int p = 0; p < values.length; p++)
+	    values[p] = getPayoffTensor(p).getValues();
+	return values;
+    }
+
+
+    /**
+     * Divides part of the file into blocks, each ending where a
+     * delimiter does.
+     *
+     * @param lines whether the blocks should end with lines, 
+     *        rather than with any space
+     */
+    private static int[] getBlockBounds(ByteBuffer buf, int start, int end,
+					boolean lines)
+    {
+	int nBlocks = Math.max(1, (end - start + BLOCK_BYTES - 1) / BLOCK_BYTES);
+	int[] bounds = new int[nBlocks + 1];
+
+	bounds[0] = start;
+	for (int b = 1; b < nBlocks; b++) {
+	    int pos = Math.max(start + b * BLOCK_BYTES, bounds[b - 1]);
+	    while (pos < end && (lines ? buf.get(pos) != '\n' : 
+				 !Tokens.isSpace(buf.get(pos))))
+		pos++;
+	    bounds[b] = pos;
+	}
+	bounds[nBlocks] = end;
+
+	return bounds;
+    }
+
+
+    /**
+     * Reads a list of payoffs, either by outcome (all players' 
+     * payoffs at the first outcome, then at the second, ...) or by 
+     * player (all of the first player's payoffs, then all of the
+     * second's, ...).  Outcomes come in the order of Outcome, with
+     * the first player's action changing fastest.
+     */
+    private void readPayoffs(final ByteBuffer buf, int start, int end,
+			     final boolean byOutcome)
+	throws Exception
+    {
+	final int[] bounds = getBlockBounds(buf, start, end, false);
+	final int nBlocks = bounds.length - 1;
+
+	// -- count the numbers in each block, so that the place of
+	// -- each one is known before it is read
+	final long[] counts = new long[nBlocks + 1];
+	Parallel.run(nBlocks, new Parallel.Body() {
+		public void run(int b) {
+		    long count = 0;
+		    boolean inToken = false;
+		    for (int pos = bounds[b]; pos < bounds[b + 1]; pos++) {
+			boolean space = Tokens.isSpace(buf.get(pos));
+			if (!space && !inToken)
+			    count++;
+			inToken = !space;
+		    }
+		    counts[b + 1] = count;
+		}
+	    });
+
+	for (int b = 0; b < nBlocks; b++)
+	    counts[b + 1] += counts[b];
+
+	final int n = getNumPlayers();
+	final long outcomes = getNumOutcomes();
+	if (counts[nBlocks] != outcomes * n)
+	    throw new Exception("Expected " + (outcomes * n) + " payoffs, " +
+				"but found " + counts[nBlocks]);
+
+	final int[] actions = getNumActions();
+	final int[] strides = getStrides();
+	final double[][] values = getValueArrays();
+
+	runBlocks(nBlocks, new Parallel.Body() {
+		public void run(int b) {
+		    long first = counts[b];
+		    int player = (int) (byOutcome ? first % n : first / outcomes);
+		    long outcome = (byOutcome ? first / n : first % outcomes);
+
+		    // -- the action of each player, from 0, and the
+		    // -- position of the outcome in the tensors
+		    int[] digits = new int[n];
+		    int position = 0;
+		    for (int p = 0; p < n; p++) {
+			digits[p] = (int) (outcome % actions[p]);
+			outcome /= actions[p];
+			position += digits[p] * strides[p];
+		    }
+
+		    Tokens t = new Tokens(buf, bounds[b], bounds[b + 1]);
+		    for (long k = counts[b]; k < counts[b + 1]; k++) {
+			values[player][position] = t.nextNumberOrFail();
+
+			if (byOutcome && ++player < n)
+			    continue;
+			if (byOutcome)
+			    player = 0;
+
+			// -- the next outcome
+			int p = 0;
+			for (; p < n; p++) {
+			    position += strides[p];
+			    if (++digits[p] < actions[p])
+				break;
+			    position -= actions[p] * strides[p];
+			    digits[p] = 0;
+			}
+			if (p == n && !byOutcome)
+			    player++;
+		    }
+		}
+	    });
+    }
+
+
+    /**
+     * Reads lines written by SimpleOutput, each giving an outcome
+     * and the payoffs there.
+     */
+    private void readLines(final ByteBuffer buf, int start, int end)
+	throws Exception
+    {
+	final int[] bounds = getBlockBounds(buf, start, end, true);
+	final int nBlocks = bounds.length - 1;
+
+	final int n = getNumPlayers();
+	final int[] actions = getNumActions();
+	final int[] strides = getStrides();
+	final double[][] values = getValueArrays();
+	final long[] counts = new long[nBlocks];
+
+	runBlocks(nBlocks, new Parallel.Body() {
+		public void run(int b) {
+		    Tokens t = new Tokens(buf, bounds[b], bounds[b + 1]);
+
+		    while (t.skipSpace()) {
+			if (t.peek() == '#') {
+			    t.nextLine();
+			    continue;
+			}
+
+			t.expectOrFail('[');
+			int position = 0;
+			for (int p = 0; p < n; p++) {
+			    int action = (int) t.nextNumberOrFail();
+			    if (action < 1 || action > actions[p])
+				throw new RuntimeException("Player " + (p + 1) + 
+							   " has no action " + 
+							   action);
+			    position += (action - 1) * strides[p];
+			}
+			t.expectOrFail(']');
+			t.expectOrFail(':');
+			t.expectOrFail('[');
+			for (int p = 0; p < n; p++)
+			    values[p][position] = t.nextNumberOrFail();
+			t.expectOrFail(']');
+
+			counts[b]++;
+		    }
+		}
+	    });
+
+	long lines = 0;
+	for (int b = 0; b < nBlocks; b++)
+	    lines += counts[b];
+	if (lines != getNumOutcomes())
+	    throw new Exception("Expected " + getNumOutcomes() + " outcomes, " +
+				"but found " + lines);
+    }
+
+
+    /**
+     * Runs the blocks, turning errors back into checked exceptions.
+     */
+    private static void runBlocks(int nBlocks, Parallel.Body body)
+	throws Exception
+    {
+	try {
+	    Parallel.run(nBlocks, body);
+	} catch (RuntimeException e) {
+	    throw new Exception(e.getMessage());
+	}
+    }
+
+
+
+    // --------------------------------------------------
+    // -- A tokenizer working directly on the bytes of the file
+
+
+    private static class Tokens
+    {
+	ByteBuffer buf;
+	int pos;
+	int end;
+
+	// -- for the numbers which are converted by Double
+	private char[] chars = new char[32];
+
+	// -- the powers of 10 which doubles hold exactly
+	private static final double[] POWERS = new double[23];
+
+	static {
+	    POWERS[0] = 1;
+	    for (int i = 1; i < POWERS.length; i++)
+		POWERS[i] = POWERS[i - 1] * 10;
+	}
+
+
+	Tokens(ByteBuffer buf, int pos, int end)
+	{
+	    this.buf = buf;
+	    this.pos = pos;
+	    this.end = end;
+	}
+
+	static boolean isSpace(byte c)
+	{
+	    return c == ' ' || c == '\n' || c == '\r' || c == '\t' ||
+		c == '\f';
+	}
+
+	// -- skips spaces, and returns true if anything is left
+	boolean skipSpace()
+	{
+	    while (pos < end && isSpace(buf.get(pos)))
+		pos++;
+	    return pos < end;
+	}
+
+	int peek()
+	{
+	    return (pos < end ? buf.get(pos) : -1);
+	}
+
+	// -- consumes c if it is the next character
+	boolean accept(char c)
+	{
+	    skipSpace();
+	    if (peek() == c) {
+		pos++;
+		return true;
+	    }
+	    return false;
+	}
+
+	void expect(char c)
+	    throws Exception
+	{
+	    if (!accept(c))
+		throw new Exception("Expected '" + c + "' at byte " + pos);
+	}
+
+	void expectOrFail(char c)
+	{
+	    if (!accept(c))
+		throw new RuntimeException("Expected '" + c + "' at byte " + pos);
+	}
+
+	String nextLine()
+	{
+	    int start = pos;
+	    while (pos < end && buf.get(pos) != '\n')
+		pos++;
+
+	    int stop = pos;
+	    if (stop > start && buf.get(stop - 1) == '\r')
+		stop--;
+	    return toString(start, stop);
+	}
+
+	String nextWord()
+	{
+	    skipSpace();
+	    int start = pos;
+	    while (pos < end && !isSpace(buf.get(pos)))
+		pos++;
+	    return toString(start, pos);
+	}
+
+	void expectWord(String word)
+	    throws Exception
+	{
+	    if (!nextWord().equals(word))
+		throw new Exception("Expected " + word + " at byte " + pos);
+	}
+
+	// -- a string in double quotes, in which \ quotes the next
+	// -- character
+	String nextQuoted()
+	    throws Exception
+	{
+	    expect('"');
+	    StringBuffer s = new StringBuffer();
+	    while (pos < end && buf.get(pos) != '"') {
+		if (buf.get(pos) == '\\' && pos + 1 < end)
+		    pos++;
+		s.append((char) (buf.get(pos++) & 0xff));
+	    }
+	    expect('"');
+	    return s.toString();
+	}
+
+	private String toString(int start, int stop)
+	{
+	    StringBuffer s = new StringBuffer(stop - start);
+	    for (int i = start; i < stop; i++)
+		s.append((char) (buf.get(i) & 0xff));
+	    return s.toString();
+	}
+
+	int nextInt()
+	    throws Exception
+	{
+	    double x = nextNumber();
+	    if (x != Math.floor(x) || Math.abs(x) > Integer.MAX_VALUE)
+		throw new Exception("Expected an integer at byte " + pos);
+	    return (int) x;
+	}
+
+	double nextNumberOrFail()
+	{
+	    try {
+		return nextNumber();
+	    } catch (Exception e) {
+		throw new RuntimeException(e.getMessage());
+	    }
+	}
+
+	/**
+	 * Reads a number, such as 12, -0.5, 1.0E-5 or the rational
+	 * 3/4.  When the digits fit in a double and the exponent is
+	 * small, a single multiplication or division by a power of
+	 * 10 rounds correctly, which covers most payoffs; the other
+	 * numbers are handed to Double.parseDouble().
+	 */
+	double nextNumber()
+	    throws Exception
+	{
+	    if (!skipSpace())
+		throw new Exception("Expected a number at the end");
+
+	    int start = pos;
+	    boolean negative = false;
+	    int c = peek();
+	    if (c == '-' || c == '+') {
+		negative = (c == '-');
+		pos++;
+	    }
+
+	    long mantissa = 0;
+	    int digits = 0;
+	    int exponent = 0;
+	    boolean exact = true;
+	    boolean any = false;
+
+	    for (c = peek(); c >= '0' && c <= '9'; c = peek()) {
+		any = true;
+		pos++;
+		if (mantissa > 0 || c != '0')
+		    if (++digits > 18) {
+			exact = false;
+			continue;
+		    }
+		mantissa = mantissa * 10 + (c - '0');
+	    }
+
+	    if (c == '.') {
+		pos++;
+		for (c = peek(); c >= '0' && c <= '9'; c = peek()) {
+		    any = true;
+		    pos++;
+		    if (mantissa > 0 || c != '0')
+			if (++digits > 18) {
+			    exact = false;
+			    continue;
+			}
+		    mantissa = mantissa * 10 + (c - '0');
+		    exponent--;
+		}
+	    }
+
+	    if (any && (c == 'e' || c == 'E')) {
+		pos++;
+		boolean negExp = false;
+		c = peek();
+		if (c == '-' || c == '+') {
+		    negExp = (c == '-');
+		    pos++;
+		}
+		int e = 0;
+		for (c = peek(); c >= '0' && c <= '9'; c = peek()) {
+		    pos++;
+		    if (e < 10000)
+			e = e * 10 + (c - '0');
+		}
+		exponent += (negExp ? -e : e);
+	    }
+
+	    // -- anything else in the token, such as Infinity or NaN
+	    while (pos < end && !isSpace(buf.get(pos)) && peek() != ']' &&
+		   peek() != '/' && peek() != '}') {
+		pos++;
+		exact = false;
+	    }
+
+	    if (pos == start)
+		throw new Exception("Expected a number at byte " + pos);
+
+	    double value;
+	    if (exact && any && mantissa <= (1L << 53) &&
+		exponent >= -22 && exponent <= 22) {
+		value = (exponent >= 0 ? mantissa * POWERS[exponent] : 
+			 mantissa / POWERS[-exponent]);
+		if (negative)
+		    value = -value;
+	    } else
+		value = parse(start, pos);
+
+	    if (peek() == '/') {
+		pos++;
+		value /= nextNumber();
+	    }
+
+	    return value;
+	}
+
+	private double parse(int start, int stop)
+	    throws Exception
+	{
+	    if (stop - start > chars.length)
+		chars = new char[stop - start];
+	    for (int i = start; i < stop; i++)
+		chars[i - start] = (char) (buf.get(i) & 0xff);
+
+	    try {
+		return Double.parseDouble(new String(chars, 0, stop - start));
+	    } catch (NumberFormatException e) {
+		throw new Exception("Bad number at byte " + start);
+	    }
+	}
+    }
+}
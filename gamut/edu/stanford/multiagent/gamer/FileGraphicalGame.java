@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.util.*;
+import edu.stanford.multiagent.gamer.graphs.*;
+
+/**
+ * A graphical or polymatrix game read from a file written by
+ * GraphicalOutput or BinaryGraphicalOutput (see 
+ * GraphicalGameFormat), so that a game saved in compact form can
+ * be written again in any other form.
+ */
+
+public class FileGraphicalGame extends GraphicalGame
+{
+
+    // Parameters: the name of the file
+    private static Parameters.ParamInfo pFile;
+    private static Parameters.ParamInfo[] fggParam;
+
+    static {
+
+	pFile = new Parameters.ParamInfo("file", Parameters.ParamInfo.STRING_PARAM, null, null, "Name of a file written by GraphicalOutput or BinaryGraphicalOutput.");
+
+	fggParam = new Parameters.ParamInfo[] {pFile};
+	Global.registerParams(FileGraphicalGame.class, fggParam);
+    }
+
+
+    // -- The matrices of all edges, one after another in graph 
+    // -- order, and where the matrix of each edge starts.
+    private double[] edgeValues;
+    private int[][] edgePositions;
+
+
+    public FileGraphicalGame() 
+	throws Exception
+    {
+	super();
+    }
+
+
+    /**
+     * Reads the game, so that its players and actions are known.
+     */
+    public void initialize()
+	throws Exception
+    {
+	super.initialize();
+
+	GraphicalGameFormat.read(getStringParameter(pFile.name), this);
+    }
+
+
+    /**
+     * The graph is read with the rest of the game.
+     */
+    protected void initGraph()
+    {
+    }
+
+
+    protected void checkParameters() throws Exception 
+    {
+    }
+
+
+    /**
+     * Nothing to randomize: the game is given by the file.
+     */
+    public void randomizeParameters() 
+    {
+    }
+
+
+    protected String getGameHelp()
+    {
+	return "Reads a graphical or polymatrix game saved in compact " +
+	    "form by GraphicalOutput or BinaryGraphicalOutput.";
+    }
+
+
+    /**
+     * The game is read when it is initialized, so there is 
+     * nothing left to generate.
+     */
+    public void doGenerate()
+    {
+	setDescription("Graphical Game read from " + 
+		       getStringParameter(pFile.name) + "\n" + 
+		       getDescription());
+	setName("Graphical Game");
+    }
+
+
+
+    // ---------------------------------------------------
+    // -- Filled in by GraphicalGameFormat
+
+
+    /**
+     * Sets the players, their actions and the graph, and makes
+     * room for the edge matrices.
+     */
+    void setStructure(int[] actions, FileGraph graph)
+	throws Exception
+    {
+	int n = graph.getNNodes();
+	if (actions == null || actions.length != n)
+	    throw new Exception("Graph has " + n + " nodes, but there are " +
+				(actions == null ? 0 : actions.length) + 
+				" players");
+
+	setNumPlayers(n);
+	setNumActions(actions);
+	this.graph = graph;
+
+	edgePositions = new int[n][];
+	long size = 0;
+	for (int p = 0; p < n; p++) {
+	    edgePositions[p] = new int[graph.getNumNeighbours(p)];
+	    for (int k = 0; k < edgePositions[p].length; k++) {
+		edgePositions[p][k] = (int) size;
+		size += (long) actions[p] * actions[graph.getNeighbour(p, k)];
+	    }
+	}
+
+	if (size > Integer.MAX_VALUE)
+	    throw new Exception("Graphical game is too large");
+
+	edgeValues = new double[(int) size];
+    }
+
+
+    /**
+     * Adds a matrix at a node, over the player's action and then
+     * its neighbours' in graph order, and returns its values.
+     */
+    double[] addNodeMatrix(int player)
+    {
+	int k = graph.getNumNeighbours(player);
+	int[] dims = new int[k + 1];
+	dims[0] = getNumActions(player);
+	for (int j = 0; j < k; j++)
+	    dims[j + 1] = getNumActions(graph.getNeighbour(player, j));
+
+	DoubleTensor matrix = new DoubleTensor(dims);
+	setNodeMatrix(player, matrix);
+	return matrix.getValues();
+    }
+
+
+    /**
+     * Adds a matrix on the k-th edge of a player, and returns 
+     * where its values start in getEdgeValues().
+     */
+    int addEdgeMatrix(int player, int k)
+    {
+	int q = graph.getNeighbour(player, k);
+	int[] dims = {getNumActions(player), getNumActions(q)};
+
+	graph.setEdgeData(player, q, new DoubleTensor(dims, edgeValues, 
+						      edgePositions[player][k]));
+	return edgePositions[player][k];
+    }
+
+
+    double[] getEdgeValues()
+    {
+	return edgeValues;
+    }
+}
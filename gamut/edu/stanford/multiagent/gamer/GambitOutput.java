@@ -17,6 +17,7 @@
 package edu.stanford.multiagent.gamer;
 
 import java.io.*;
+import java.util.*;
 
 /**
  * Outputs a game in the Gambit .nfg file format.
@@ -80,8 +81,12 @@ public class GambitOutput extends GameOutput
 	Outcome o = new Outcome(g.getNumPlayers(), g.getNumActions());
 	
 	for(o.reset(); o.hasMoreOutcomes(); o.nextOutcome())
-	    for(int i=0; i<g.getNumPlayers(); i++)
-		out.print(g.getOutputPayoff(o.getOutcome(), i) + " ");
+	    {
+		Vector payoffs = g.getPayoff(o.getOutcome());
+
+		for(int i=0; i<g.getNumPlayers(); i++)
+		    out.print(g.getOutputPayoff(((Double)payoffs.get(i)).doubleValue()) + " ");
+	    }
 
 	out.println();
 	
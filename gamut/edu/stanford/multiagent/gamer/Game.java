@@ -35,13 +35,22 @@ public abstract class Game extends ParameterizedObject
     private String gameName;
 
     // For normalization
-    private boolean minAndMaxSet = false;
-    private double oldMax;
-    private double oldMin;
+    protected boolean minAndMaxSet = false;
+    protected double oldMax;
+    protected double oldMin;
 
     protected static final double DEFAULT_LOW = -100;
     protected static final double DEFAULT_HIGH = 100;
 
+    // -- Structures of the payoffs which a game may advertise, so
+    // -- that its payoffs need only be found and written for the
+    // -- first player.  In a constant-sum game the payoffs of the
+    // -- two players add up to getConstantSum().
+    public static final int GENERAL = 0;
+    public static final int ZERO_SUM = 1;
+    public static final int CONSTANT_SUM = 2;
+    public static final int COMMON_PAYOFF = 3;
+
     /**
      * Returns Game Description (Name, Params, etc)
      */
@@ -372,7 +381,8 @@ public abstract class Game extends ParameterizedObject
     /**
      * Collects payoffs into a vector. Should be used with caution.
      * Can be overwritten in subclasses if it is more efficient
-     * to get all payoffs for each outcome at once.
+     * to get all payoffs for each outcome at once, and like
+     * getPayoff(int[], int) must then leave the game unchanged.
      *
      * @param outcome an array containing the action choices of 
      *        all players at the given outcome
@@ -392,6 +402,126 @@ public abstract class Game extends ParameterizedObject
 
 
 
+    /**
+     * Returns the payoffs of every player as sparse tensors, with
+     * the payoff of each player at most outcomes as its default, 
+     * so that games which mostly repeat one payoff can be output 
+     * compactly.
+     */
+    public SparseDoubleTensor[] getSparsePayoffTensors()
+    {
+	return getSparsePayoffTensors(getNumPlayers());
+    }
+
+
+    /**
+     * Returns the payoffs of the first few players as sparse 
+     * tensors, as for games whose other payoffs follow from the
+     * first player's.  Goes through every outcome twice; should be
+     * overwritten by games which store their payoffs.
+     *
+     * @param players the number of players whose payoffs to return
+     */
+    public SparseDoubleTensor[] getSparsePayoffTensors(int players)
+    {
+	int[] actions = getNumActions();
+
+	// -- first find the most common payoff of each player, by
+	// -- majority vote
+	double[] candidate = new double[players];
+	int[] votes = new int[players];
+
+	int[] outcome = new int[getNumPlayers()];
+	Arrays.fill(outcome, 1);
+	do {
+	    double[] payoffs = getPayoffs(outcome, players);
+	    for (int i = 0; i < players; i++) {
+		double v = payoffs[i];
+		if (votes[i] == 0) {
+		    candidate[i] = v;
+		    votes[i] = 1;
+		} else if (Double.doubleToLongBits(v) == 
+			   Double.doubleToLongBits(candidate[i]))
+		    votes[i]++;
+		else
+		    votes[i]--;
+	    }
+	} while (nextIndices(outcome, actions));
+
+	SparseDoubleTensor[] sparse = new SparseDoubleTensor[players];
+	for (int i = 0; i < players; i++)
+	    sparse[i] = new SparseDoubleTensor(actions, candidate[i]);
+
+	// -- then record the other payoffs, in order
+	int pos = 0;
+	Arrays.fill(outcome, 1);
+	do {
+	    double[] payoffs = getPayoffs(outcome, players);
+	    for (int i = 0; i < players; i++) {
+		double v = payoffs[i];
+		if (Double.doubleToLongBits(v) != 
+		    Double.doubleToLongBits(candidate[i]))
+		    sparse[i].appendEntry(pos, v);
+	    }
+	    pos++;
+	} while (nextIndices(outcome, actions));
+
+	return sparse;
+    }
+
+
+    /**
+     * Returns the payoffs of the first few players at an outcome,
+     * all at once if that is more than one.
+     */
+    private double[] getPayoffs(int[] outcome, int players)
+    {
+	double[] payoffs = new double[players];
+
+	if (players == 1) {
+	    payoffs[0] = getPayoff(outcome, 0);
+	    return payoffs;
+	}
+
+	Vector payoffVector = getPayoff(outcome);
+	for (int i = 0; i < players; i++)
+	    payoffs[i] = ((Double) payoffVector.get(i)).doubleValue();
+
+	return payoffs;
+    }
+
+
+    /**
+     * Steps through outcomes in the order of the values of a 
+     * DoubleTensor, with the last player's action changing 
+     * fastest.  Returns false after the last outcome.
+     */
+    private static boolean nextIndices(int[] outcome, int[] actions)
+    {
+	for (int i = outcome.length - 1; i >= 0; i--) {
+	    if (++outcome[i] <= actions[i])
+		return true;
+	    outcome[i] = 1;
+	}
+
+	return false;
+    }
+
+
+
+    /**
+     * Returns the game as an action graph, for games in which 
+     * payoffs depend only on how many players choose each action,
+     * or null if the game has no such form.  Should be overwritten
+     * by such games so that they can be output compactly.
+     */
+    public ActionGraph getActionGraph()
+    {
+	return null;
+    }
+
+
+
     /**
      * Collects all payoffs (one at a time) and figures out the
      * min and max.  These will later be used for normalization.
@@ -404,7 +534,10 @@ public abstract class Game extends ParameterizedObject
      */
     public void setNormMinAndMax()
     {
-	int players = getNumPlayers();
+	// -- only the first player's payoffs need be looked at if
+	// -- the others follow from them
+	int players = (getPayoffStructure() == GENERAL ? 
+		       getNumPlayers() : 1);
 
 	Outcome o = new Outcome(getNumPlayers(), getNumActions());
 	o.reset();
@@ -414,7 +547,7 @@ public abstract class Game extends ParameterizedObject
 	oldMin = getPayoff(o.getOutcome(), 0);
 	
 	for(o.reset(); o.hasMoreOutcomes(); o.nextOutcome()) {
-	    for (int i = 0; i < getNumPlayers(); i++) {
+	    for (int i = 0; i < players; i++) {
 		double nextPay = getPayoff(o.getOutcome(), i);
 		if (nextPay > oldMax) {
 		    oldMax = nextPay;
@@ -424,11 +557,67 @@ public abstract class Game extends ParameterizedObject
 	    }
 	}
 
+	if (players == 1)
+	    setNormMinAndMax(oldMin, oldMax);
+
+	minAndMaxSet = true;
+    }
+
+
+    /**
+     * Sets the min and max used for normalization from the min and 
+     * max of the first player's payoffs, widening them to cover the
+     * other players' according to getPayoffStructure().  For games
+     * which can find the first player's range quickly.
+     *
+     * @param min the first player's smallest payoff
+     * @param max the first player's largest payoff
+     */
+    protected void setNormMinAndMax(double min, double max)
+    {
+	oldMin = min;
+	oldMax = max;
+
+	switch (getPayoffStructure()) {
+	case ZERO_SUM:
+	    oldMin = Math.min(min, -max);
+	    oldMax = Math.max(max, -min);
+	    break;
+	case CONSTANT_SUM:
+	    oldMin = Math.min(min, getConstantSum() - max);
+	    oldMax = Math.max(max, getConstantSum() - min);
+	    break;
+	}
+
 	minAndMaxSet = true;
     }
 
 
 
+    /**
+     * Returns the structure of the payoffs: GENERAL, or for two
+     * players ZERO_SUM or CONSTANT_SUM, or COMMON_PAYOFF.  Should
+     * be overwritten by games which have one of these structures,
+     * so that only the first player's payoffs are looked at when
+     * normalizing and written by outputters which support it.
+     */
+    public int getPayoffStructure()
+    {
+	return GENERAL;
+    }
+
+
+    /**
+     * Returns the sum of the two players' payoffs in a constant-sum
+     * game.
+     */
+    public double getConstantSum()
+    {
+	return 0;
+    }
+
+
+
     /**
      * Formats and outputs the payoff according to set flags.
      *
@@ -588,7 +777,11 @@ public abstract class Game extends ParameterizedObject
     // --------------------------------------------
 
     /**
-     * Returns a payoff for a given player.
+     * Returns a payoff for a given player.  Once the game has been
+     * generated this must not change it, nor anything it shares,
+     * since -sample with -parallel asks for the payoffs of many
+     * outcomes from several threads at once.  Tables set up on
+     * first use are fine, as the first outcome is evaluated alone.
      *
      * @param outcome array of integers representing which actions
      *                have been chosen by each player
@@ -608,6 +801,7 @@ public abstract class Game extends ParameterizedObject
     //---------------------------------------------
     
     protected static Parameters.ParamInfo players;
+    protected static Parameters.ParamInfo manyPlayers;
     protected static Parameters.ParamInfo actions;
     protected static Parameters.ParamInfo symActions;
     protected static Parameters.ParamInfo intPayoffs;
@@ -615,10 +809,15 @@ public abstract class Game extends ParameterizedObject
     protected static Parameters.ParamInfo pMinPayoff;
     protected static Parameters.ParamInfo pMaxPayoff;
     protected static Parameters.ParamInfo pNormalize;
+    protected static Parameters.ParamInfo pParallel;
 
     static {
 	players = new Parameters.ParamInfo("players", Parameters.ParamInfo.LONG_PARAM, new Long(2), new Long(100), "the number of players. Must be >= 2 and <= 100.", true,null);
 
+	// Alternate option for players, for games which have a 
+	// compact form that can be output with many players
+	manyPlayers = new Parameters.ParamInfo("players", Parameters.ParamInfo.LONG_PARAM, new Long(2), new Long(10000), "the number of players. Must be >= 2 and <= 10000.  With more than a few players the game is too large for most outputters, but can be sampled with -sample, and games with an action graph can still be written with AGGOutput.", true,null);
+
 	actions = new Parameters.ParamInfo("actions", Parameters.ParamInfo.VECTOR_PARAM, new Long(1), new Long(500), "number of actions.  Can be a single number, or a list of numbers - one for each player.  Must be >= 1 and may be as large as 500, but note that using large numbers of actions will result in exponentially large games.  For most games, the number of actions should be much smaller.", true, null);
 
 	// Alternate option for actions parameter, displays message
@@ -631,6 +830,8 @@ public abstract class Game extends ParameterizedObject
 	
 	pNormalize = new Parameters.ParamInfo("normalize", Parameters.ParamInfo.BOOLEAN_PARAM, null, null, "use normalization. Note that normalization can result in some error in the last digit of the decimal payoff.", false, Boolean.FALSE);
 
+	pParallel = new Parameters.ParamInfo("parallel", Parameters.ParamInfo.BOOLEAN_PARAM, null, null, "generate payoffs on all processors, for CovariantGame, RandomGame, RandomZeroSum and RandomGraphicalGame, and for the outcomes of -sample, and draw random integers without bias.  The game is the same for the same seed whatever the number of processors, but differs from the one generated without this option, which reproduces games made by earlier versions.", false, Boolean.FALSE);
+
 	pMinPayoff = new Parameters.ParamInfo("min_payoff", Parameters.ParamInfo.DOUBLE_PARAM, new Double(-Double.MAX_VALUE), new Double(Double.MAX_VALUE), "minimum payoff in matrix, set if normalization is desired.", false);
 
 	pMaxPayoff = new Parameters.ParamInfo("max_payoff", Parameters.ParamInfo.DOUBLE_PARAM, new Double(-Double.MAX_VALUE), new Double(Double.MAX_VALUE), "maximum payoff in matrix, set if normalization is desired.", false);
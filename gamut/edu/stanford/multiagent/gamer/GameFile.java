@@ -0,0 +1,495 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+ * Reads and writes games in an indexed binary form, in which any
+ * payoff can be found from its position without reading the rest 
+ * of the file.  A GameFile maps the file into memory and answers
+ * queries for single payoffs, rows, columns and slabs, so that a 
+ * generated game can be analysed without being loaded or parsed.
+ * <p>
+ * The payoffs are written as output, that is normalized or made 
+ * integers if so set.  The file is written with DataOutputStream,
+ * so all numbers are big-endian:
+ * <pre>
+ *   int      magic 0x474D4958 ("GMIX")
+ *   int      version, currently 1
+ *   int      n, the number of players
+ *   int[n]   the number of actions of each player
+ *   int      s, the number of payoffs stored for each outcome:
+ *            n, or 1 if the structure below is not general and
+ *            the payoffs are not normalized
+ *   int      structure, as Game.getPayoffStructure()
+ *   double   the sum of the payoffs, if constant-sum
+ *   int      the type of the payoffs: 0 for double, 1 for long
+ *   long[n+1] strides: the payoff of player p at outcome 
+ *            (a_0, ..., a_n-1), actions counted from 0, is value 
+ *            a_0*stride_0 + ... + a_n-1*stride_n-1 + p*stride_n,
+ *            so the last player's action varies fastest
+ *   long     the number of values in each chunk
+ *   long     the number of chunks
+ *   long     where the values start, a multiple of 8
+ *   long     where the chunk ranges start
+ *   the values, 8 bytes each
+ *   for each chunk, the smallest and the largest of its values,
+ *            as doubles
+ * </pre>
+ * When only the first player's payoffs are stored, the others 
+ * follow from them: minus them if zero-sum, the constant less 
+ * them if constant-sum, and the same if common-payoff.  Normalized
+ * payoffs are all stored, since the others worked out this way 
+ * may differ in the last digit from those the game writes itself.
+ */
+
+public class GameFile
+{
+    public static final int MAGIC = 0x474D4958;
+    public static final int VERSION = 1;
+
+    public static final int DOUBLE_VALUES = 0;
+    public static final int LONG_VALUES = 1;
+
+    // -- the number of values in each chunk of a written file
+    public static final int CHUNK_SIZE = 4096;
+
+    // -- the values are mapped in segments of at most this many,
+    // -- since a buffer holds less than 2^31 bytes
+    private static final int SEGMENT_SHIFT = 27;
+
+
+    // -- the header
+    private int players;
+    private int[] actions;
+    private int stored;
+    private int structure;
+    private double constant;
+    private int type;
+    private long[] strides;
+    private long chunkSize;
+    private double[] chunkMin;
+    private double[] chunkMax;
+
+    private MappedByteBuffer[] segments;
+
+
+
+    /**
+     * Opens a file written by write(), mapping it into memory.
+     *
+     * @param fileName the name of the file
+     */
+    public GameFile(String fileName)
+	throws Exception
+    {
+	RandomAccessFile file = new RandomAccessFile(fileName, "r");
+
+	try {
+	    DataInput in = file;
+
+	    if (in.readInt() != MAGIC)
+		throw new Exception(fileName + " is not an indexed game file");
+	    if (in.readInt() != VERSION)
+		throw new Exception(fileName + " has an unknown version");
+
+	    players = in.readInt();
+	    actions = new int[players];
+	    for (int p = 0; p < players; p++)
+		actions[p] = in.readInt();
+
+	    stored = in.readInt();
+	    structure = in.readInt();
+	    constant = in.readDouble();
+	    type = in.readInt();
+
+	    strides = new long[players + 1];
+	    for (int p = 0; p <= players; p++)
+		strides[p] = in.readLong();
+
+	    chunkSize = in.readLong();
+	    int chunks = (int) in.readLong();
+	    long dataOffset = in.readLong();
+	    long statsOffset = in.readLong();
+
+	    // -- the values, in segments
+	    FileChannel channel = file.getChannel();
+	    long bytes = statsOffset - dataOffset;
+	    long segmentBytes = 8L << SEGMENT_SHIFT;
+	    segments = new MappedByteBuffer[(int) ((bytes + segmentBytes - 1) / segmentBytes)];
+	    for (int k = 0; k < segments.length; k++)
+		segments[k] = channel.map(FileChannel.MapMode.READ_ONLY, 
+					  dataOffset + k * segmentBytes,
+					  Math.min(segmentBytes, bytes - k * segmentBytes));
+
+	    // -- the chunk ranges are small enough to read
+	    ByteBuffer stats = channel.map(FileChannel.MapMode.READ_ONLY,
+					   statsOffset, 16L * chunks);
+	    chunkMin = new double[chunks];
+	    chunkMax = new double[chunks];
+	    for (int k = 0; k < chunks; k++) {
+		chunkMin[k] = stats.getDouble();
+		chunkMax[k] = stats.getDouble();
+	    }
+	} finally {
+	    // -- the mappings stay valid once the file is closed
+	    file.close();
+	}
+    }
+
+
+    public int getNumPlayers()
+    {
+	return players;
+    }
+
+
+    public int getNumActions(int player)
+    {
+	return actions[player];
+    }
+
+
+    public int[] getNumActions()
+    {
+	return (int[]) actions.clone();
+    }
+
+
+    /**
+     * Returns the structure of the payoffs, as 
+     * Game.getPayoffStructure().
+     */
+    public int getPayoffStructure()
+    {
+	return structure;
+    }
+
+
+    public double getConstantSum()
+    {
+	return constant;
+    }
+
+
+    /**
+     * Returns true if the payoffs were written as integers.
+     */
+    public boolean hasIntegerPayoffs()
+    {
+	return type == LONG_VALUES;
+    }
+
+
+    /**
+     * Returns the value at a position.
+     */
+    private double getValueAt(long position)
+    {
+	MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+	int offset = (int) (position & ((1 << SEGMENT_SHIFT) - 1)) << 3;
+
+	if (type == LONG_VALUES)
+	    return segment.getLong(offset);
+	return segment.getDouble(offset);
+    }
+
+
+    /**
+     * Returns the position of the first player's payoff at an 
+     * outcome.
+     */
+    private long getPosition(int[] outcome)
+    {
+	long position = 0;
+	for (int p = 0; p < players; p++) {
+	    if (outcome[p] < 1 || outcome[p] > actions[p])
+		throw new IndexOutOfBoundsException("Player " + (p + 1) +
+						    " has no action " + 
+						    outcome[p]);
+	    position += (outcome[p] - 1) * strides[p];
+	}
+	return position;
+    }
+
+
+    /**
+     * Returns a player's payoff from the first player's, when only
+     * the first player's are stored.
+     */
+    private double fromStored(double value, int player)
+    {
+	if (player == 0 || stored == players)
+	    return value;
+
+	switch (structure) {
+	case Game.ZERO_SUM:
+	    return -value;
+	case Game.CONSTANT_SUM:
+	    return constant - value;
+	default:
+	    return value;
+	}
+    }
+
+
+    /**
+     * Returns the payoff of a player at an outcome.
+     *
+     * @param outcome the action of each player, counted from 1
+     * @param player the player, counted from 0
+     */
+    public double getPayoff(int[] outcome, int player)
+    {
+	long position = getPosition(outcome);
+	if (stored == players)
+	    position += player * strides[players];
+
+	return fromStored(getValueAt(position), player);
+    }
+
+
+    /**
+     * Returns a player's payoffs for every combination of actions
+     * of some players, the others playing the actions given.  The
+     * tensor has a dimension for each player whose action is 0 in
+     * fixed, in order.
+     *
+     * @param fixed the action of each player, counted from 1, or 0
+     *        for the players whose actions vary
+     * @param player the player whose payoffs should be returned
+     */
+    public DoubleTensor getSlab(int[] fixed, int player)
+    {
+	int free = 0;
+	int[] outcome = new int[players];
+	for (int p = 0; p < players; p++) {
+	    outcome[p] = (fixed[p] == 0 ? 1 : fixed[p]);
+	    if (fixed[p] == 0)
+		free++;
+	}
+
+	int[] dims = new int[free];
+	long[] steps = new long[free];
+	for (int p = 0, d = 0; p < players; p++)
+	    if (fixed[p] == 0) {
+		dims[d] = actions[p];
+		steps[d++] = strides[p];
+	    }
+
+	long position = getPosition(outcome);
+	if (stored == players)
+	    position += player * strides[players];
+
+	DoubleTensor t = new DoubleTensor(dims);
+	int[] indices = new int[free];
+	int size = t.getSize();
+
+	// -- step through the slab in the tensor's order, keeping 
+	// -- the position in the file up to date
+	for (int i = 0; i < size; i++) {
+	    t.setValueAt(fromStored(getValueAt(position), player), i);
+
+	    for (int d = free - 1; d >= 0; d--) {
+		if (++indices[d] < dims[d]) {
+		    position += steps[d];
+		    break;
+		}
+		position -= (dims[d] - 1) * steps[d];
+		indices[d] = 0;
+	    }
+	}
+
+	return t;
+    }
+
+
+    /**
+     * Returns a player's payoffs for each action of the second 
+     * player when the first plays the given action, in a game of 
+     * two players.
+     *
+     * @param action the first player's action
+     * @param player the player whose payoffs should be returned
+     */
+    public double[] getRow(int action, int player)
+    {
+	return getSlab(new int[] {action, 0}, player).getValues();
+    }
+
+
+    /**
+     * Returns a player's payoffs for each action of the first 
+     * player when the second plays the given action, in a game of
+     * two players.
+     *
+     * @param action the second player's action
+     * @param player the player whose payoffs should be returned
+     */
+    public double[] getColumn(int action, int player)
+    {
+	return getSlab(new int[] {0, action}, player).getValues();
+    }
+
+
+    /**
+     * Returns the number of chunks the values are divided into.
+     * Chunk k holds values k*getChunkSize() onwards, in the order
+     * given by the strides.
+     */
+    public int getNumChunks()
+    {
+	return chunkMin.length;
+    }
+
+
+    public long getChunkSize()
+    {
+	return chunkSize;
+    }
+
+
+    /**
+     * Returns the smallest value stored in a chunk, so that chunks
+     * which cannot hold a value of interest can be skipped.
+     */
+    public double getChunkMin(int chunk)
+    {
+	return chunkMin[chunk];
+    }
+
+
+    /**
+     * Returns the largest value stored in a chunk.
+     */
+    public double getChunkMax(int chunk)
+    {
+	return chunkMax[chunk];
+    }
+
+
+
+    // --------------------------------------------------
+    // -- Writing
+
+
+    /**
+     * Writes a game.  The payoffs are found one outcome at a time,
+     * in the order in which they are stored.
+     *
+     * @param out the stream to write to
+     * @param g the game
+     */
+    public static void write(DataOutputStream out, Game g)
+	throws Exception
+    {
+	int n = g.getNumPlayers();
+	int structure = GameOutput.getOutputStructure(g);
+	boolean intFlag = Global.params.getBooleanParameter(Game.intPayoffs.name);
+	boolean normFlag = Global.params.getBooleanParameter(Game.pNormalize.name);
+	int nStored = (structure == Game.GENERAL || normFlag ? n : 1);
+
+	long[] strides = new long[n + 1];
+	strides[n] = 1;
+	long size = nStored;
+	for (int p = n - 1; p >= 0; p--) {
+	    strides[p] = size;
+	    size *= g.getNumActions(p);
+	}
+	long chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	if (chunks > Integer.MAX_VALUE)
+	    throw new Exception("Game is too large for an indexed file");
+
+	// -- the header, but for the offsets which depend on its
+	// -- length
+	ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+	DataOutputStream header = new DataOutputStream(headerBytes);
+	header.writeInt(MAGIC);
+	header.writeInt(VERSION);
+	header.writeInt(n);
+	for (int p = 0; p < n; p++)
+	    header.writeInt(g.getNumActions(p));
+	header.writeInt(nStored);
+	header.writeInt(structure);
+	header.writeDouble(structure == Game.CONSTANT_SUM ? 
+			   GameOutput.getOutputConstantSum(g) : 0);
+	header.writeInt(intFlag ? LONG_VALUES : DOUBLE_VALUES);
+	for (int p = 0; p <= n; p++)
+	    header.writeLong(strides[p]);
+	header.writeLong(CHUNK_SIZE);
+	header.writeLong(chunks);
+	header.flush();
+
+	long dataOffset = (headerBytes.size() + 16 + 7) / 8 * 8;
+	long statsOffset = dataOffset + 8 * size;
+
+	headerBytes.writeTo(out);
+	out.writeLong(dataOffset);
+	out.writeLong(statsOffset);
+	for (long i = headerBytes.size() + 16; i < dataOffset; i++)
+	    out.writeByte(0);
+
+	// -- the values, with the range of each chunk
+	double[] chunkMin = new double[(int) chunks];
+	double[] chunkMax = new double[(int) chunks];
+	long written = 0;
+
+	int[] outcome = new int[n];
+	java.util.Arrays.fill(outcome, 1);
+
+	for (long k = 0; k < size / nStored; k++) {
+	    java.util.Vector payoffs = g.getPayoff(outcome);
+
+	    for (int p = 0; p < nStored; p++, written++) {
+		double value = ((Double) payoffs.get(p)).doubleValue();
+
+		if (intFlag) {
+		    long v = Long.parseLong(g.getOutputPayoff(value));
+		    out.writeLong(v);
+		    value = v;
+		} else {
+		    if (normFlag)
+			value = Double.parseDouble(g.getOutputPayoff(value));
+		    out.writeDouble(value);
+		}
+
+		int chunk = (int) (written / CHUNK_SIZE);
+		if (written % CHUNK_SIZE == 0 || value < chunkMin[chunk])
+		    chunkMin[chunk] = value;
+		if (written % CHUNK_SIZE == 0 || value > chunkMax[chunk])
+		    chunkMax[chunk] = value;
+	    }
+
+	    // -- the next outcome, the last player's action fastest
+	    for (int p = n - 1; p >= 0; p--) {
+		if (++outcome[p] <= g.getNumActions(p))
+		    break;
+		outcome[p] = 1;
+	    }
+	}
+
+	for (int k = 0; k < chunks; k++) {
+	    out.writeDouble(chunkMin[k]);
+	    out.writeDouble(chunkMax[k]);
+	}
+
+	out.flush();
+    }
+}
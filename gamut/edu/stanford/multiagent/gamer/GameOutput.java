@@ -37,8 +37,80 @@ public abstract class GameOutput
      * @throws Exception if unable to write the game
      */
     public abstract void writeGame(PrintWriter out, Game g) throws Exception;
+
+
+    /**
+     * Returns true if the outputter writes bytes rather than
+     * text, in which case writeGame(OutputStream, Game) is used.
+     */
+    public boolean isBinary()
+    {
+	return false;
+    }
+
+
+    /**
+     * Writes the game to the specified stream.  Must be implemented
+     * by outputters which are binary.
+     *
+     * @param out the stream to which the game should be written
+     * @param g the Game
+     *
+     * @throws Exception if unable to write the game
+     */
+    public void writeGame(OutputStream out, Game g) throws Exception
+    {
+	throw new Exception(getClass().getName() + 
+			    " does not write binary output");
+    }
     
     
+    /**
+     * Returns the structure the payoffs of a game have once they
+     * are output: the game's own, except that a zero-sum game is 
+     * only constant-sum once normalized, and neither survives
+     * rounding to integers.
+     *
+     * @param g the Game
+     */
+    public static int getOutputStructure(Game g)
+	throws Exception
+    {
+	int structure = g.getPayoffStructure();
+
+	if (structure == Game.ZERO_SUM || structure == Game.CONSTANT_SUM) {
+	    if (Global.params.getBooleanParameter(Game.intPayoffs.name))
+		return Game.GENERAL;
+	    if (getOutputConstantSum(g) != 0)
+		return Game.CONSTANT_SUM;
+	    return Game.ZERO_SUM;
+	}
+
+	return structure;
+    }
+
+
+    /**
+     * Returns the sum of the two players' payoffs, once output, in 
+     * a zero-sum or constant-sum game.  Normalization maps each 
+     * payoff x to a*x + b, so that a sum of c becomes a*c + 2*b.
+     *
+     * @param g the Game
+     */
+    public static double getOutputConstantSum(Game g)
+	throws Exception
+    {
+	double c = (g.getPayoffStructure() == Game.CONSTANT_SUM ?
+		    g.getConstantSum() : 0);
+
+	if (!Global.params.getBooleanParameter(Game.pNormalize.name))
+	    return c;
+
+	return Double.parseDouble(g.getOutputPayoff(c)) +
+	    Double.parseDouble(g.getOutputPayoff(0));
+    }
+
+
     /**
      * Properly adds and formats comments to the output in the comment
      * format specified.
@@ -41,6 +41,10 @@ public class Global
     public static Random rand;
     public static long randSeed;
 
+    // -- Generate payoffs in parallel, and draw random integers
+    // -- without bias, rather than as in earlier versions
+    public static boolean parallel = false;
+
     // -- Constants used for creating/randomizing objects
     public static final int GAME = 0;
     public static final int GRAPH = 1;
@@ -111,6 +115,9 @@ public class Global
     // inclusively
     //
     public static long randomLong(long low, long high) {
+	if (parallel)
+	    return unbiasedLong(low, high);
+
 	// For some reason, % yields negative numbers sometimes,
 	// so have to remember to take the absolute value
 	long nextlong = Global.rand.nextLong();
@@ -119,12 +126,39 @@ public class Global
 
     // -- same for int
     public static int randomInt(int low, int high) {
+	if (parallel)
+	    return (int) unbiasedLong(low, high);
+
 	// For some reason, % yields negative numbers sometimes,
 	// so have to remember to take the absolute value
 	int next = Global.rand.nextInt();
 	return (low + (Math.abs(next) % (high-low+1)));
     }
 
+    // -- Same as above, but every value equally likely.  Taking
+    // -- the remainder of a random long makes small values
+    // -- likelier, so the draws which would do that are rejected.
+    private static long unbiasedLong(long low, long high) {
+	long range = high - low + 1;
+
+	if (range <= 0) {
+	    // -- more than Long.MAX_VALUE values
+	    long next;
+	    do {
+		next = Global.rand.nextLong();
+	    } while (next < low || next > high);
+	    return next;
+	}
+
+	long bits, val;
+	do {
+	    bits = Global.rand.nextLong() >>> 1;
+	    val = bits % range;
+	} while (bits - val + (range - 1) < 0);
+
+	return low + val;
+    }
+
     // -- Same as above but for double
     public static double randomDouble(double low, double high) {
 	double nd = Global.rand.nextDouble();
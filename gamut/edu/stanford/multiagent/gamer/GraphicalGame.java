@@ -34,7 +34,7 @@ import edu.stanford.multiagent.gamer.graphs.*;
 public abstract class GraphicalGame extends Game
 {
 
-    protected ALGraph graph;
+    protected Graph graph;
 
     // ----------------------------------------------------
 
@@ -48,6 +48,15 @@ public abstract class GraphicalGame extends Game
     }
 
 
+    /**
+     * Returns the graph the game is defined over.
+     */
+    public Graph getGraph()
+    {
+	return graph;
+    }
+
+
     /**
      * Adds an edge from player1 to player2 but leaves the data
      * for the edge set to null.  Use this to add edges if the
@@ -77,6 +86,7 @@ public abstract class GraphicalGame extends Game
 
 	// Add the edge to the graph
 	graph.addEdge(player1, player2);
+	compiled = false;
     }
 
 
@@ -119,6 +129,7 @@ public abstract class GraphicalGame extends Game
 
 	// If all is well, add the edge
 	graph.addEdge(player1, player2, matrix);
+	compiled = false;
     }
 
 
@@ -141,13 +152,7 @@ public abstract class GraphicalGame extends Game
 	// player in the graph corresponds with the number of
 	// dimensions in the matrix.
 	int numEdges = matrix.getNumDimensions() - 1;
-	Iterator edgeIter = graph.getEdges(player);	
-	int count = 0;
-
-	while (edgeIter.hasNext()) {
-	    edgeIter.next();
-	    count++;
-	}
+	int count = graph.getNumNeighbours(player);
      
 	try {
 	    if (count != numEdges)
@@ -159,6 +164,121 @@ public abstract class GraphicalGame extends Game
 
 	// If the Tensor is the right size, set the node data
 	graph.setNodeData(player, matrix);
+	compiled = false;
+    }
+
+
+
+    // -- The payoffs compiled by compilePayoffs for fast lookup.
+    // -- For each player: its neighbours; the array holding its
+    // -- node matrix (or null), the strides of the matrix for the
+    // -- player and each neighbour, and the position the all-ones
+    // -- outcome would have if actions counted from 0; and, for 
+    // -- each edge with a matrix, the neighbour, the array holding
+    // -- the matrix, its stride for the player's action and the
+    // -- same base position.  Neighbours' actions have stride 1.
+    private boolean compiled = false;
+    private int[][] neighbours;
+    private double[][] nodeValues;
+    private int[][] nodeStrides;
+    private int[] nodeBase;
+    private int[][] edgeNeighbours;
+    private double[][][] edgeValues;
+    private int[][] edgeStrides;
+    private int[][] edgeBase;
+
+
+
+    /**
+     * Generates the game, then compiles its payoffs.
+     */
+    public void generate() throws Exception
+    {
+	compiled = false;
+	super.generate();
+	compilePayoffs();
+    }
+
+
+
+    /**
+     * Freezes each player's neighbours and the layout of the
+     * matrices at its node and edges into arrays, so that a 
+     * payoff can be read without walking the graph.  Called after
+     * the game is generated; must be called again if the matrices
+     * are changed after that.
+     */
+    protected void compilePayoffs()
+    {
+	int n = getNumPlayers();
+
+	neighbours = new int[n][];
+	nodeValues = new double[n][];
+	nodeStrides = new int[n][];
+	nodeBase = new int[n];
+	edgeNeighbours = new int[n][];
+	edgeValues = new double[n][][];
+	edgeStrides = new int[n][];
+	edgeBase = new int[n][];
+
+	for (int p = 0; p < n; p++) {
+	    int numNeighbours = graph.getNumNeighbours(p);
+
+	    neighbours[p] = new int[numNeighbours];
+	    for (int k = 0; k < numNeighbours; k++)
+		neighbours[p][k] = graph.getNeighbour(p, k);
+
+	    // The matrix at the node, over the player's action and
+	    // then those of its neighbours, in edge order
+	    DoubleTensor nodeMatrix = (DoubleTensor) graph.getNodeData(p);
+	    if (nodeMatrix != null) {
+		int numEdges = nodeMatrix.getNumDimensions() - 1;
+
+		if (numNeighbours != numEdges)
+		    Global.handleError("Incorrect node matrix in " +
+				       "graphical game: expected " + numEdges +
+				       " edges, found " + numNeighbours);
+
+		int[] strides = new int[numEdges + 1];
+		int base = nodeMatrix.getOffset();
+		int stride = 1;
+		for (int k = numEdges; k >= 0; k--) {
+		    strides[k] = stride;
+		    base -= stride;
+		    stride *= nodeMatrix.getSizeOfDim(k);
+		}
+
+		nodeValues[p] = nodeMatrix.getValues();
+		nodeStrides[p] = strides;
+		nodeBase[p] = base;
+	    }
+
+	    // The two player matrices on the edges
+	    int numEdgeMatrices = 0;
+	    for (int k = 0; k < numNeighbours; k++)
+		if (graph.getEdgeDataAt(p, k) != null)
+		    numEdgeMatrices++;
+
+	    edgeNeighbours[p] = new int[numEdgeMatrices];
+	    edgeValues[p] = new double[numEdgeMatrices][];
+	    edgeStrides[p] = new int[numEdgeMatrices];
+	    edgeBase[p] = new int[numEdgeMatrices];
+
+	    for (int k = 0, e = 0; k < numNeighbours; k++) {
+		DoubleTensor matrix = (DoubleTensor) graph.getEdgeDataAt(p, k);
+		if (matrix == null)
+		    continue;
+
+		int stride = matrix.getSizeOfDim(1);
+		edgeNeighbours[p][e] = neighbours[p][k];
+		edgeValues[p][e] = matrix.getValues();
+		edgeStrides[p][e] = stride;
+		edgeBase[p][e] = matrix.getOffset() - stride - 1;
+		e++;
+	    }
+	}
+
+	compiled = true;
     }
 
 
@@ -179,78 +299,212 @@ public abstract class GraphicalGame extends Game
      */
     public double getPayoff(int[] outcome, int player)
     {
-	Iterator edgeIter;
+	if (!compiled)
+	    compilePayoffs();
+
 	double payoff = 0;
 
-	// First see if there is matrix data stored at the
-	// node for the player, in which case calculate the
-	// payoff for the player based on the actions of all
-	// connected players and this payoff matrix
-	if (graph.getNodeData(player) != null) {
+	double[] values = nodeValues[player];
+	if (values != null) {
+	    int[] strides = nodeStrides[player];
+	    int[] nbrs = neighbours[player];
 
-	    DoubleTensor matrix = (DoubleTensor) graph.getNodeData(player);
-	    int numEdges = matrix.getNumDimensions() - 1;
+	    int index = nodeBase[player] + outcome[player] * strides[0];
+	    for (int k = 0; k < nbrs.length; k++)
+		index += outcome[nbrs[k]] * strides[k+1];
 
-	    // Iterate through the edges getting the actions of
-	    // each player involved in the matrix game.
-	    edgeIter = graph.getEdges(player);
+	    payoff += values[index];
+	}
 
-	    int[] nodeGameOutcome = new int[numEdges + 1];
-	    nodeGameOutcome[0] = outcome[player];
-	    int count = 1;
+	int[] nbrs = edgeNeighbours[player];
+	double[][] matrices = edgeValues[player];
+	int[] strides = edgeStrides[player];
+	int[] bases = edgeBase[player];
+	int action = outcome[player];
 
-	    try {
-		while (edgeIter.hasNext()) {
-		    Edge e = (Edge) edgeIter.next();
+	for (int e = 0; e < nbrs.length; e++)
+	    payoff += matrices[e][bases[e] + action * strides[e] + 
+				  outcome[nbrs[e]]];
 
-		    if (count > numEdges) {
-			throw new Exception("Incorrect node matrix in " +
-					    "graphical game: too many edges");
-		    
-		    }
+	return payoff;
+    }
 
-		    int otherPlayer = e.getDest();
-		    
-		    nodeGameOutcome[count] = outcome[otherPlayer];
-		    count++;
-		}
 
-		if (count != numEdges + 1) {
-		    throw new Exception("Incorrect node matrix in " +
-					"graphical game: not enough edges");
+
+    /**
+     * Returns the payoffs of all players at once, reading the 
+     * compiled matrices without allocating anything but the 
+     * result.
+     *
+     * @param outcome an array containing the actions chosen by
+     * each player
+     */
+    public Vector getPayoff(int[] outcome)
+    {
+	if (!compiled)
+	    compilePayoffs();
+
+	int n = getNumPlayers();
+	Vector payoffs = new Vector(n);
+
+	for (int p = 0; p < n; p++)
+	    payoffs.add(new Double(getPayoff(outcome, p)));
+
+	return payoffs;
+    }
+
+
+    /**
+     * Expands a player's payoffs into a dense tensor over the 
+     * actions of all players, as a MatrixGame would hold them.
+     * See getPayoffTensors.
+     *
+     * @param player the player whose payoffs should be returned
+     */
+    public DoubleTensor getPayoffTensor(int player)
+    {
+	return expandPayoffs(new int[] {player})[0];
+    }
+
+
+
+    /**
+     * Expands the payoffs of every player into dense tensors over
+     * the actions of all players.  Rather than looking up each 
+     * payoff, the node matrix and then each edge matrix of a 
+     * player is added along its axes to whole rows of the tensor
+     * at a time, in the order getPayoff adds them, so the values 
+     * are exactly those getPayoff returns.  Players and blocks of
+     * rows are expanded in parallel.
+     */
+    public DoubleTensor[] getPayoffTensors()
+    {
+	int[] players = new int[getNumPlayers()];
+	for (int p = 0; p < players.length; p++)
+	    players[p] = p;
+
+	return expandPayoffs(players);
+    }
+
+
+
+    private DoubleTensor[] expandPayoffs(final int[] players)
+    {
+	if (!compiled)
+	    compilePayoffs();
+
+	final int[] dims = getNumActions();
+
+	long size = 1;
+	for (int i = 0; i < dims.length; i++)
+	    size *= dims[i];
+	if (size > Integer.MAX_VALUE)
+	    Global.handleError("Game is too large to expand");
+
+	final DoubleTensor[] tensors = new DoubleTensor[players.length];
+	for (int i = 0; i < players.length; i++)
+	    tensors[i] = new DoubleTensor(dims);
+
+	// -- rows run along the last player's actions
+	final int rowLength = dims[dims.length - 1];
+	final int nRows = (int) size / rowLength;
+	final int rowsPerBlock = Math.max(1, Parallel.BLOCK_SIZE / rowLength);
+	final int blocksPerPlayer = (nRows + rowsPerBlock - 1) / rowsPerBlock;
+
+	Parallel.run(players.length * blocksPerPlayer, new Parallel.Body() {
+		public void run(int block) {
+		    int i = block / blocksPerPlayer;
+		    int firstRow = (block % blocksPerPlayer) * rowsPerBlock;
+		    expandRows(players[i], tensors[i].getValues(), firstRow,
+			       Math.min(firstRow + rowsPerBlock, nRows));
 		}
+	    });
+
+	return tensors;
+    }
 
-	    } catch (Exception e) {
-		Global.handleError(e, "Error getting graphical payoff");
-	    }
 
-	    // Finally get the payoff for the player based on
-	    // the his actions and the actions of the others
-	    payoff += matrix.getValue(nodeGameOutcome);
+
+    /**
+     * Adds a player's matrices to rows firstRow to lastRow-1 of 
+     * its dense payoff array.  Each matrix is a term whose 
+     * position moves by a fixed stride along each player's 
+     * action (0 for players it does not involve), so its position
+     * at the start of each row is kept up to date as the rows go
+     * by, and the row itself is one strided pass.
+     */
+    private void expandRows(int player, double[] out, int firstRow, 
+			    int lastRow)
+    {
+	int[] dims = getNumActions();
+	int n = dims.length;
+	int last = n - 1;
+	int rowLength = dims[last];
+
+	// -- the terms, in the order getPayoff adds them
+	int nTerms = edgeNeighbours[player].length + 
+	    (nodeValues[player] != null ? 1 : 0);
+	double[][] values = new double[nTerms][];
+	int[][] strides = new int[nTerms][n];
+	int[] index = new int[nTerms];
+
+	int t = 0;
+	if (nodeValues[player] != null) {
+	    values[t] = nodeValues[player];
+	    strides[t][player] += nodeStrides[player][0];
+	    for (int k = 0; k < neighbours[player].length; k++)
+		strides[t][neighbours[player][k]] += nodeStrides[player][k+1];
+	    index[t] = nodeBase[player];
+	    t++;
+	}
+	for (int e = 0; e < edgeNeighbours[player].length; e++, t++) {
+	    values[t] = edgeValues[player][e];
+	    strides[t][player] += edgeStrides[player][e];
+	    strides[t][edgeNeighbours[player][e]] += 1;
+	    index[t] = edgeBase[player][e];
 	}
 
-		
-	int[] miniGameOutcome = new int[2];
-	miniGameOutcome[0] = outcome[player];
-	edgeIter = graph.getEdges(player);
-
-	while (edgeIter.hasNext()) {
-	    Edge e = (Edge) edgeIter.next();
-
-	    // See if there is matrix data stored at the edge
-	    // and if so add the payoff from this matrix
-	    if (e.getData() != null) {
-		DoubleTensor matrix = (DoubleTensor) e.getData();
-		int otherPlayer = e.getDest();
-		miniGameOutcome[1] = outcome[otherPlayer];
-		payoff += matrix.getValue(miniGameOutcome);
-	    }
+	// -- the actions at the start of firstRow, and the position
+	// -- of each term there
+	int[] actions = new int[n];
+	int row = firstRow;
+	for (int i = last - 1; i >= 0; i--) {
+	    actions[i] = row % dims[i] + 1;
+	    row /= dims[i];
 	}
+	actions[last] = 1;
 
-	return payoff;
+	for (t = 0; t < nTerms; t++)
+	    for (int i = 0; i < n; i++)
+		index[t] += actions[i] * strides[t][i];
+
+	for (row = firstRow; row < lastRow; row++) {
+	    int start = row * rowLength;
+
+	    for (t = 0; t < nTerms; t++) {
+		double[] v = values[t];
+		int stride = strides[t][last];
+		for (int j = 0, k = index[t]; j < rowLength; j++, k += stride)
+		    out[start + j] += v[k];
+	    }
+
+	    // -- step to the next row
+	    for (int i = last - 1; i >= 0; i--) {
+		if (actions[i] < dims[i]) {
+		    actions[i]++;
+		    for (t = 0; t < nTerms; t++)
+			index[t] += strides[t][i];
+		    break;
+		}
+		for (t = 0; t < nTerms; t++)
+		    index[t] -= (dims[i] - 1) * strides[t][i];
+		actions[i] = 1;
+	    }
+	}
     }
 
 
+
     /** 
      * Creates and initializes a graph of the correct type.  Must
      * be implemented by each subclass and called in the initialize
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+import java.util.*;
+import edu.stanford.multiagent.gamer.graphs.*;
+
+/**
+ * Reads and writes graphical games, including polymatrix games, 
+ * in a compact form which stores the graph and the matrices at
+ * its nodes and edges, rather than a payoff for every outcome.  
+ * Its size grows with the structure of the game instead of 
+ * exponentially with the number of players.  Payoffs are stored
+ * as generated, without normalization or rounding.
+ *
+ * The binary form is written with DataOutputStream, so all 
+ * numbers are big-endian:
+ * <pre>
+ *   int      magic 0x474D4747 ("GMGG")
+ *   int      version, currently 1
+ *   int      n, the number of players
+ *   int[n]   the number of actions of each player
+ *   the graph, as written by Graph.writeBinary: a header of five
+ *            ints, n+1 offsets and the neighbours of every node
+ *   for each player p:
+ *     byte   1 if p has a node matrix, otherwise 0
+ *     double its values, in DoubleTensor order, over p's action 
+ *            and then its neighbours' actions in graph order
+ *   for each edge p-&gt;q, in graph order:
+ *     byte   1 if the edge has a matrix, otherwise 0
+ *     double its values, row by row over p's action and then q's
+ * </pre>
+ *
+ * The text form holds the same things, one per line.  Lines 
+ * starting with # are comments.
+ * <pre>
+ *   players n
+ *   actions a_0 ... a_n-1
+ *   graph sym_edges reflex_ok      (each true or false)
+ *   neighbours p: q_1 q_2 ...      (one line for each player)
+ *   node p: values                 (players with node matrices)
+ *   edge p q: values               (edges with matrices)
+ * </pre>
+ * The node and edge lines come in the same order as in the binary
+ * form.  Values are written as Java prints doubles, so they are 
+ * read back exactly.
+ */
+
+public class GraphicalGameFormat
+{
+    public static final int BINARY_MAGIC = 0x474D4747;
+    public static final int BINARY_VERSION = 1;
+
+
+    /**
+     * Checks that a game can be written in this form.
+     */
+    private static void checkWritable(GraphicalGame g)
+	throws Exception
+    {
+	if (Global.params != null &&
+	    (Global.params.getBooleanParameter(Game.pNormalize.name) ||
+	     Global.params.getBooleanParameter(Game.intPayoffs.name)))
+	    throw new Exception("Graphical game output stores payoffs " +
+				"as generated, and cannot be used with " +
+				Game.pNormalize.name + " or " + 
+				Game.intPayoffs.name);
+    }
+
+
+    /**
+     * Returns the number of values in a tensor.
+     */
+    private static int size(DoubleTensor t)
+    {
+	int size = 1;
+	for (int i = 0; i < t.getNumDimensions(); i++)
+	    size *= t.getSizeOfDim(i);
+	return size;
+    }
+
+
+    /**
+     * Writes a game in binary form.
+     *
+     * @param out the stream to write to
+     * @param g the game
+     */
+    public static void writeBinary(DataOutputStream out, GraphicalGame g)
+	throws Exception
+    {
+	checkWritable(g);
+
+	Graph graph = g.getGraph();
+	int n = g.getNumPlayers();
+
+	out.writeInt(BINARY_MAGIC);
+	out.writeInt(BINARY_VERSION);
+	out.writeInt(n);
+	for (int p = 0; p < n; p++)
+	    out.writeInt(g.getNumActions(p));
+
+	graph.writeBinary(out);
+
+	for (int p = 0; p < n; p++)
+	    writeBinary(out, (DoubleTensor) graph.getNodeData(p));
+
+	for (int p = 0; p < n; p++)
+	    for (int k = 0; k < graph.getNumNeighbours(p); k++)
+		writeBinary(out, (DoubleTensor) graph.getEdgeDataAt(p, k));
+    }
+
+
+    private static void writeBinary(DataOutputStream out, DoubleTensor t)
+	throws IOException
+    {
+	if (t == null) {
+	    out.writeByte(0);
+	    return;
+	}
+
+	out.writeByte(1);
+
+	double[] values = t.getValues();
+	int end = t.getOffset() + size(t);
+	for (int i = t.getOffset(); i < end; i++)
+	    out.writeDouble(values[i]);
+    }
+
+
+    /**
+     * Writes a game in text form.
+     *
+     * @param out the writer to write to
+     * @param g the game
+     */
+    public static void writeText(PrintWriter out, GraphicalGame g)
+	throws Exception
+    {
+	checkWritable(g);
+
+	Graph graph = g.getGraph();
+	int n = g.getNumPlayers();
+
+	out.println("players " + n);
+
+	out.print("actions");
+	for (int p = 0; p < n; p++)
+	    out.print(" " + g.getNumActions(p));
+	out.println();
+
+	out.println("graph " + graph.hasSymEdges() + " " + 
+		    graph.reflexEdgesOk());
+
+	for (int p = 0; p < n; p++) {
+	    out.print("neighbours " + p + ":");
+	    for (int k = 0; k < graph.getNumNeighbours(p); k++)
+		out.print(" " + graph.getNeighbour(p, k));
+	    out.println();
+	}
+
+	for (int p = 0; p < n; p++) {
+	    DoubleTensor t = (DoubleTensor) graph.getNodeData(p);
+	    if (t != null)
+		writeText(out, "node " + p, t);
+	}
+
+	for (int p = 0; p < n; p++)
+	    for (int k = 0; k < graph.getNumNeighbours(p); k++) {
+		DoubleTensor t = (DoubleTensor) graph.getEdgeDataAt(p, k);
+		if (t != null)
+		    writeText(out, "edge " + p + " " + 
+			      graph.getNeighbour(p, k), t);
+	    }
+    }
+
+
+    private static void writeText(PrintWriter out, String label, 
+				  DoubleTensor t)
+    {
+	StringBuffer buff = new StringBuffer(label);
+	buff.append(":");
+
+	double[] values = t.getValues();
+	int end = t.getOffset() + size(t);
+	for (int i = t.getOffset(); i < end; i++)
+	    buff.append(" ").append(values[i]);
+
+	out.println(buff.toString());
+    }
+
+
+
+    // ---------------------------------------------------
+    // -- Reading
+
+
+    /**
+     * Reads a game written in either form from a file into g, 
+     * setting its players, actions and graph.
+     *
+     * @param fileName the file to read
+     * @param g the game to fill in
+     */
+    public static void read(String fileName, FileGraphicalGame g)
+	throws Exception
+    {
+	InputStream in = new BufferedInputStream(new FileInputStream(fileName), 1 << 16);
+
+	try {
+	    in.mark(4);
+	    DataInputStream data = new DataInputStream(in);
+	    boolean binary = data.readInt() == BINARY_MAGIC;
+	    in.reset();
+
+	    if (binary)
+		readBinary(data, g);
+	    else
+		readText(new BufferedReader(new InputStreamReader(in)), g);
+	} catch (EOFException e) {
+	    throw new IOException(fileName + " is truncated");
+	} finally {
+	    in.close();
+	}
+    }
+
+
+    private static void readBinary(DataInputStream in, FileGraphicalGame g)
+	throws Exception
+    {
+	in.readInt();
+	int version = in.readInt();
+	if (version != BINARY_VERSION)
+	    throw new IOException("Unsupported graphical game version " +
+				  version);
+
+	int n = in.readInt();
+	if (n < 1)
+	    throw new IOException("Graphical game is corrupt");
+
+	int[] actions = new int[n];
+	for (int p = 0; p < n; p++)
+	    actions[p] = in.readInt();
+
+	FileGraph graph = new FileGraph();
+	graph.readBinary(in);
+	g.setStructure(actions, graph);
+
+	for (int p = 0; p < n; p++)
+	    if (in.readByte() != 0) {
+		double[] values = g.addNodeMatrix(p);
+		for (int i = 0; i < values.length; i++)
+		    values[i] = in.readDouble();
+	    }
+
+	double[] edgeValues = g.getEdgeValues();
+	for (int p = 0; p < n; p++)
+	    for (int k = 0; k < graph.getNumNeighbours(p); k++)
+		if (in.readByte() != 0) {
+		    int pos = g.addEdgeMatrix(p, k);
+		    int size = actions[p] * actions[graph.getNeighbour(p, k)];
+		    for (int i = 0; i < size; i++)
+			edgeValues[pos + i] = in.readDouble();
+		}
+    }
+
+
+    private static void readText(BufferedReader in, FileGraphicalGame g)
+	throws Exception
+    {
+	int n = -1;
+	int[] actions = null;
+	boolean symEdges = false, reflexOk = false;
+	Vector neighbours = new Vector();
+	FileGraph graph = null;
+	String line;
+
+	while ((line = in.readLine()) != null) {
+	    line = line.trim();
+	    if (line.length() == 0 || line.startsWith("#"))
+		continue;
+
+	    String[] parts = line.split(":", 2);
+	    StringTokenizer head = new StringTokenizer(parts[0]);
+	    String key = head.nextToken();
+
+	    if (key.equals("players")) {
+		n = Integer.parseInt(head.nextToken());
+	    } else if (key.equals("actions")) {
+		actions = new int[n];
+		for (int p = 0; p < n; p++)
+		    actions[p] = Integer.parseInt(head.nextToken());
+	    } else if (key.equals("graph")) {
+		symEdges = Boolean.valueOf(head.nextToken()).booleanValue();
+		reflexOk = Boolean.valueOf(head.nextToken()).booleanValue();
+	    } else if (key.equals("neighbours")) {
+		neighbours.add(parts[1]);
+	    } else if (key.equals("node") || key.equals("edge")) {
+		// -- the graph is complete once the matrices start
+		if (graph == null) {
+		    graph = makeGraph(neighbours, symEdges, reflexOk, n);
+		    g.setStructure(actions, graph);
+		}
+
+		int p = Integer.parseInt(head.nextToken());
+
+		if (key.equals("node")) {
+		    double[] values = g.addNodeMatrix(p);
+		    readValues(parts[1], values, 0, values.length, line);
+		} else {
+		    int q = Integer.parseInt(head.nextToken());
+		    int pos = g.addEdgeMatrix(p, neighbourIndex(graph, p, q));
+		    readValues(parts[1], g.getEdgeValues(), pos,
+			       actions[p] * actions[q], line);
+		}
+	    } else
+		throw new IOException("Unknown line: " + line);
+	}
+
+	if (graph == null)
+	    g.setStructure(actions, 
+			   makeGraph(neighbours, symEdges, reflexOk, n));
+    }
+
+
+    private static FileGraph makeGraph(Vector neighbours, boolean symEdges,
+				       boolean reflexOk, int n)
+	throws Exception
+    {
+	if (n < 1 || neighbours.size() != n)
+	    throw new IOException("Graphical game is missing its graph");
+
+	int[] offsets = new int[n + 1];
+	Vector targets = new Vector();
+	for (int p = 0; p < n; p++) {
+	    StringTokenizer st = new StringTokenizer((String) neighbours.get(p));
+	    while (st.hasMoreTokens())
+		targets.add(new Integer(st.nextToken()));
+	    offsets[p + 1] = targets.size();
+	}
+
+	int[] t = new int[targets.size()];
+	for (int j = 0; j < t.length; j++)
+	    t[j] = ((Integer) targets.get(j)).intValue();
+
+	FileGraph graph = new FileGraph();
+	graph.setNeighbours(offsets, t, symEdges, reflexOk);
+	return graph;
+    }
+
+
+    private static int neighbourIndex(Graph graph, int p, int q)
+	throws IOException
+    {
+	for (int k = 0; k < graph.getNumNeighbours(p); k++)
+	    if (graph.getNeighbour(p, k) == q)
+		return k;
+
+	throw new IOException("No edge from " + p + " to " + q);
+    }
+
+
+    private static void readValues(String s, double[] values, int pos,
+				   int count, String line)
+	throws IOException
+    {
+	StringTokenizer st = new StringTokenizer(s);
+	if (st.countTokens() != count)
+	    throw new IOException("Wrong number of values: " + line);
+
+	for (int i = 0; i < count; i++)
+	    values[pos + i] = Double.parseDouble(st.nextToken());
+    }
+}
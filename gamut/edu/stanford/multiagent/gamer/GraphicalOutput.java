@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+
+/**
+ * Writes a graphical or polymatrix game in its compact text form,
+ * with the matrix at each node and edge of the graph rather than
+ * a payoff for every outcome.  See GraphicalGameFormat; the game
+ * can be read back with FileGraphicalGame.
+ */
+
+public class GraphicalOutput extends GameOutput
+{
+
+    public void writeGame(PrintWriter out, Game g)
+	throws Exception
+    {
+	if (!(g instanceof GraphicalGame))
+	    throw new Exception("GraphicalOutput can only write graphical " +
+				"and polymatrix games");
+
+	out.println(commentString(GAMER_STRING, "# "));
+
+	out.println(commentString(g.getDescription(), "# "));
+
+	GraphicalGameFormat.writeText(out, (GraphicalGame) g);
+	out.flush();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+
+/**
+ * Writes the game as an indexed binary file, which GameFile can
+ * map into memory and query without reading it all.  See GameFile
+ * for the format.
+ */
+
+public class IndexedOutput extends GameOutput
+{
+
+    public boolean isBinary()
+    {
+	return true;
+    }
+
+
+    public void writeGame(OutputStream out, Game g)
+	throws Exception
+    {
+	GameFile.write(new DataOutputStream(out), g);
+    }
+
+
+    /**
+     * The game can only be written as bytes.
+     */
+    public void writeGame(PrintWriter out, Game g)
+	throws Exception
+    {
+	throw new Exception("IndexedOutput must write to a stream");
+    }
+}
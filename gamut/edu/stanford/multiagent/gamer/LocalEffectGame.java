@@ -29,7 +29,15 @@ import edu.stanford.multiagent.gamer.functions.*;
 public abstract class LocalEffectGame extends Game
 {
 
-    protected ALGraph graph;
+    protected Graph graph;
+
+    // -- the node and edge functions tabulated at every possible
+    // -- number of players choosing a node
+    private double[][] nodeCost;
+    private double[][][] edgeCost;
+
+    // -- the game as an action graph, made from the tables
+    private ActionGraph actionGraph;
 
     // -------------------------------------------------
 
@@ -44,6 +52,15 @@ public abstract class LocalEffectGame extends Game
     }
 
 
+    /**
+     * Returns the graph the game is defined over.
+     */
+    public Graph getGraph()
+    {
+	return graph;
+    }
+
+
     /**
      * Sets the number of players based on the command line parameter.
      * Separate initializers should be used for setting up the necessary 
@@ -81,13 +98,25 @@ public abstract class LocalEffectGame extends Game
 	    D[node]++;
 	}
 
-	// Remember that action indices start at 1
-	int chosenNode = outcome[player] - 1;
+	if (nodeCost == null)
+	    tabulateFunctions();
+
+	// The payoff is the negation of the cost, and remember 
+	// that action indices start at 1
+	return -getCost(D, outcome[player] - 1);
+    }
+
+
+    /**
+     * Returns the cost of choosing a node given the number of
+     * players choosing each node.
+     */
+    private double getCost(int[] D, int chosenNode)
+    {
 	double cost = 0;
        
 	// First add the node function
-	Function nodeFunc = (Function) graph.getNodeData(chosenNode);
-	cost += nodeFunc.eval(D[chosenNode]);
+	cost += nodeCost[chosenNode][D[chosenNode]];
 
 	// Now add the edge functions for all edges 
 	// coming into the chosen node -- Note that because of
@@ -95,21 +124,166 @@ public abstract class LocalEffectGame extends Game
 	// edge (a, b) are the effects of node b on node a, which
 	// is the opposite of how the edge functions are defined
 	// in the literature.
-	Iterator edgeIter = graph.getEdges(chosenNode);
+	int numNeighbours = graph.getNumNeighbours(chosenNode);
+	double[][] edgeRow = edgeCost[chosenNode];
 
 	try {
-	    while (edgeIter.hasNext()) {
-		Edge e = (Edge) edgeIter.next();
-		Function edgeFunc = (Function) e.getData();
-		int neighborNode = e.getDest();
-		cost += edgeFunc.eval(D[neighborNode]);
+	    for (int k = 0; k < numNeighbours; k++) {
+		int neighborNode = graph.getNeighbour(chosenNode, k);
+		cost += edgeRow[k][D[neighborNode]];
 	    }
 	} catch (Exception e) {
 	    Global.handleError(e, "Error getting LEG payoff");
 	}
 
-	// The payoff is the negation of the cost 
-	return(-cost);
+	return cost;
+    }
+
+
+
+    /**
+     * Returns the payoffs of all players at once, counting the
+     * players at each node only once.
+     */
+    public Vector getPayoff(int[] outcome)
+    {
+	int players = getNumPlayers();
+	int[] D = new int[getNumActions(0)];
+	for (int i = 0; i < players; i++)
+	    D[outcome[i] - 1]++;
+
+	if (nodeCost == null)
+	    tabulateFunctions();
+
+	Vector payoffVector = new Vector(players);
+	for (int i = 0; i < players; i++)
+	    payoffVector.add(new Double(-getCost(D, outcome[i] - 1)));
+
+	return payoffVector;
+    }
+
+
+
+    /**
+     * Returns the game as an action graph.  All players share the
+     * action nodes, which are the nodes of the graph, and the payoff
+     * at each is a sum of the negated node and edge tables.
+     */
+    public ActionGraph getActionGraph()
+    {
+	if (nodeCost == null)
+	    tabulateFunctions();
+
+	if (actionGraph != null)
+	    return actionGraph;
+
+	int players = getNumPlayers();
+	int numNodes = graph.getNNodes();
+
+	int[] nodes = new int[numNodes];
+	for (int i = 0; i < numNodes; i++)
+	    nodes[i] = i;
+
+	int[][] actionSets = new int[players][];
+	for (int p = 0; p < players; p++)
+	    actionSets[p] = nodes;
+
+	ActionGraph agg = new ActionGraph(actionSets, numNodes, 0);
+
+	for (int i = 0; i < numNodes; i++) {
+	    int numNeighbours = graph.getNumNeighbours(i);
+
+	    // -- the node itself, then its distinct neighbours; a
+	    // -- reflexive edge reads the node's own count
+	    int[] nbrs = new int[numNeighbours + 1];
+	    int[] terms = new int[numNeighbours + 1];
+	    double[][] tables = new double[numNeighbours + 1][];
+	    int numNbrs = 1;
+
+	    nbrs[0] = i;
+	    terms[0] = 0;
+	    tables[0] = negate(nodeCost[i]);
+
+	    for (int k = 0; k < numNeighbours; k++) {
+		int node = graph.getNeighbour(i, k);
+
+		int pos = 0;
+		while (pos < numNbrs && nbrs[pos] != node)
+		    pos++;
+		if (pos == numNbrs)
+		    nbrs[numNbrs++] = node;
+
+		terms[k + 1] = pos;
+		tables[k + 1] = negate(edgeCost[i][k]);
+	    }
+
+	    int[] distinct = new int[numNbrs];
+	    System.arraycopy(nbrs, 0, distinct, 0, numNbrs);
+	    agg.setPayoff(i, distinct, terms, tables);
+	}
+
+	actionGraph = agg;
+	return actionGraph;
+    }
+
+
+    private static double[] negate(double[] table)
+    {
+	double[] neg = new double[table.length];
+	for (int i = 0; i < table.length; i++)
+	    neg[i] = -table[i];
+
+	return neg;
+    }
+
+
+
+    /**
+     * Evaluates the node and edge functions at every possible
+     * number of players, from 0 to the number of players, so that
+     * payoffs can be found by table lookup.  A function shared by
+     * several edges is only tabulated once.  Should be called by
+     * subclasses once the functions have been stored in the graph;
+     * if it is not, getPayoff() calls it on first use.
+     */
+    protected void tabulateFunctions()
+    {
+	int players = getNumPlayers();
+	int numNodes = graph.getNNodes();
+	HashMap tables = new HashMap();
+
+	double[][] nc = new double[numNodes][];
+	double[][][] ec = new double[numNodes][][];
+
+	for (int i = 0; i < numNodes; i++) {
+	    nc[i] = tabulate((Function) graph.getNodeData(i), players, tables);
+
+	    int numNeighbours = graph.getNumNeighbours(i);
+	    ec[i] = new double[numNeighbours][];
+	    for (int k = 0; k < numNeighbours; k++)
+		ec[i][k] = tabulate((Function) graph.getEdgeDataAt(i, k),
+				    players, tables);
+	}
+
+	edgeCost = ec;
+	nodeCost = nc;
+	actionGraph = null;
+    }
+
+
+    /**
+     * Returns the table for a function, reusing the one in tables 
+     * if the function has been tabulated already.
+     */
+    private static double[] tabulate(Function f, int players, HashMap tables)
+    {
+	double[] t = (double[]) tables.get(f);
+	if (t == null) {
+	    t = f.tabulate(0, players);
+	    tables.put(f, t);
+	}
+
+	return t;
     }
 
 
@@ -40,6 +40,10 @@ public class Main
     private static Parameters.ParamInfo pFilename;
     private static Parameters.ParamInfo pRandomize;
     private static Parameters.ParamInfo pOut;
+    private static Parameters.ParamInfo pGraphOut;
+    private static Parameters.ParamInfo pRestrict;
+    private static Parameters.ParamInfo pSample;
+    private static Parameters.ParamInfo pStratify;
     private static Parameters.ParamInfo pHelpGraph;
     private static Parameters.ParamInfo pHelpFunc;
     private static Parameters.ParamInfo pHelpGame;
@@ -56,6 +60,14 @@ public class Main
 
 	pOut = new Parameters.ParamInfo("output", Parameters.ParamInfo.STRING_PARAM, null, null, "the name of the outputter to use. (Default: SimpleOutput)",false,"SimpleOutput");
 
+	pGraphOut = new Parameters.ParamInfo("graph_out", Parameters.ParamInfo.STRING_PARAM, null, null, "for graphical games and LEGs, also save the graph to this file so it can be reused with -graph FileGraph -graph_params [ -file <name> ]");
+
+	pRestrict = new Parameters.ParamInfo("restrict", Parameters.ParamInfo.STRING_PARAM, null, null, "output only part of the game, e.g. \"1:2-4 2:1,3 3=2\" keeps actions 2 to 4 of player 1 and actions 1 and 3 of player 2, and fixes player 3 at action 2.  Must be in quotes.");
+
+	pSample = new Parameters.ParamInfo("sample", Parameters.ParamInfo.LONG_PARAM, new Long(1), new Long(Long.MAX_VALUE), "instead of the whole game, write this many outcomes drawn at random with their payoffs, for games too large to write out.  Each outcome is written as by SimpleOutput.");
+
+	pStratify = new Parameters.ParamInfo("stratify", Parameters.ParamInfo.BOOLEAN_PARAM, null, null, "with -sample, draw each action of each player equally often.", false, Boolean.FALSE);
+
 	pHelpGame = new Parameters.ParamInfo("helpgame", Parameters.ParamInfo.STRING_PARAM, null, null, "Print help info for a game.");
 
 	pHelpGraph = new Parameters.ParamInfo("helpgraph", Parameters.ParamInfo.STRING_PARAM, null, null, "Print help info for a graph.");
@@ -64,8 +76,9 @@ public class Main
 
 
 	globalParamInfo = new Parameters.ParamInfo[] 
-	    {pSeed, pGame, pFilename, pRandomize, pOut, Game.intPayoffs, 
-	     Game.intMult, Game.pNormalize, Game.pMinPayoff, Game.pMaxPayoff,
+	    {pSeed, pGame, pFilename, pRandomize, pOut, pGraphOut, pRestrict,
+	     pSample, pStratify, Game.intPayoffs, Game.intMult, 
+	     Game.pNormalize, Game.pMinPayoff, Game.pMaxPayoff, Game.pParallel,
 	    pHelpGame, pHelpGraph, pHelpFunc};
 
 	Global.params=new Parameters(globalParamInfo);
@@ -165,6 +178,7 @@ public class Main
 			    System.currentTimeMillis() );
 
 	Global.rand=new Random(Global.randSeed);
+	Global.parallel = Global.params.getBooleanParameter(Game.pParallel.name);
 
 	System.err.println("GAMUT RANDOM SEED: " + Global.randSeed);
 
@@ -292,13 +306,71 @@ public class Main
 	    Global.handleError(e, "Failed to generate an instance");
 	} 
 
+	// -- save the graph, if asked to
+	if (Global.params.isParamSet(pGraphOut.name)) {
+	    Graph graph = null;
+	    if (g instanceof GraphicalGame)
+		graph = ((GraphicalGame) g).getGraph();
+	    else if (g instanceof LocalEffectGame)
+		graph = ((LocalEffectGame) g).getGraph();
+
+	    if (graph == null)
+		Global.handleError(gName + " is not defined over a graph, " +
+				   "cannot use " + pGraphOut.name);
+
+	    try {
+		graph.writeBinary(Global.params.getStringParameter(pGraphOut.name));
+	    } catch (Exception e) {
+		Global.handleError(e, "Failed to save the graph");
+	    }
+	}
+
+	// -- keep only part of the game, if asked to
+	if (Global.params.isParamSet(pRestrict.name)) {
+	    try {
+		RestrictedGame rg = new RestrictedGame(g);
+		rg.restrict(Global.params.getStringParameter(pRestrict.name));
+		g = rg;
+	    } catch (Exception e) {
+		Global.handleError(e, "Failed to restrict the game");
+	    }
+	}
+
+	// -- write only a sample of the outcomes, if asked to
+	if (Global.params.isParamSet(pSample.name)) {
+	    if (Global.params.getBooleanParameter(Game.pNormalize.name))
+		Global.handleError("Cannot normalize a sample of outcomes, " +
+				   "since that needs the whole game");
+	    if (Global.params.setByUser(pOut.name))
+		Global.handleError("Cannot use " + pOut.name + " with " +
+				   pSample.name);
+
+	    try {
+		OutcomeSample sample = new OutcomeSample(g, 
+		    Global.params.getLongParameter(pSample.name),
+		    Global.params.getBooleanParameter(pStratify.name));
+		PrintWriter sampleOut = new PrintWriter(new BufferedWriter(new FileWriter(sOutFile), 1 << 16));
+		sample.write(sampleOut);
+		sampleOut.close();
+	    } catch (Exception e) {
+		Global.handleError(e, "Sampling failed");
+	    }
+	    return;
+	}
+
 	PrintWriter out;
 	GameOutput outputter = (GameOutput) 
 	    Global.getObjectOrDie(outName, Global.OUTPUT);
 	try {
-	    FileWriter fw = new FileWriter(sOutFile);
-	    out = new PrintWriter(fw, true);
-	    outputter.writeGame(out, g);
+	    if (outputter.isBinary()) {
+		OutputStream os = new BufferedOutputStream(new FileOutputStream(sOutFile), 1 << 16);
+		outputter.writeGame(os, g);
+		os.close();
+	    } else {
+		FileWriter fw = new FileWriter(sOutFile);
+		out = new PrintWriter(fw, true);
+		outputter.writeGame(out, g);
+	    }
 	} catch (Exception e) {
 	    Global.handleError(e, "Output failed");
 	}
@@ -71,5 +71,33 @@ public abstract class MatrixGame extends Game
     {
 	payoffs[player].setValue(value, outcome);
     }
+
+
+    /**
+     * Returns the tensor holding a player's payoffs.  This is
+     * not a copy, so that generators can fill its values array
+     * directly.
+     *
+     * @param player the player whose payoffs should be returned.
+     */
+    public DoubleTensor getPayoffTensor(int player)
+    {
+	return payoffs[player];
+    }
+
+
+    /**
+     * Returns sparse copies of the payoffs, read straight from the
+     * stored tensors, which stay dense.
+     */
+    public SparseDoubleTensor[] getSparsePayoffTensors(int players)
+    {
+	SparseDoubleTensor[] sparse = new SparseDoubleTensor[players];
+
+	for (int i = 0; i < sparse.length; i++)
+	    sparse[i] = new SparseDoubleTensor(payoffs[i]);
+
+	return sparse;
+    }
 }
 
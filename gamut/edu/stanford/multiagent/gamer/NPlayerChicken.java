@@ -40,9 +40,9 @@ public class NPlayerChicken extends Game
 	// The randomization max for the cut will be reset to
 	// the number of players and is therefore unimportant
 	
-	cut = new Parameters.ParamInfo("cutoff", Parameters.ParamInfo.LONG_PARAM, new Long(1), new Long(100), "the number of players who need to cooperate to get the reward.  Must be > 0 and <= players.");
+	cut = new Parameters.ParamInfo("cutoff", Parameters.ParamInfo.LONG_PARAM, new Long(1), new Long(10000), "the number of players who need to cooperate to get the reward.  Must be > 0 and <= players.");
 
-	npcParam = new Parameters.ParamInfo[] {Game.players, cut};
+	npcParam = new Parameters.ParamInfo[] {Game.manyPlayers, cut};
 	Global.registerParams(NPlayerChicken.class, npcParam);
     }
 
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * Writes the payoffs sparsely as a NumPy .npz archive, in 
+ * coordinate (COO) form, so that they can be loaded directly by
+ * numpy.load().  The archive holds six arrays:
+ * <ul>
+ * <li> shape: the number of players, then each player's number
+ * of actions (int64)
+ * <li> structure: 0 if the payoffs are general, 1 if zero-sum,
+ * 2 if constant-sum and 3 if common-payoff (int64 scalar).  
+ * Unless they are general, only the first player's payoffs are 
+ * written, since the others follow from them.
+ * <li> constant: the sum of the payoffs in a constant-sum game 
+ * (float64 scalar)
+ * <li> defaults: each written player's most common payoff (float64)
+ * <li> indices: one row for each other payoff, holding the player
+ * and then the actions of all players, counted from 0 (int64)
+ * <li> values: the payoff in each row of indices (float64)
+ * </ul>
+ */
+
+public class NpzOutput extends GameOutput
+{
+
+    public boolean isBinary()
+    {
+	return true;
+    }
+
+
+    public void writeGame(OutputStream out, Game g)
+	throws Exception
+    {
+	int players = g.getNumPlayers();
+	int structure = getOutputStructure(g);
+	SparseDoubleTensor[] payoffs = 
+	    g.getSparsePayoffTensors(structure == Game.GENERAL ? players : 1);
+	int[] strides = SparseOutput.getStrides(g.getNumActions());
+
+	long[] shape = new long[players + 1];
+	shape[0] = players;
+	for (int i = 0; i < players; i++)
+	    shape[i + 1] = g.getNumActions(i);
+
+	double[] defaults = new double[payoffs.length];
+	int count = 0;
+	for (int i = 0; i < payoffs.length; i++) {
+	    defaults[i] = outputValue(g, payoffs[i].getDefaultValue());
+	    count += payoffs[i].getNumEntries();
+	}
+
+	long[] indices = new long[count * (players + 1)];
+	double[] values = new double[count];
+	int row = 0;
+	for (int i = 0; i < payoffs.length; i++) {
+	    SparseDoubleTensor t = payoffs[i];
+	    for (int k = 0; k < t.getNumEntries(); k++, row++) {
+		int pos = t.getEntryPosition(k);
+		indices[row * (players + 1)] = i;
+		for (int j = 0; j < players; j++) {
+		    indices[row * (players + 1) + j + 1] = pos / strides[j];
+		    pos %= strides[j];
+		}
+		values[row] = outputValue(g, t.getEntryValue(k));
+	    }
+	}
+
+	ZipOutputStream zip = new ZipOutputStream(out);
+
+	writeArray(zip, "shape", "<i8", new int[] {players + 1}, shape, null);
+	writeArray(zip, "structure", "<i8", new int[0], 
+		   new long[] {structure}, null);
+	writeArray(zip, "constant", "<f8", new int[0], null,
+		   new double[] {structure == Game.CONSTANT_SUM ? 
+				 getOutputConstantSum(g) : 0});
+	writeArray(zip, "defaults", "<f8", new int[] {payoffs.length}, null, 
+		   defaults);
+	writeArray(zip, "indices", "<i8", new int[] {count, players + 1}, 
+		   indices, null);
+	writeArray(zip, "values", "<f8", new int[] {count}, null, values);
+
+	zip.finish();
+	out.flush();
+    }
+
+
+    /**
+     * The game can only be written as bytes.
+     */
+    public void writeGame(PrintWriter out, Game g)
+	throws Exception
+    {
+	throw new Exception("NpzOutput must write to a stream");
+    }
+
+
+    /**
+     * Applies normalization and conversion to integers, as set.
+     */
+    private static double outputValue(Game g, double payoff)
+	throws Exception
+    {
+	return Double.parseDouble(g.getOutputPayoff(payoff));
+    }
+
+
+    /**
+     * Writes an array as a .npy entry of the archive: the magic
+     * string, version 1.0, a header describing the array padded to
+     * a multiple of 64 bytes, and the values in little-endian order.
+     */
+    private static void writeArray(ZipOutputStream zip, String name,
+				   String descr, int[] dims, long[] longs,
+				   double[] doubles)
+	throws IOException
+    {
+	zip.putNextEntry(new ZipEntry(name + ".npy"));
+
+	StringBuffer header = new StringBuffer();
+	header.append("{'descr': '").append(descr);
+	header.append("', 'fortran_order': False, 'shape': (");
+	for (int i = 0; i < dims.length; i++)
+	    header.append(dims[i]).append(dims.length == 1 ? "," : 
+					  (i + 1 < dims.length ? ", " : ""));
+	header.append("), }");
+	while ((10 + header.length() + 1) % 64 != 0)
+	    header.append(' ');
+	header.append('\n');
+
+	BufferedOutputStream out = new BufferedOutputStream(zip, 1 << 16);
+	out.write(new byte[] {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0});
+	out.write(header.length() & 0xff);
+	out.write(header.length() >> 8);
+	out.write(header.toString().getBytes("US-ASCII"));
+
+	int n = (longs != null ? longs.length : doubles.length);
+	for (int i = 0; i < n; i++) {
+	    long bits = (longs != null ? longs[i] : 
+			 Double.doubleToLongBits(doubles[i]));
+	    for (int b = 0; b < 8; b++)
+		out.write((int) (bits >>> (8 * b)));
+	}
+
+	out.flush();
+	zip.closeEntry();
+    }
+}
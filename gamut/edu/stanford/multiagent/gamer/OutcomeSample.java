@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Payoffs at a random sample of the outcomes of a game, for games
+ * too large to write out whole.  Outcomes are drawn either 
+ * uniformly, or stratified by player so that each action of each
+ * player is played in the same number of outcomes, give or take 
+ * one.  Only the sampled outcomes are ever looked at.
+ * <p>
+ * The outcomes are drawn in blocks, block b from stream b of a
+ * seed taken from Global.rand, so that with Global.parallel set 
+ * the blocks can be drawn and evaluated on all processors and the
+ * sample is still the same.  This relies on the game's getPayoff
+ * leaving it unchanged; see Game.getPayoff.  The script
+ * scripts/check_sample.sh at the top of the repository runs a
+ * sample twice this way and compares the two.
+ */
+
+public class OutcomeSample
+{
+    // -- the largest number of actions drawn for a block, which
+    // -- bounds the memory used for a game with many players
+    private static final int BLOCK_ACTIONS = 1 << 20;
+
+    private Game game;
+    private long size;
+    private boolean stratified;
+    private long seed;
+
+    // -- the number of outcomes in each block
+    private int blockSize;
+
+    // -- for stratified samples, outcome k of the sample has
+    // -- player p play order[p][k % actions of p], before the 
+    // -- outcomes of each block are shuffled
+    private int[][] order;
+
+
+    /**
+     * Prepares a sample of a generated game, drawing from 
+     * Global.rand.
+     *
+     * @param game the game
+     * @param size the number of outcomes to sample
+     * @param stratified whether to stratify by player
+     */
+    public OutcomeSample(Game game, long size, boolean stratified)
+    {
+	this.game = game;
+	this.size = size;
+	this.stratified = stratified;
+
+	int players = game.getNumPlayers();
+	blockSize = Math.max(1, Math.min(Parallel.BLOCK_SIZE, 
+					 BLOCK_ACTIONS / players));
+
+	if (stratified) {
+	    order = new int[players][];
+	    for (int p = 0; p < players; p++) {
+		order[p] = new int[game.getNumActions(p)];
+		for (int a = 0; a < order[p].length; a++)
+		    order[p][a] = a + 1;
+		shuffle(order[p], Global.rand);
+	    }
+	}
+
+	seed = Global.rand.nextLong();
+    }
+
+
+    private static void shuffle(int[] values, Random rand)
+    {
+	for (int i = values.length - 1; i > 0; i--) {
+	    int j = rand.nextInt(i + 1);
+	    int v = values[i];
+	    values[i] = values[j];
+	    values[j] = v;
+	}
+    }
+
+
+    /**
+     * Draws the outcomes of a block.
+     *
+     * @param block the number of the block
+     * @param outcomes filled with the outcomes, one per row
+     * @param count the number of outcomes in the block
+     */
+    private void draw(long block, int[][] outcomes, int count)
+    {
+	Random rand = new Random(new RandomStream(seed, block).nextLong());
+	int players = game.getNumPlayers();
+
+	if (!stratified) {
+	    for (int k = 0; k < count; k++)
+		for (int p = 0; p < players; p++)
+		    outcomes[k][p] = 1 + rand.nextInt(game.getNumActions(p));
+	    return;
+	}
+
+	long first = block * blockSize;
+	int[] column = new int[count];
+
+	for (int p = 0; p < players; p++) {
+	    int actions = order[p].length;
+	    for (int k = 0; k < count; k++)
+		column[k] = order[p][(int) ((first + k) % actions)];
+
+	    shuffle(column, rand);
+	    for (int k = 0; k < count; k++)
+		outcomes[k][p] = column[k];
+	}
+    }
+
+
+    /**
+     * Writes the sampled outcomes with their payoffs, one outcome
+     * per line in the same form as SimpleOutput.
+     *
+     * @param out where to write the sample
+     */
+    public void write(PrintWriter out)
+	throws Exception
+    {
+	out.println(GameOutput.commentString("Generated by " + 
+					     Global.VERSION_STRING, "# "));
+	out.println(GameOutput.commentString(game.getDescription(), "# "));
+	out.println("# Sample of " + size + " outcomes, " +
+		    (stratified ? "stratified by player" : "drawn uniformly"));
+
+	final int players = game.getNumPlayers();
+	long nBlocks = (size + blockSize - 1) / blockSize;
+
+	// -- blocks are evaluated a processor's worth at a time,
+	// -- and written in order
+	int perPass = (Global.parallel ? 
+		       Runtime.getRuntime().availableProcessors() : 1);
+	final int[][][] outcomes = new int[perPass][blockSize][players];
+	final double[][][] payoffs = new double[perPass][blockSize][];
+	final int[] counts = new int[perPass];
+
+	// -- games which set up tables on first use must do so
+	// -- before the threads share them
+	if (size > 0)
+	    game.getPayoff(firstOutcome());
+
+	for (long pass = 0; pass < nBlocks; pass += perPass) {
+	    final long firstBlock = pass;
+	    int n = (int) Math.min(perPass, nBlocks - pass);
+
+	    for (int i = 0; i < n; i++)
+		counts[i] = (int) Math.min(blockSize, 
+					   size - (pass + i) * blockSize);
+
+	    Parallel.run(n, new Parallel.Body() {
+		    public void run(int i) {
+			draw(firstBlock + i, outcomes[i], counts[i]);
+			for (int k = 0; k < counts[i]; k++) {
+			    Vector v = game.getPayoff(outcomes[i][k]);
+			    payoffs[i][k] = new double[players];
+			    for (int p = 0; p < players; p++)
+				payoffs[i][k][p] = ((Double) v.get(p)).doubleValue();
+			}
+		    }
+		});
+
+	    for (int i = 0; i < n; i++)
+		for (int k = 0; k < counts[i]; k++) {
+		    out.print(outcomeToString(outcomes[i][k]) + " :\t[ ");
+		    for (int p = 0; p < players; p++)
+			out.print(game.getOutputPayoff(payoffs[i][k][p]) + " ");
+		    out.println("]");
+		}
+	}
+    }
+
+
+    private int[] firstOutcome()
+    {
+	int[] outcome = new int[game.getNumPlayers()];
+	Arrays.fill(outcome, 1);
+	return outcome;
+    }
+
+
+    private static String outcomeToString(int[] outcome)
+    {
+	StringBuffer buf = new StringBuffer();
+	buf.append("[");
+	for (int i = 0; i < outcome.length; i++)
+	    buf.append(outcome[i]).append(i < outcome.length - 1 ? "  " : "]");
+	return buf.toString();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.util.*;
+
+/**
+ * Runs numbered blocks of work on all available processors.  
+ * Blocks are handed out in order to whichever thread is free, so 
+ * the work done for a block must depend only on its number (for
+ * instance, by drawing from the RandomStream of that number) for
+ * the results not to depend on the number of threads.
+ */
+
+public class Parallel
+{
+
+    /**
+     * The work to be done for each block.
+     */
+    public static interface Body
+    {
+	public void run(int block);
+    }
+
+
+    // -- the next block to hand out, and the first error seen
+    private int next;
+    private int nBlocks;
+    private Body body;
+    private RuntimeException error;
+
+
+    private Parallel(int nBlocks, Body body)
+    {
+	this.next = 0;
+	this.nBlocks = nBlocks;
+	this.body = body;
+    }
+
+
+    private synchronized int nextBlock()
+    {
+	if (error != null || next >= nBlocks)
+	    return -1;
+	return next++;
+    }
+
+
+    private synchronized void fail(RuntimeException e)
+    {
+	if (error == null)
+	    error = e;
+    }
+
+
+    private void work()
+    {
+	try {
+	    for (int b = nextBlock(); b >= 0; b = nextBlock())
+		body.run(b);
+	} catch (RuntimeException e) {
+	    fail(e);
+	} catch (Error e) {
+	    fail(new RuntimeException(e.toString()));
+	}
+    }
+
+
+    // -- the number of values in each block filled by fillUniform
+    public static final int BLOCK_SIZE = 4096;
+
+
+    /**
+     * Fill the arrays with values drawn uniformly from [low, high),
+     * in blocks of BLOCK_SIZE values.  Block b, counting through 
+     * the arrays in order, draws from stream b of the seed.
+     */
+    public static void fillUniform(final double[][] arrays, 
+				   final double low, final double high,
+				   final long seed)
+    {
+	// -- the number of the first block of each array
+	final int[] firstBlock = new int[arrays.length + 1];
+	for (int i = 0; i < arrays.length; i++)
+	    firstBlock[i+1] = firstBlock[i] + 
+		(arrays[i].length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+	run(firstBlock[arrays.length], new Body() {
+		public void run(int block) {
+		    // -- find the last array starting at or before 
+		    // -- this block, which is the one holding it
+		    int lo = 0, hi = arrays.length - 1;
+		    while (lo < hi) {
+			int mid = (lo + hi + 1) / 2;
+			if (firstBlock[mid] <= block)
+			    lo = mid;
+			else
+			    hi = mid - 1;
+		    }
+
+		    double[] values = arrays[lo];
+		    RandomStream rand = new RandomStream(seed, block);
+
+		    int start = (block - firstBlock[lo]) * BLOCK_SIZE;
+		    int end = Math.min(start + BLOCK_SIZE, values.length);
+		    for (int i = start; i < end; i++)
+			values[i] = rand.nextDouble(low, high);
+		}
+	    });
+    }
+
+
+    /**
+     * Run body on blocks 0 to nBlocks-1, as run does, for code 
+     * which draws from Global.rand.  While the blocks run, 
+     * Global.rand hands each call on to a java.util.Random of the
+     * block making it, seeded from stream b of the seed for block
+     * b, so the draws of each block do not depend on the others.
+     */
+    public static void runWithRandom(int nBlocks, final long seed, 
+				     final Body body)
+    {
+	Random old = Global.rand;
+	final ThreadRandom rand = new ThreadRandom(old);
+	Global.rand = rand;
+
+	try {
+	    run(nBlocks, new Body() {
+		    public void run(int block) {
+			rand.set(new Random(new RandomStream(seed, block).nextLong()));
+			try {
+			    body.run(block);
+			} finally {
+			    rand.set(null);
+			}
+		    }
+		});
+	} finally {
+	    Global.rand = old;
+	}
+    }
+
+
+
+    /**
+     * A Random which passes each call on to the Random set for 
+     * the calling thread, or to a fallback if there is none.
+     */
+    private static class ThreadRandom extends Random
+    {
+	private Random fallback;
+	private ThreadLocal current = new ThreadLocal();
+
+	ThreadRandom(Random fallback)
+	{
+	    this.fallback = fallback;
+	}
+
+	void set(Random r)
+	{
+	    current.set(r);
+	}
+
+	private Random get()
+	{
+	    Random r = (Random) current.get();
+	    return (r == null ? fallback : r);
+	}
+
+	protected int next(int bits)
+	{
+	    return get().nextInt() >>> (32 - bits);
+	}
+
+	public int nextInt() { return get().nextInt(); }
+	public int nextInt(int n) { return get().nextInt(n); }
+	public long nextLong() { return get().nextLong(); }
+	public boolean nextBoolean() { return get().nextBoolean(); }
+	public float nextFloat() { return get().nextFloat(); }
+	public double nextDouble() { return get().nextDouble(); }
+	public double nextGaussian() { return get().nextGaussian(); }
+	public void nextBytes(byte[] bytes) { get().nextBytes(bytes); }
+    }
+
+
+
+    /**
+     * Run body on blocks 0 to nBlocks-1 and wait for all of them
+     * to finish.  An exception thrown by any block is thrown 
+     * again here.
+     */
+    public static void run(int nBlocks, Body body)
+    {
+	final Parallel p = new Parallel(nBlocks, body);
+
+	int nThreads = Math.min(nBlocks, 
+				Runtime.getRuntime().availableProcessors());
+
+	Thread[] threads = new Thread[Math.max(nThreads - 1, 0)];
+	for (int i = 0; i < threads.length; i++) {
+	    threads[i] = new Thread(new Runnable() {
+		    public void run() { p.work(); }
+		});
+	    threads[i].start();
+	}
+
+	// -- this thread does its share too
+	p.work();
+
+	for (int i = 0; i < threads.length; i++)
+	    try {
+		threads[i].join();
+	    } catch (InterruptedException e) {
+		p.fail(new RuntimeException("Interrupted"));
+	    }
+
+	if (p.error != null)
+	    throw p.error;
+    }
+}
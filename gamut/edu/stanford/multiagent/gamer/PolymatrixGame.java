@@ -74,6 +74,17 @@ public class PolymatrixGame extends GraphicalGame
     private ParamParser edgeGameParams;
     private String subGameName;
 
+    // -- An instance of the edge game class, with any preset
+    // -- parameters, from which the edge games are made.  Null if
+    // -- the subgame names a group, so that each edge game is a
+    // -- random member of it.
+    private Game prototype;
+
+    // -- The payoff matrices of all edges, one after another, 
+    // -- two for each pair of neighbours.  The graph holds views
+    // -- of it as edge data.
+    private double[] edgePayoffs;
+
     boolean randomize;
 
     // ---------------------------------------------------
@@ -190,7 +201,7 @@ public class PolymatrixGame extends GraphicalGame
     {
 	// Instantiate a graph of the type selected by the user
 	String graphName = parameters.getStringParameter(pGraph.name);
-	graph = (ALGraph) Global.getObjectOrDie(graphName, Global.GRAPH);
+	graph = (Graph) Global.getObjectOrDie(graphName, Global.GRAPH);
 	
 	ParamParser graphParams = 
 	    parameters.getParserParameter(pGraphParams.name);
@@ -221,6 +232,23 @@ public class PolymatrixGame extends GraphicalGame
     
 
 
+    /**
+     * Makes a new instance of the edge game from the prototype,
+     * without looking the class up again.
+     */
+    private Game newEdgeGame()
+	throws Exception
+    {
+	if (prototype == null)
+	    return (Game) Global.getObjectOrDie(subGameName, Global.GAME);
+
+	Game edgeGame = (Game) prototype.getClass().getDeclaredConstructor().newInstance();
+	edgeGame.setParameters(prototype.getParameters(), false);
+	return edgeGame;
+    }
+
+
+
     /**
      * Generates a new instance of the edge game.  Needs to set
      * parameters each time in case parameters are randomized.
@@ -243,7 +271,11 @@ public class PolymatrixGame extends GraphicalGame
 	    }
 	  }
 
-	edgeGame.setParameters(edgeGameParams, randomize);
+	// -- the parser keeps track of which parameters were used,
+	// -- so edge games generated in parallel take turns with it
+	synchronized (edgeGameParams) {
+	    edgeGame.setParameters(edgeGameParams, randomize);
+	}
 	edgeGame.initialize();
 	
 	// Check to make sure that the subgame is valid to be
@@ -278,91 +310,122 @@ public class PolymatrixGame extends GraphicalGame
 
 	// Generate the graph for the game.
 	graph.doGenerate();
+	graph.freeze();
 
 	setDescription(getDescription() + "\nGraph Params:\n" + graph.getDescription());
 
+	// Find each pair of neighbours, in the order in which the
+	// edge games have always been generated: by the lower
+	// numbered node, then in its edge order
+	Vector pairs = new Vector();
+
 	for (int i = 0; i < graph.getNNodes(); i++) {
 	    Iterator edgeIter = graph.getEdges(i);
 
 	    while (edgeIter.hasNext()) {
 		Edge edge = (Edge) edgeIter.next();
-		Game edgeGame = null;
-	    
-		// Make sure the edge data was not set already as this
-		// might have happened when the reverse edge was set
-		if (edge.getData() == null) {
-		    
-		    // Now make sure the reversed edge exists
-		    Edge reverse = graph.getEdge(edge.getDest(), 
-						 edge.getSource());
-		    
-		    try {
-			// Make sure there is a reverse
-			if (reverse == null)
-			    throw new Exception ("Found edge without " + 
-						 "existence of reverse " +
-						 "edge.  Polymatrix games " +
-						 "must use reflexive graphs.");
 
+		// Now make sure the reversed edge exists
+		Edge reverse = graph.getEdge(edge.getDest(), 
+					     edge.getSource());
+		if (reverse == null)
+		    Global.handleError("Unable to generate polymatrix " +
+				       "game (subgame " + subGameName + "): " +
+				       "Found edge without existence of " +
+				       "reverse edge.  Polymatrix games " +
+				       "must use reflexive graphs.");
+
+		if (edge.getDest() > i) {
+		    pairs.add(edge);
+		    pairs.add(reverse);
+		}
+	    }
+	}
 
-			// Create a new instance of the edge game
-			// -- this is cleaner, it resets parameter status
-			// -- and parameter values
-			edgeGame = (Game) Global.getObjectOrDie(
-							 subGameName,
-							 Global.GAME);
+	final int nPairs = pairs.size() / 2;
+	int a = getNumActions(0);
+	final int size = a * a;
 
- 			edgeGame = generateNewEdgeGame(edgeGame);
+	if ((long) 2 * nPairs * size > Integer.MAX_VALUE)
+	    Global.handleError("Polymatrix game is too large");
 
-		    } catch (Exception e) {
-			Global.handleError(e, "Unable to generate polymatrix game (subgame "+subGameName +")");
-		    }	
-		    
-		    
-		    int[] dimensions = new int[2];
-		    
-		    // Dimensions of matrix for player 2
-		    dimensions[0] = getNumActions(edge.getDest());
-		    dimensions[1] = getNumActions(edge.getSource());
-		    DoubleTensor payMatrixDest = new DoubleTensor(dimensions);
-		    
-		    // Dimensions of matrix for player 1
-		    dimensions[0] = getNumActions(edge.getSource());
-		    dimensions[1] = getNumActions(edge.getDest());
-		    DoubleTensor payMatrixSource = 
-			new DoubleTensor(dimensions);
-	
-		    Outcome outcome=new Outcome(2, dimensions);
-		    outcome.reset();
-		    
-		    int[] next = new int[2];
-		    int[] reverseNext = new int[2];
-		    
-		    while (outcome.hasMoreOutcomes()) {
-			next = outcome.getOutcome();
-			outcome.nextOutcome();
-			
-			reverseNext[0] = next[1];
-			reverseNext[1] = next[0];
-			
-			payMatrixSource.setValue
-			    (edgeGame.getPayoff(next, 0), next);
-			payMatrixDest.setValue
-			    (edgeGame.getPayoff(reverseNext, 1), 
-			     reverseNext);
-		    }
-		    
-		    // Now set the data for the edges on the graph 
+	edgePayoffs = new double[2 * nPairs * size];
+
+	// Look the subgame class up only once, unless it names a
+	// group to pick from for each edge
+	prototype = null;
+	if (!Global.isKnown(Global.GAME, subGameName) ||
+	    Global.isGround(Global.GAME, subGameName))
+	    prototype = (Game) Global.getObjectOrDie(subGameName, Global.GAME);
+
+	Parallel.Body body = new Parallel.Body() {
+		public void run(int pair) {
 		    try {
-			edge.setData(payMatrixSource);
-			reverse.setData(payMatrixDest); 
+			Game edgeGame = generateNewEdgeGame(newEdgeGame());
+			copyEdgeGame(edgeGame, 2 * pair * size, 
+				     (2 * pair + 1) * size);
 		    } catch (Exception e) {
-			Global.handleError(e, "Error setting edge data");
+			Global.handleError(e, "Unable to generate polymatrix game (subgame "+subGameName +")");
 		    }
- 		}
+		}
+	    };
+
+	if (Global.parallel)
+	    Parallel.runWithRandom(nPairs, Global.rand.nextLong(), body);
+	else
+	    for (int p = 0; p < nPairs; p++)
+		body.run(p);
+
+	// Now set the data for the edges on the graph 
+	int[] dimensions = {a, a};
+
+	for (int p = 0; p < nPairs; p++) {
+	    Edge edge = (Edge) pairs.get(2 * p);
+	    Edge reverse = (Edge) pairs.get(2 * p + 1);
+
+	    try {
+		edge.setData(new DoubleTensor(dimensions, edgePayoffs, 
+					      2 * p * size));
+		reverse.setData(new DoubleTensor(dimensions, edgePayoffs,
+						 (2 * p + 1) * size));
+	    } catch (Exception e) {
+		Global.handleError(e, "Error setting edge data");
 	    }
 	}
     }
-}
 
 
+
+    /**
+     * Copies the payoffs of an edge game into the edge matrices
+     * starting at src, for the lower numbered node of the pair, 
+     * and at dest, for the other.  Each matrix holds one player's
+     * payoffs in the layout of the subgame's own matrices, which
+     * are copied whole when the subgame is a MatrixGame.
+     */
+    private void copyEdgeGame(Game edgeGame, int src, int dest)
+    {
+	int a = getNumActions(0);
+
+	if (edgeGame instanceof MatrixGame) {
+	    DoubleTensor p1 = ((MatrixGame) edgeGame).getPayoffTensor(0);
+	    DoubleTensor p2 = ((MatrixGame) edgeGame).getPayoffTensor(1);
+
+	    System.arraycopy(p1.getValues(), p1.getOffset(), 
+			     edgePayoffs, src, a * a);
+	    System.arraycopy(p2.getValues(), p2.getOffset(), 
+			     edgePayoffs, dest, a * a);
+	    return;
+	}
+
+	int[] outcome = new int[2];
+
+	for (int i = 0; i < a; i++)
+	    for (int j = 0; j < a; j++) {
+		outcome[0] = i + 1;
+		outcome[1] = j + 1;
+		edgePayoffs[src + i * a + j] = edgeGame.getPayoff(outcome, 0);
+		edgePayoffs[dest + i * a + j] = edgeGame.getPayoff(outcome, 1);
+	    }
+    }
+}
@@ -66,6 +66,52 @@ public abstract class PureCoordinationMatrix extends Game
 
 
 
+    /**
+     * Returns the payoffs of all players, looking the outcome up
+     * only once.
+     */
+    public Vector getPayoff(int[] outcome)
+    {
+	int players = getNumPlayers();
+	Double payoff = new Double(payoffs.getValue(outcome));
+
+	Vector payoffVector = new Vector(players);
+	for (int i = 0; i < players; i++)
+	    payoffVector.add(payoff);
+
+	return payoffVector;
+    }
+
+
+
+    public int getPayoffStructure()
+    {
+	return COMMON_PAYOFF;
+    }
+
+
+
+    /**
+     * Finds the range for normalization from the one stored 
+     * tensor.
+     */
+    public void setNormMinAndMax()
+    {
+	double[] values = payoffs.getValues();
+	double min = values[0], max = values[0];
+
+	for (int i = 1; i < values.length; i++) {
+	    if (values[i] > max)
+		max = values[i];
+	    else if (values[i] < min)
+		min = values[i];
+	}
+
+	setNormMinAndMax(min, max);
+    }
+
+
+
     /**
      * Sets the payoff for all players for a given outcome.
      *
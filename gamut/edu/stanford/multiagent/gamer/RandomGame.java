@@ -87,13 +87,24 @@ public class RandomGame extends MatrixGame
 	setName("Random Matrix Game");
 
 
+	// -- the payoffs are written straight into the tensors
+	double[][] values = new double[getNumPlayers()][];
+	for(int i=0; i<getNumPlayers(); i++)
+	    values[i] = getPayoffTensor(i).getValues();
+
+	if(Global.parallel) {
+	    Parallel.fillUniform(values, low, high, Global.rand.nextLong());
+	    return;
+	}
+
+	DoubleTensor t = getPayoffTensor(0);
 	Outcome outcome=new Outcome(getNumPlayers(), getNumActions());
 	
 	for(outcome.reset(); outcome.hasMoreOutcomes(); outcome.nextOutcome())
 	    {
+		int index = t.getIndex(outcome.getOutcome());
 		for(int i=0; i<getNumPlayers(); i++)
-		    setPayoff(outcome.getOutcome(), i, 
-			      Global.randomDouble(low, high));
+		    values[i][index] = Global.randomDouble(low, high);
 	    }
     }
 }
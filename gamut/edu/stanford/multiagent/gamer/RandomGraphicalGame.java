@@ -52,7 +52,7 @@ public class RandomGraphicalGame extends GraphicalGame
 
 	pGraphParams = new Parameters.ParamInfo("graph_params", Parameters.ParamInfo.CMDLINE_PARAM, null, null, "parameters to be handed off to the graph, must be enclosed in [].");
 
-	rggParam = new Parameters.ParamInfo[] {Game.players,
+	rggParam = new Parameters.ParamInfo[] {Game.manyPlayers,
 					       Game.symActions, pGraph,
 					       pGraphParams};
 	Global.registerParams(RandomGraphicalGame.class, rggParam);
@@ -154,7 +154,7 @@ public class RandomGraphicalGame extends GraphicalGame
     {
 	// Instantiate a graph of the type selected by the user
 	String graphName = parameters.getStringParameter(pGraph.name);
-	graph = (ALGraph) Global.getObjectOrDie(graphName, Global.GRAPH);
+	graph = (Graph) Global.getObjectOrDie(graphName, Global.GRAPH);
 	
 	ParamParser graphParams = 
 	    parameters.getParserParameter(pGraphParams.name);
@@ -196,76 +196,74 @@ public class RandomGraphicalGame extends GraphicalGame
 
 	// Generate the graph for the game.
 	graph.doGenerate();
+	graph.freeze();
 
 	setDescription(getDescription() + "\nGraph Params:\n" + graph.getDescription());
 
-	Vector actionsVector = new Vector(1);
-	actionsVector.add(0, String.valueOf(getNumActions(0)));
+	// Now that the graph has been generated, make the payoff 
+	// matrix of each node, with one dimension for the node and 
+	// one for each of its neighbours
+	DoubleTensor[] nodeMatrices = new DoubleTensor[getNumPlayers()];
+	double[][] values = new double[getNumPlayers()][];
 
-	// Now that the graph has been generated, initialize the node
-	// games to have the correct number of players
  	for (int i = 0; i < getNumPlayers(); i++) {
 
 	    // Count the number of edges attached to the node
 	    // representing the player in the graph
-	    long numPlayers = 1;
+	    int numPlayers = 1;
 	    Iterator edgeIter = graph.getEdges(i);
 	    while (edgeIter.hasNext()) {
 		edgeIter.next();
 		numPlayers++;
 	    }
 
-	    Long numPlayersLong = new Long(numPlayers);
-	    Game nodeGame = null;
-
-	    try {
-		nodeGame = new RandomGame();
-		nodeGame.parameters.setParameter(Game.players.name, 
-						     numPlayersLong);
-		nodeGame.parameters.setParameter(Game.actions.name,
-						     actionsVector);
-		nodeGame.initialize();
-	    } catch (Exception e) {
-		Global.handleError(e, "Unable to initialize node game");
-	    }
-	    
-	    int[] dimensions = new int[(int) numPlayers];
-	    for (int j = 0; j < (int) numPlayers; j++)
+	    int[] dimensions = new int[numPlayers];
+	    for (int j = 0; j < numPlayers; j++)
 		dimensions[j] = getNumActions(0);
 
-	    DoubleTensor payMatrix = new DoubleTensor(dimensions);
+	    nodeMatrices[i] = new DoubleTensor(dimensions);
+	    values[i] = nodeMatrices[i].getValues();
+	}
 
- 	    // Generate the matrix game for the node.  An entire random
-	    // game is created although only the payoffs for one player
-	    // are used.
-	    try {
-		nodeGame.generate();
-	    } catch (Exception e) {
-		Global.handleError(e, "Error generating node game");
-	    }
-	    
- 	    Outcome outcome=new Outcome(nodeGame.getNumPlayers(), 
-					nodeGame.getNumActions());
- 	    outcome.reset();	
- 	    int[] next = new int[(int)numPlayers];
-	    
- 	    while (outcome.hasMoreOutcomes()) {
- 		next = outcome.getOutcome();
- 		outcome.nextOutcome();
-		
- 		// Get payoffs for the first player
-		payMatrix.setValue
- 		    (nodeGame.getPayoff(next, 0), next);
- 	    }
-		
- 	    // Now set the data for the node on the graph 
+	if (Global.parallel)
+	    Parallel.fillUniform(values, DEFAULT_LOW, DEFAULT_HIGH, 
+				 Global.rand.nextLong());
+	else
+	    for (int i = 0; i < getNumPlayers(); i++)
+		fillNodeMatrix(nodeMatrices[i]);
+
+	// Now set the data for each node on the graph 
+	for (int i = 0; i < getNumPlayers(); i++)
 	    try {
-		setNodeMatrix(i, payMatrix);
+		setNodeMatrix(i, nodeMatrices[i]);
 	    } catch (Exception e) {
 		Global.handleError(e, "Error setting node data");
 	    }
-	    nodeGame=null;
- 	}
+    }
+
+
+
+    /**
+     * Fill in a node's payoffs in the same way as earlier versions,
+     * which generated an entire random game for each node and kept
+     * only the payoffs of the first player.  The payoffs of the 
+     * other players are still drawn, and thrown away, so that the 
+     * same seed gives the same game.
+     */
+    private void fillNodeMatrix(DoubleTensor payMatrix)
+    {
+	int numPlayers = payMatrix.getNumDimensions();
+	double[] values = payMatrix.getValues();
+
+	Outcome outcome = new Outcome(numPlayers, payMatrix.getSizeOfDim());
+
+	for (outcome.reset(); outcome.hasMoreOutcomes(); outcome.nextOutcome()) {
+	    values[payMatrix.getIndex(outcome.getOutcome())] =
+		Global.randomDouble(DEFAULT_LOW, DEFAULT_HIGH);
+
+	    for (int j = 1; j < numPlayers; j++)
+		Global.rand.nextDouble();
+	}
     }
 }
 
@@ -55,7 +55,7 @@ public class RandomLEG extends LocalEffectGame
 
 	pFuncParams = new Parameters.ParamInfo("func_params", Parameters.ParamInfo.CMDLINE_PARAM, null, null, "parameters to be handed off to the function, must be enclosed in [].");
 
-	rlegParam = new Parameters.ParamInfo[] {Game.players, Game.symActions,
+	rlegParam = new Parameters.ParamInfo[] {Game.manyPlayers, Game.symActions,
 						pGraph, pGraphParams,
 						pFunc, pFuncParams};
 	Global.registerParams(RandomLEG.class, rlegParam);
@@ -171,7 +171,7 @@ public class RandomLEG extends LocalEffectGame
     {
 	// Instantiate a graph of the type selected by the user
 	String graphName = parameters.getStringParameter(pGraph.name);
-	graph = (ALGraph) Global.getObjectOrDie(graphName,
+	graph = (Graph) Global.getObjectOrDie(graphName,
 						Global.GRAPH);
 	ParamParser graphParams = 
 	    parameters.getParserParameter(pGraphParams.name);
@@ -232,6 +232,7 @@ public class RandomLEG extends LocalEffectGame
 
 	// Generate the graph for the game.
 	graph.doGenerate();
+	graph.freeze();
 
 	setDescription(getDescription() + "\nGraph Params:\n" + graph.getDescription());
 
@@ -276,5 +277,7 @@ public class RandomLEG extends LocalEffectGame
 		edge.setData(fEdge);
 	    }
 	}
+
+	tabulateFunctions();
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+
+/**
+ * A small, fast random number generator (SplitMix64) which, unlike
+ * java.util.Random, is not shared or synchronized.  Many 
+ * independent streams can be made from one seed, one for each 
+ * block of a game, so that the blocks can be filled in parallel 
+ * and still give the same game for the same seed no matter how 
+ * many threads are used.
+ */
+
+public class RandomStream
+{
+    // -- the golden ratio increment used to step the state
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    // -- the second of each pair of normal values
+    private double nextNextGaussian;
+    private boolean haveNextNextGaussian = false;
+
+
+    /**
+     * Create a stream from a seed.
+     */
+    public RandomStream(long seed)
+    {
+	state = mix(seed);
+    }
+
+
+    /**
+     * Create the given stream of a family of streams which all 
+     * share one seed.  Different streams give unrelated numbers.
+     */
+    public RandomStream(long seed, long stream)
+    {
+	state = mix(mix(seed) + mix(stream + 1) * GAMMA);
+    }
+
+
+    /**
+     * Scramble the bits of a long.
+     */
+    private static long mix(long z)
+    {
+	z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+	z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+	return z ^ (z >>> 31);
+    }
+
+
+    // -- the spacing of the doubles returned by nextDouble
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+
+    public long nextLong()
+    {
+	state += GAMMA;
+	return mix(state);
+    }
+
+
+    /**
+     * Return a double distributed uniformly in [0, 1).
+     */
+    public double nextDouble()
+    {
+	return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+
+    /**
+     * Return a double distributed uniformly in [low, high).
+     */
+    public double nextDouble(double low, double high)
+    {
+	return low + nextDouble() * (high - low);
+    }
+
+
+    /**
+     * Return a normal(0,1) value, by the polar method as in 
+     * java.util.Random.
+     */
+    public double nextGaussian()
+    {
+	if (haveNextNextGaussian) {
+	    haveNextNextGaussian = false;
+	    return nextNextGaussian;
+	}
+
+	double v1, v2, s;
+	do {
+	    v1 = 2 * nextDouble() - 1;
+	    v2 = 2 * nextDouble() - 1;
+	    s = v1 * v1 + v2 * v2;
+	} while (s >= 1 || s == 0);
+
+	double multiplier = Math.sqrt(-2 * Math.log(s) / s);
+	nextNextGaussian = v2 * multiplier;
+	haveNextNextGaussian = true;
+	return v1 * multiplier;
+    }
+}
@@ -97,6 +97,11 @@ public class RandomZeroSum extends ZeroSumGame
 	setDescription("Zero Sum Game\n" + getDescription());
 	setName("Random Zero Sum Game");
 
+	if (Global.parallel) {
+	    fillParallel(low, high);
+	    return;
+	}
+
 	Outcome outcome = new Outcome(2, getNumActions());
 	outcome.reset();
 
@@ -120,4 +125,27 @@ public class RandomZeroSum extends ZeroSumGame
 
     }
 
+
+
+    /**
+     * Fill in the payoffs on all processors, each row of the 
+     * matrix from its own random stream.
+     */
+    private void fillParallel(final double low, final double high)
+    {
+	final long seed = Global.rand.nextLong();
+
+	Parallel.run(payoffs.length, new Parallel.Body() {
+		public void run(int row) {
+		    RandomStream rand = new RandomStream(seed, row);
+		    double[] pays = payoffs[row];
+
+		    for (int j = 0; j < pays.length; j++) {
+			double pay = rand.nextDouble(low, high);
+			pays[j] = (rand.nextLong() < 0 ? -pay : pay);
+		    }
+		}
+	    });
+    }
+
 }
@@ -0,0 +1,429 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.util.*;
+
+/**
+ * A view of another game in which players may be restricted to
+ * some of their actions, reordered, or fixed at one action and
+ * removed.  Nothing is copied: payoffs are looked up in the
+ * underlying game, so one generated game can be restricted in 
+ * many ways and each restriction written with any outputter.
+ * <p>
+ * Players are numbered from 0, as in getPayoff(), and actions 
+ * from 1.  Each change applies to the players and actions of the
+ * view as it is at the time.
+ */
+
+public class RestrictedGame extends Game
+{
+
+    // Parameters: a restriction is made from a generated game,
+    // not from parameters
+
+    private static Parameters.ParamInfo[] rgParam;
+
+    static {
+	rgParam = new Parameters.ParamInfo[] {};
+	Global.registerParams(RestrictedGame.class, rgParam);
+    }
+
+
+    private Game game;
+
+    // -- for each player of the view, the player of the game and
+    // -- the action of the game for each of its actions
+    private int[] players;
+    private int[][] actions;
+
+    // -- an outcome of the game, holding the actions of the fixed
+    // -- players; the others are filled in for each lookup
+    private int[] gameOutcome;
+
+    // -- the changes made, for the description
+    private StringBuffer changes;
+
+
+    /**
+     * Constructs a view of the whole of a generated game.
+     *
+     * @param game the game
+     */
+    public RestrictedGame(Game game)
+	throws Exception
+    {
+	super();
+
+	this.game = game;
+
+	int n = game.getNumPlayers();
+	players = new int[n];
+	actions = new int[n][];
+	for (int i = 0; i < n; i++) {
+	    players[i] = i;
+	    actions[i] = new int[game.getNumActions(i)];
+	    for (int a = 0; a < actions[i].length; a++)
+		actions[i][a] = a + 1;
+	}
+
+	gameOutcome = new int[n];
+	changes = new StringBuffer();
+	update();
+    }
+
+
+    /**
+     * Restricts a player to some of its actions, which become its
+     * actions 1, 2, ... in the order given.
+     *
+     * @param player the player
+     * @param kept the actions to keep
+     */
+    public void restrictActions(int player, int[] kept)
+	throws Exception
+    {
+	int[] newActions = new int[kept.length];
+
+	for (int a = 0; a < kept.length; a++) {
+	    if (kept[a] < 1 || kept[a] > actions[player].length)
+		throw new IndexOutOfBoundsException("Player " + (player + 1) +
+						    " has no action " + kept[a]);
+	    newActions[a] = actions[player][kept[a] - 1];
+	}
+
+	if (newActions.length == 0)
+	    throw new IllegalArgumentException("Player " + (player + 1) +
+					       " must keep an action");
+
+	changes.append("Player " + (player + 1) + " restricted to actions " +
+		       listToString(kept) + "\n");
+	actions[player] = newActions;
+	update();
+    }
+
+
+    /**
+     * Restricts a player to a range of its actions.
+     *
+     * @param player the player
+     * @param first the first action to keep
+     * @param last the last action to keep
+     */
+    public void restrictActions(int player, int first, int last)
+	throws Exception
+    {
+	int[] kept = new int[Math.max(last - first + 1, 0)];
+	for (int a = 0; a < kept.length; a++)
+	    kept[a] = first + a;
+
+	restrictActions(player, kept);
+    }
+
+
+    /**
+     * Reorders the players, so that player i becomes the player
+     * who was order[i].
+     *
+     * @param order the old number of each player
+     */
+    public void permutePlayers(int[] order)
+	throws Exception
+    {
+	if (order.length != players.length)
+	    throw new IllegalArgumentException("Permutation has the wrong " +
+					       "number of players");
+
+	boolean[] used = new boolean[order.length];
+	int[] newPlayers = new int[order.length];
+	int[][] newActions = new int[order.length][];
+
+	for (int i = 0; i < order.length; i++) {
+	    if (order[i] < 0 || order[i] >= order.length || used[order[i]])
+		throw new IllegalArgumentException("Not a permutation");
+	    used[order[i]] = true;
+	    newPlayers[i] = players[order[i]];
+	    newActions[i] = actions[order[i]];
+	}
+
+	int[] shown = new int[order.length];
+	for (int i = 0; i < order.length; i++)
+	    shown[i] = order[i] + 1;
+	changes.append("Players reordered as " + listToString(shown) + "\n");
+
+	players = newPlayers;
+	actions = newActions;
+	update();
+    }
+
+
+    /**
+     * Fixes the action of a player and removes the player, so that
+     * the players after it move down by one.
+     *
+     * @param player the player
+     * @param action the action it always plays
+     */
+    public void fixAction(int player, int action)
+	throws Exception
+    {
+	if (players.length == 1)
+	    throw new IllegalArgumentException("Cannot remove the last player");
+	if (action < 1 || action > actions[player].length)
+	    throw new IndexOutOfBoundsException("Player " + (player + 1) +
+						" has no action " + action);
+
+	gameOutcome[players[player]] = actions[player][action - 1];
+
+	int[] newPlayers = new int[players.length - 1];
+	int[][] newActions = new int[players.length - 1][];
+	for (int i = 0, j = 0; i < players.length; i++)
+	    if (i != player) {
+		newPlayers[j] = players[i];
+		newActions[j++] = actions[i];
+	    }
+
+	changes.append("Player " + (player + 1) + " fixed at action " + 
+		       action + "\n");
+	players = newPlayers;
+	actions = newActions;
+	update();
+    }
+
+
+    /**
+     * Applies restrictions written as a list separated by spaces, 
+     * for instance "1:2-4 2:1,3,5 3=2".  "p:..." restricts player p
+     * to the actions and ranges of actions listed, and "p=a" fixes
+     * player p at action a.  Players are numbered from 1 here, as 
+     * they are in the game before any restriction; all players are
+     * restricted before any is fixed.
+     *
+     * @param spec the restrictions
+     */
+    public void restrict(String spec)
+	throws Exception
+    {
+	int n = players.length;
+	int[] fixed = new int[n];
+
+	StringTokenizer st = new StringTokenizer(spec);
+	while (st.hasMoreTokens()) {
+	    String item = st.nextToken();
+	    int sep = item.indexOf(':');
+	    if (sep < 0)
+		sep = item.indexOf('=');
+	    if (sep < 1)
+		throw new Exception("Bad restriction: " + item);
+
+	    int player = Integer.parseInt(item.substring(0, sep)) - 1;
+	    if (player < 0 || player >= n)
+		throw new Exception("Bad player in restriction: " + item);
+
+	    String rest = item.substring(sep + 1);
+	    if (item.charAt(sep) == '=') {
+		fixed[player] = Integer.parseInt(rest);
+		continue;
+	    }
+
+	    Vector kept = new Vector();
+	    StringTokenizer parts = new StringTokenizer(rest, ",");
+	    while (parts.hasMoreTokens()) {
+		String part = parts.nextToken();
+		int dash = part.indexOf('-', 1);
+		int first = Integer.parseInt(dash < 0 ? part : part.substring(0, dash));
+		int last = (dash < 0 ? first : Integer.parseInt(part.substring(dash + 1)));
+		for (int a = first; a <= last; a++)
+		    kept.add(new Integer(a));
+	    }
+
+	    int[] list = new int[kept.size()];
+	    for (int a = 0; a < list.length; a++)
+		list[a] = ((Integer) kept.get(a)).intValue();
+	    restrictActions(player, list);
+	}
+
+	// -- from the last player down, so the numbers stay right
+	for (int i = n - 1; i >= 0; i--)
+	    if (fixed[i] != 0)
+		fixAction(i, fixed[i]);
+    }
+
+
+    private void update()
+	throws Exception
+    {
+	setNumPlayers(players.length);
+
+	int[] sizes = new int[players.length];
+	for (int i = 0; i < sizes.length; i++)
+	    sizes[i] = actions[i].length;
+	setNumActions(sizes);
+
+	setName("Restricted " + game.getName());
+	setDescription("Restriction of the game below\n" + changes + 
+		       game.getDescription());
+    }
+
+
+    private static String listToString(int[] list)
+    {
+	StringBuffer buff = new StringBuffer();
+	for (int i = 0; i < list.length; i++)
+	    buff.append(i > 0 ? "," : "").append(list[i]);
+	return buff.toString();
+    }
+
+
+    /**
+     * Returns the outcome of the game for an outcome of the view.
+     * A new array each time, so payoffs can be looked up from 
+     * several threads.
+     */
+    private int[] toGameOutcome(int[] outcome)
+    {
+	int[] result = (int[]) gameOutcome.clone();
+	for (int i = 0; i < players.length; i++)
+	    result[players[i]] = actions[i][outcome[i] - 1];
+	return result;
+    }
+
+
+    public double getPayoff(int[] outcome, int player)
+    {
+	return game.getPayoff(toGameOutcome(outcome), players[player]);
+    }
+
+
+    /**
+     * Returns all payoffs at once, so that the underlying game 
+     * can find them together.
+     */
+    public Vector getPayoff(int[] outcome)
+    {
+	Vector all = game.getPayoff(toGameOutcome(outcome));
+
+	Vector payoffVector = new Vector(players.length);
+	for (int i = 0; i < players.length; i++)
+	    payoffVector.add(all.get(players[i]));
+
+	return payoffVector;
+    }
+
+
+    /**
+     * Returns a view of a player's payoffs in the underlying game,
+     * restricted in the same way, if that game is a MatrixGame.
+     * Otherwise returns null.
+     *
+     * @param player the player whose payoffs should be returned
+     */
+    public DoubleTensor getPayoffTensor(int player)
+    {
+	if (!(game instanceof MatrixGame))
+	    return null;
+
+	DoubleTensor t = ((MatrixGame) game).getPayoffTensor(players[player]);
+
+	// -- restrict the players still in the game, then fix the
+	// -- others from the last down so the dimensions stay put
+	int n = game.getNumPlayers();
+	boolean[] kept = new boolean[n];
+	for (int i = 0; i < players.length; i++) {
+	    kept[players[i]] = true;
+	    t = t.restrict(players[i], actions[i]);
+	}
+
+	for (int p = n - 1; p >= 0; p--)
+	    if (!kept[p])
+		t = t.fix(p, gameOutcome[p]);
+
+	// -- the remaining dimensions are in the game's order
+	int[] order = new int[players.length];
+	for (int i = 0; i < players.length; i++) {
+	    int dim = 0;
+	    for (int p = 0; p < players[i]; p++)
+		if (kept[p])
+		    dim++;
+	    order[i] = dim;
+	}
+
+	return t.permute(order);
+    }
+
+
+    /**
+     * Zero-sum and constant-sum games stay so while two players
+     * remain; common payoff always does.
+     */
+    public int getPayoffStructure()
+    {
+	int structure = game.getPayoffStructure();
+
+	if ((structure == ZERO_SUM || structure == CONSTANT_SUM) && 
+	    players.length != 2)
+	    return GENERAL;
+
+	return structure;
+    }
+
+
+    public double getConstantSum()
+    {
+	return game.getConstantSum();
+    }
+
+
+    /**
+     * Normalizes by the range of the whole game, so that payoffs
+     * match those written for the unrestricted game.
+     */
+    public void setNormMinAndMax()
+    {
+	if (!game.minAndMaxSet)
+	    game.setNormMinAndMax();
+
+	oldMin = game.oldMin;
+	oldMax = game.oldMax;
+	minAndMaxSet = true;
+    }
+
+
+    protected void checkParameters() throws Exception 
+    {
+    }
+
+
+    public void randomizeParameters() 
+    {
+    }
+
+
+    protected String getGameHelp()
+    {
+	return "A view of a generated game with some players restricted " +
+	    "to some of their actions, reordered or fixed.";
+    }
+
+
+    /**
+     * The underlying game has already been generated.
+     */
+    public void doGenerate()
+    {
+    }
+}
@@ -17,6 +17,7 @@
 package edu.stanford.multiagent.gamer;
 
 import java.io.*;
+import java.util.*;
 
 /**
  * A very simple outputter, mostly for development purposes.
@@ -38,8 +39,12 @@ public class SimpleOutput extends GameOutput
 	    {
 		out.print(o + " :\t[ ");
 
+		// -- all payoffs at once, for games which can do
+		// -- that faster than one at a time
+		Vector payoffs = g.getPayoff(o.getOutcome());
+
 		for(int i=0; i<g.getNumPlayers(); i++)
-		    out.print(g.getOutputPayoff(o.getOutcome(), i) + " ");
+		    out.print(g.getOutputPayoff(((Double)payoffs.get(i)).doubleValue()) + " ");
 		out.println("]");
 	    }
 
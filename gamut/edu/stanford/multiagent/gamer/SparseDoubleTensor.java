@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+/**
+ * A DoubleTensor for tensors in which most values are the same.
+ * Only the values which differ from the default are stored, in
+ * order of their position in the tensor, so that memory and 
+ * output grow with the number of exceptions rather than the size
+ * of the tensor.
+ * <p>
+ * Games keep their payoffs in dense tensors, whose values array
+ * generators fill directly; this form is only built for output,
+ * by Game.getSparsePayoffTensors().  Its getValues() returns a 
+ * copy.
+ */
+
+public class SparseDoubleTensor extends DoubleTensor {
+
+    private double defaultValue;
+
+    // -- the positions of the exceptions, in increasing order,
+    // -- and their values
+    private int[] positions;
+    private double[] entries;
+    private int numEntries;
+
+
+    /**
+     * Constructs a tensor holding the default value everywhere.
+     *
+     * @param dimSize an array holding the size of the tensor 
+     * in each dimension.
+     * @param defaultValue the value of every element
+     */
+    public SparseDoubleTensor(int[] dimSize, double defaultValue) {
+	super(dimSize, null);
+
+	this.defaultValue = defaultValue;
+	positions = new int[16];
+	entries = new double[16];
+	numEntries = 0;
+    }
+
+
+    /**
+     * Constructs a sparse copy of a tensor, with its most common 
+     * value as the default.
+     *
+     * @param t the tensor to copy
+     */
+    public SparseDoubleTensor(DoubleTensor t) {
+	this(t.getSizeOfDim(), 0);
+
+	double[] values = t.getValues();
+	int start = t.getOffset();
+	int end = start + t.getSize();
+
+	defaultValue = findDefault(values, start, end);
+
+	int count = 0;
+	for (int i = start; i < end; i++)
+	    if (!same(values[i], defaultValue))
+		count++;
+
+	positions = new int[Math.max(count, 1)];
+	entries = new double[positions.length];
+
+	for (int i = start; i < end; i++)
+	    if (!same(values[i], defaultValue)) {
+		positions[numEntries] = i - start;
+		entries[numEntries++] = values[i];
+	    }
+    }
+
+
+    /**
+     * Returns the value held by more than half the elements in 
+     * part of an array, or if there is none, some other value
+     * from it.
+     */
+    public static double findDefault(double[] values, int start, int end) {
+	// -- majority vote, in one pass and no extra space
+	double candidate = 0;
+	int votes = 0;
+
+	for (int i = start; i < end; i++) {
+	    if (votes == 0) {
+		candidate = values[i];
+		votes = 1;
+	    } else if (same(values[i], candidate))
+		votes++;
+	    else
+		votes--;
+	}
+
+	return candidate;
+    }
+
+
+    /**
+     * Values are the same if they are equal and of the same sign,
+     * so that -0.0 is not taken for 0.0.
+     */
+    private static boolean same(double a, double b) {
+	return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+
+
+    /**
+     * Returns where a position is among the exceptions, or
+     * -(insertion point + 1) if it is not one.
+     */
+    private int find(int pos) {
+	int low = 0, high = numEntries - 1;
+
+	while (low <= high) {
+	    int mid = (low + high) >>> 1;
+	    if (positions[mid] < pos)
+		low = mid + 1;
+	    else if (positions[mid] > pos)
+		high = mid - 1;
+	    else
+		return mid;
+	}
+
+	return -(low + 1);
+    }
+
+
+    public void setValue(double value, int[] indices) {
+	setValueAt(value, translateIndices(indices));
+    }
+
+
+    protected void setValueAt(double value, int pos) {
+	int k = find(pos);
+
+	if (k >= 0) {
+	    if (same(value, defaultValue)) {
+		System.arraycopy(positions, k + 1, positions, k, numEntries - k - 1);
+		System.arraycopy(entries, k + 1, entries, k, numEntries - k - 1);
+		numEntries--;
+	    } else
+		entries[k] = value;
+	    return;
+	}
+
+	if (same(value, defaultValue))
+	    return;
+
+	k = -(k + 1);
+	if (numEntries == positions.length)
+	    grow();
+
+	System.arraycopy(positions, k, positions, k + 1, numEntries - k);
+	System.arraycopy(entries, k, entries, k + 1, numEntries - k);
+	positions[k] = pos;
+	entries[k] = value;
+	numEntries++;
+    }
+
+
+    private void grow() {
+	int[] newPositions = new int[2 * numEntries];
+	double[] newEntries = new double[2 * numEntries];
+	System.arraycopy(positions, 0, newPositions, 0, numEntries);
+	System.arraycopy(entries, 0, newEntries, 0, numEntries);
+	positions = newPositions;
+	entries = newEntries;
+    }
+
+
+    protected double getValueAt(int position) {
+	int k = find(position);
+	return (k >= 0 ? entries[k] : defaultValue);
+    }
+
+
+    public double getValue(int[] indices) {
+	return getValueAt(translateIndices(indices));
+    }
+
+
+    /**
+     * Returns the values in a new dense array, since they are not
+     * stored that way.  Changing the array does not change the
+     * tensor.
+     */
+    public double[] getValues() {
+	double[] values = new double[getSize()];
+	java.util.Arrays.fill(values, defaultValue);
+
+	for (int k = 0; k < numEntries; k++)
+	    values[positions[k]] = entries[k];
+
+	return values;
+    }
+
+
+    public double getDefaultValue() {
+	return defaultValue;
+    }
+
+
+    /**
+     * Returns the number of values which differ from the default.
+     */
+    public int getNumEntries() {
+	return numEntries;
+    }
+
+
+    /**
+     * Returns the position of the k-th exception, as would be 
+     * returned by getIndex().
+     */
+    public int getEntryPosition(int k) {
+	return positions[k];
+    }
+
+
+    public double getEntryValue(int k) {
+	return entries[k];
+    }
+
+
+    /**
+     * Adds an exception after all the others.  Used to build a 
+     * tensor in order without searching.
+     *
+     * @param pos the position, which must be after all others
+     * @param value the value, which must differ from the default
+     */
+    void appendEntry(int pos, double value) {
+	if (numEntries == positions.length)
+	    grow();
+
+	positions[numEntries] = pos;
+	entries[numEntries++] = value;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer;
+
+import java.io.*;
+
+/**
+ * Writes the payoffs of each player as a default payoff and the
+ * outcomes at which the payoff differs from it, so that games 
+ * which mostly repeat one payoff are written compactly.  After a
+ * header giving the numbers of players and actions, each player 
+ * has a line "player p default v", followed by one line for each 
+ * other payoff with the actions of all players and the payoff.
+ * <p>
+ * The header ends with the structure of the payoffs: "general", 
+ * "zero_sum", "constant_sum" followed by the sum, or 
+ * "common_payoff".  Unless it is general, only the first player's
+ * payoffs are written, since the others follow from them.
+ */
+
+public class SparseOutput extends GameOutput
+{
+
+    // -- the name of each payoff structure, as numbered in Game
+    private static final String[] STRUCTURE_NAMES = 
+	{"general", "zero_sum", "constant_sum", "common_payoff"};
+
+    public void writeGame(PrintWriter out, Game g)
+	throws Exception
+    {
+	out.println(commentString(GAMER_STRING, "# "));
+
+	out.println(commentString(g.getDescription(), "# "));
+
+	int players = g.getNumPlayers();
+	int structure = getOutputStructure(g);
+	SparseDoubleTensor[] payoffs = 
+	    g.getSparsePayoffTensors(structure == Game.GENERAL ? players : 1);
+
+	out.println("players " + players);
+
+	StringBuffer buff = new StringBuffer("actions");
+	for (int i = 0; i < players; i++)
+	    buff.append(" ").append(g.getNumActions(i));
+	out.println(buff.toString());
+
+	buff = new StringBuffer("structure ");
+	buff.append(STRUCTURE_NAMES[structure]);
+	if (structure == Game.CONSTANT_SUM)
+	    buff.append(" ").append(getOutputConstantSum(g));
+	out.println(buff.toString());
+
+	int[] strides = getStrides(g.getNumActions());
+
+	for (int i = 0; i < payoffs.length; i++) {
+	    SparseDoubleTensor t = payoffs[i];
+
+	    out.println("player " + (i + 1) + " default " + 
+			g.getOutputPayoff(t.getDefaultValue()));
+
+	    for (int k = 0; k < t.getNumEntries(); k++) {
+		buff = new StringBuffer();
+		int pos = t.getEntryPosition(k);
+		for (int j = 0; j < players; j++) {
+		    buff.append(pos / strides[j] + 1).append(" ");
+		    pos %= strides[j];
+		}
+		buff.append(": ").append(g.getOutputPayoff(t.getEntryValue(k)));
+		out.println(buff.toString());
+	    }
+	}
+
+	out.flush();
+    }
+
+
+    /**
+     * Returns the distance between outcomes which differ by one
+     * in each player's action, in the order of tensor positions.
+     */
+    static int[] getStrides(int[] actions)
+    {
+	int[] strides = new int[actions.length];
+	int stride = 1;
+	for (int i = actions.length - 1; i >= 0; i--) {
+	    strides[i] = stride;
+	    stride *= actions[i];
+	}
+
+	return strides;
+    }
+}
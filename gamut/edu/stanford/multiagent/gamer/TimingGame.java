@@ -185,7 +185,7 @@ public abstract class TimingGame extends Game
 	int players = getNumPlayers();
 
 	lowPlayerParams = new TimingGameParams[players];
-	notLowParams = new TimingGameParams[players];
+	notLowestParams = new TimingGameParams[players];
 	tiedForLowParams = null;
 
 	for (int i = 0; i < players; i++) {
@@ -269,5 +269,61 @@ public abstract class TimingGame extends Game
     }
 
 
+
+    /**
+     * Returns the payoffs of all players at once.  The lowest 
+     * time and the number of players who chose it are found once
+     * for the outcome, so that each payoff then takes constant
+     * time.
+     *
+     * @param outcome an array holding the actions of each player
+     */
+    public Vector getPayoff(int[] outcome)
+    {
+	int players = getNumPlayers();
+
+	int lowestTime = outcome[0];
+	int lowCount = 0;
+	for (int i = 0; i < players; i++)
+	    if (outcome[i] < lowestTime) {
+		lowestTime = outcome[i];
+		lowCount = 1;
+	    } else if (outcome[i] == lowestTime)
+		lowCount++;
+
+	// Without ties, only the first of several players with
+	// the lowest time ends the game
+	int firstLow = -1;
+	if (!allowsTies && lowCount > 1) {
+	    firstLow = 0;
+	    while (outcome[firstLow] != lowestTime)
+		firstLow++;
+	}
+
+	Vector payoffs = new Vector(players);
+
+	for (int i = 0; i < players; i++) {
+	    TimingGameParams params;
+
+	    if (outcome[i] != lowestTime)
+		params = notLowestParams[i];
+	    else if (lowCount == 1)
+		params = lowPlayerParams[i];
+	    else if (allowsTies)
+		params = tiedForLowParams[i];
+	    else if (i == firstLow)
+		params = lowPlayerParams[i];
+	    else
+		params = notLowestParams[i];
+
+	    payoffs.add(new Double(params.getMultYourTime() * outcome[i] +
+				   params.getMultLowTime() * lowestTime +
+				   params.getAdditional()));
+	}
+
+	return payoffs;
+    }
+
+
 }
 
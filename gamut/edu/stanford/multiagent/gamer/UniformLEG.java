@@ -90,6 +90,7 @@ public class UniformLEG extends RandomLEG
 
 	// Generate the graph for the game.
 	graph.doGenerate();
+	graph.freeze();
 
 	setDescription(getDescription() + "\nGraph Params:\n" + graph.getDescription());
 
@@ -145,5 +146,7 @@ public class UniformLEG extends RandomLEG
 		edge.setData(fEdge);
 	    }
 	}
+
+	tabulateFunctions();
     }
 }
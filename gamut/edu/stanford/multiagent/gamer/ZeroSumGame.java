@@ -16,6 +16,8 @@
 
 package edu.stanford.multiagent.gamer;
 
+import java.util.*;
+
 /**
  * Abstract class used for representing a two-player zero-sum 
  * game. Implemented in a similar manner to MatrixGame 
@@ -72,6 +74,48 @@ public abstract class ZeroSumGame extends Game
     }
 
 
+
+    /**
+     * Returns both payoffs at once, looking the outcome up only
+     * once.
+     */
+    public Vector getPayoff(int[] outcome) {
+	double payoff = payoffs[outcome[0] - 1][outcome[1] - 1];
+
+	Vector payoffVector = new Vector(2);
+	payoffVector.add(new Double(payoff));
+	payoffVector.add(new Double(-payoff));
+
+	return payoffVector;
+    }
+
+
+
+    public int getPayoffStructure() {
+	return ZERO_SUM;
+    }
+
+
+
+    /**
+     * Finds the range for normalization from the one stored 
+     * matrix.
+     */
+    public void setNormMinAndMax() {
+	double min = payoffs[0][0], max = payoffs[0][0];
+
+	for (int i = 0; i < payoffs.length; i++)
+	    for (int j = 0; j < payoffs[i].length; j++) {
+		if (payoffs[i][j] > max)
+		    max = payoffs[i][j];
+		else if (payoffs[i][j] < min)
+		    min = payoffs[i][j];
+	    }
+
+	setNormMinAndMax(min, max);
+    }
+
+
     
     /**
      * Set the payoff for the first player at the given outcome.
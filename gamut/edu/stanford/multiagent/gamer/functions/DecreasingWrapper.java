@@ -136,6 +136,19 @@ public class DecreasingWrapper extends Function
 	return - fBase.eval(x) + add;
     }
 
+
+    /**
+     * Evaluates the base function at all the points in one call,
+     * then negates and shifts the results.
+     */
+    public void evalMany(double[] xs, double[] out, int from, int to)
+    {
+	fBase.evalMany(xs, out, from, to);
+
+	for(int i=from; i<to; i++)
+	    out[i] = - out[i] + add;
+    }
+
     public String getDescription()
     {
 	StringBuffer buff=new StringBuffer();
@@ -97,5 +97,19 @@ public class ExpFunction extends Function
 	return exp;
     }
 
+
+    /**
+     * Evaluates the function at many points, looking up the
+     * parameters only once.
+     */
+    public void evalMany(double[] xs, double[] out, int from, int to)
+    {
+	double alpha = (double) getDoubleParameter(pAlpha.name);
+	double beta = (double) getDoubleParameter(pBeta.name);
+
+	for (int i = from; i < to; i++)
+	    out[i] = Math.exp(alpha * xs[i]) + beta;
+    }
+
 }
 
@@ -0,0 +1,465 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer.functions;
+
+import java.util.*;
+import edu.stanford.multiagent.gamer.*;
+
+
+/**
+ * Implements a function given by a formula in x, such as
+ * "75 - 3*x + 0.1*x^2".  The formula is parsed once into a tree
+ * of operations, and any part of it that does not depend on x is
+ * folded into a constant, so that evaluating it costs about as
+ * much as a hand-written function.
+ */
+
+public class ExpressionFunction extends Function
+{
+
+    // Parameters: the formula
+    private static Parameters.ParamInfo pExpr;
+    private static Parameters.ParamInfo[] exprParams;
+
+    static {
+
+	pExpr = new Parameters.ParamInfo("expr", Parameters.ParamInfo.STRING_PARAM, null, null, "formula in x, in quotes.  May use numbers, x, pi, e, + - * / ^, parentheses and the functions abs, sqrt, exp, log, min and max.  Should not begin with a minus sign; write (-x) instead.");
+
+	exprParams = new Parameters.ParamInfo[] {pExpr};
+	Global.registerParams(ExpressionFunction.class, exprParams);
+    }
+
+    // --------------------------------------------------
+
+    protected String getFunctionHelp()
+    {
+	return "ExpressionFunction: A function given by a formula in x.";
+    }
+
+
+    // -- the compiled formula
+    private Node root;
+
+
+    public ExpressionFunction()
+	throws Exception
+    {
+	super();
+    }
+
+
+    public void initialize()
+	throws Exception
+    {
+	super.initialize();
+    }
+
+
+    /**
+     * Compiles the formula, so that errors in it are reported
+     * along with the other parameter errors.
+     */
+    protected void checkParameters()
+	throws Exception
+    {
+	root = new Parser(getStringParameter(pExpr.name)).parse();
+    }
+
+
+    /**
+     * The formula is compiled when the parameters are checked,
+     * so there is nothing left to generate.
+     */
+    public void doGenerate()
+    {
+    }
+
+
+    public double eval(double x)
+    {
+	return root.eval(x);
+    }
+
+
+    /**
+     * Evaluates the formula at many points.
+     */
+    public void evalMany(double[] xs, double[] out, int from, int to)
+    {
+	Node r = root;
+
+	if (r instanceof Const) {
+	    Arrays.fill(out, from, to, ((Const) r).value);
+	    return;
+	}
+
+	for (int i = from; i < to; i++)
+	    out[i] = r.eval(xs[i]);
+    }
+
+
+
+    // --------------------------------------------------
+    // -- The compiled form: a tree of operations
+
+
+    private static abstract class Node
+    {
+	abstract double eval(double x);
+    }
+
+    private static final class Const extends Node
+    {
+	final double value;
+	Const(double value) { this.value = value; }
+	double eval(double x) { return value; }
+    }
+
+    private static final class Var extends Node
+    {
+	double eval(double x) { return x; }
+    }
+
+    private static final class Neg extends Node
+    {
+	final Node a;
+	Neg(Node a) { this.a = a; }
+	double eval(double x) { return -a.eval(x); }
+    }
+
+    private static final class Add extends Node
+    {
+	final Node a, b;
+	Add(Node a, Node b) { this.a = a; this.b = b; }
+	double eval(double x) { return a.eval(x) + b.eval(x); }
+    }
+
+    private static final class Sub extends Node
+    {
+	final Node a, b;
+	Sub(Node a, Node b) { this.a = a; this.b = b; }
+	double eval(double x) { return a.eval(x) - b.eval(x); }
+    }
+
+    private static final class Mul extends Node
+    {
+	final Node a, b;
+	Mul(Node a, Node b) { this.a = a; this.b = b; }
+	double eval(double x) { return a.eval(x) * b.eval(x); }
+    }
+
+    // -- multiplication by a constant, the commonest case
+    private static final class Scale extends Node
+    {
+	final double c;
+	final Node a;
+	Scale(double c, Node a) { this.c = c; this.a = a; }
+	double eval(double x) { return c * a.eval(x); }
+    }
+
+    private static final class Div extends Node
+    {
+	final Node a, b;
+	Div(Node a, Node b) { this.a = a; this.b = b; }
+	double eval(double x) { return a.eval(x) / b.eval(x); }
+    }
+
+    private static final class Pow extends Node
+    {
+	final Node a, b;
+	Pow(Node a, Node b) { this.a = a; this.b = b; }
+	double eval(double x) { return Math.pow(a.eval(x), b.eval(x)); }
+    }
+
+    // -- a power with a small integer exponent, by repeated squaring
+    private static final class IntPow extends Node
+    {
+	final Node a;
+	final int n;
+	IntPow(Node a, int n) { this.a = a; this.n = n; }
+	double eval(double x) {
+	    double base = a.eval(x), val = 1;
+	    for (int k = n; k > 0; k >>= 1) {
+		if ((k & 1) != 0)
+		    val *= base;
+		base *= base;
+	    }
+	    return val;
+	}
+    }
+
+    private static final class Call extends Node
+    {
+	final int fn;
+	final Node a, b;
+	Call(int fn, Node a, Node b) { this.fn = fn; this.a = a; this.b = b; }
+	double eval(double x) {
+	    double u = a.eval(x);
+	    switch (fn) {
+	    case ABS:  return Math.abs(u);
+	    case SQRT: return Math.sqrt(u);
+	    case EXP:  return Math.exp(u);
+	    case LOG:  return Math.log(u);
+	    case MIN:  return Math.min(u, b.eval(x));
+	    default:   return Math.max(u, b.eval(x));
+	    }
+	}
+    }
+
+    private static final int ABS = 0, SQRT = 1, EXP = 2, LOG = 3,
+	MIN = 4, MAX = 5;
+
+    private static final String[] FUNCTIONS =
+	{"abs", "sqrt", "exp", "log", "min", "max"};
+
+
+    // -- Builders that fold constants as the tree is put together
+
+    private static Node fold(Node n)
+    {
+	if (n instanceof Const)
+	    return n;
+
+	boolean isConst = false;
+	if (n instanceof Neg)
+	    isConst = ((Neg) n).a instanceof Const;
+	else if (n instanceof Add)
+	    isConst = ((Add) n).a instanceof Const && ((Add) n).b instanceof Const;
+	else if (n instanceof Sub)
+	    isConst = ((Sub) n).a instanceof Const && ((Sub) n).b instanceof Const;
+	else if (n instanceof Mul)
+	    isConst = ((Mul) n).a instanceof Const && ((Mul) n).b instanceof Const;
+	else if (n instanceof Div)
+	    isConst = ((Div) n).a instanceof Const && ((Div) n).b instanceof Const;
+	else if (n instanceof Pow)
+	    isConst = ((Pow) n).a instanceof Const && ((Pow) n).b instanceof Const;
+	else if (n instanceof Call)
+	    isConst = ((Call) n).a instanceof Const &&
+		(((Call) n).b == null || ((Call) n).b instanceof Const);
+
+	if (isConst)
+	    return new Const(n.eval(0));
+
+	// -- specialize the common shapes
+	if (n instanceof Mul) {
+	    Mul m = (Mul) n;
+	    if (m.a instanceof Const)
+		return new Scale(((Const) m.a).value, m.b);
+	    if (m.b instanceof Const)
+		return new Scale(((Const) m.b).value, m.a);
+	}
+
+	if (n instanceof Pow && ((Pow) n).b instanceof Const) {
+	    double p = ((Const) ((Pow) n).b).value;
+	    if (p >= 1 && p <= 64 && p == Math.floor(p))
+		return new IntPow(((Pow) n).a, (int) p);
+	}
+
+	return n;
+    }
+
+
+    // --------------------------------------------------
+    // -- Recursive descent parser.  The grammar is
+    //
+    //   expr    := term (('+' | '-') term)*
+    //   term    := unary (('*' | '/') unary)*
+    //   unary   := ('+' | '-') unary | power
+    //   power   := primary ('^' unary)?
+    //   primary := number | x | pi | e | name '(' args ')' | '(' expr ')'
+    //
+    // so that ^ binds tighter than unary minus and to the right.
+
+    private static class Parser
+    {
+	private String s;
+	private int pos;
+
+	Parser(String s)
+	{
+	    this.s = s;
+	    this.pos = 0;
+	}
+
+	Node parse()
+	    throws Exception
+	{
+	    Node n = expr();
+	    skipSpace();
+	    if (pos < s.length())
+		throw error("unexpected '" + s.charAt(pos) + "'");
+	    return n;
+	}
+
+	private Exception error(String msg)
+	{
+	    return new Exception("Error in expression \"" + s + "\" at " +
+				 "position " + (pos + 1) + ": " + msg);
+	}
+
+	private void skipSpace()
+	{
+	    while (pos < s.length() && Character.isWhitespace(s.charAt(pos)))
+		pos++;
+	}
+
+	// -- consumes c if it is the next character
+	private boolean accept(char c)
+	{
+	    skipSpace();
+	    if (pos < s.length() && s.charAt(pos) == c) {
+		pos++;
+		return true;
+	    }
+	    return false;
+	}
+
+	private void expect(char c)
+	    throws Exception
+	{
+	    if (!accept(c))
+		throw error("expected '" + c + "'");
+	}
+
+	private Node expr()
+	    throws Exception
+	{
+	    Node n = term();
+	    while (true) {
+		if (accept('+'))
+		    n = fold(new Add(n, term()));
+		else if (accept('-'))
+		    n = fold(new Sub(n, term()));
+		else
+		    return n;
+	    }
+	}
+
+	private Node term()
+	    throws Exception
+	{
+	    Node n = unary();
+	    while (true) {
+		if (accept('*'))
+		    n = fold(new Mul(n, unary()));
+		else if (accept('/'))
+		    n = fold(new Div(n, unary()));
+		else
+		    return n;
+	    }
+	}
+
+	private Node unary()
+	    throws Exception
+	{
+	    if (accept('-'))
+		return fold(new Neg(unary()));
+	    if (accept('+'))
+		return unary();
+	    return power();
+	}
+
+	private Node power()
+	    throws Exception
+	{
+	    Node n = primary();
+	    if (accept('^'))
+		n = fold(new Pow(n, unary()));
+	    return n;
+	}
+
+	private Node primary()
+	    throws Exception
+	{
+	    skipSpace();
+	    if (pos >= s.length())
+		throw error("unexpected end");
+
+	    char c = s.charAt(pos);
+
+	    if (c == '(') {
+		pos++;
+		Node n = expr();
+		expect(')');
+		return n;
+	    }
+
+	    if (Character.isDigit(c) || c == '.')
+		return number();
+
+	    if (Character.isLetter(c)) {
+		int start = pos;
+		while (pos < s.length() && Character.isLetterOrDigit(s.charAt(pos)))
+		    pos++;
+		String name = s.substring(start, pos).toLowerCase();
+
+		if (name.equals("x"))
+		    return new Var();
+		if (name.equals("pi"))
+		    return new Const(Math.PI);
+		if (name.equals("e"))
+		    return new Const(Math.E);
+
+		for (int f = 0; f < FUNCTIONS.length; f++)
+		    if (name.equals(FUNCTIONS[f])) {
+			expect('(');
+			Node a = expr();
+			Node b = null;
+			if (f == MIN || f == MAX) {
+			    expect(',');
+			    b = expr();
+			}
+			expect(')');
+			return fold(new Call(f, a, b));
+		    }
+
+		pos = start;
+		throw error("unknown name " + name);
+	    }
+
+	    throw error("unexpected '" + c + "'");
+	}
+
+	private Node number()
+	    throws Exception
+	{
+	    int start = pos;
+	    while (pos < s.length() &&
+		   (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.'))
+		pos++;
+
+	    // -- exponent, as in 1.5e-3
+	    if (pos < s.length() && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+		int save = pos++;
+		if (pos < s.length() && (s.charAt(pos) == '+' || s.charAt(pos) == '-'))
+		    pos++;
+		if (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+		    while (pos < s.length() && Character.isDigit(s.charAt(pos)))
+			pos++;
+		} else
+		    pos = save;
+	    }
+
+	    try {
+		return new Const(Double.parseDouble(s.substring(start, pos)));
+	    } catch (NumberFormatException e) {
+		pos = start;
+		throw error("bad number");
+	    }
+	}
+    }
+}
@@ -62,6 +62,47 @@ public abstract class Function extends ParameterizedObject
     public abstract double eval(double x);
 
 
+    /**
+     * Evaluates the function at many points at once.  Sets
+     * out[i] to eval(xs[i]) for every i from <code>from</code> up 
+     * to but not including <code>to</code>.  Subclasses override 
+     * this with a loop that looks up parameters once for all the
+     * points, and must return exactly the values eval() would.
+     *
+     * @param xs the points at which to evaluate the function
+     * @param out the array to store the values in
+     * @param from the first index to evaluate
+     * @param to one past the last index to evaluate
+     */
+    public void evalMany(double[] xs, double[] out, int from, int to)
+    {
+	for (int i = from; i < to; i++)
+	    out[i] = eval(xs[i]);
+    }
+
+
+    /**
+     * Evaluates the function at every integer from lo to hi with
+     * one call to evalMany().  The array returned is indexed by
+     * the integer itself, so that element x holds eval(x); the
+     * elements below lo are left at 0.
+     *
+     * @param lo the smallest integer to evaluate at
+     * @param hi the largest integer to evaluate at
+     */
+    public double[] tabulate(int lo, int hi)
+    {
+	double[] xs = new double[hi + 1];
+	double[] out = new double[hi + 1];
+	for (int x = lo; x <= hi; x++)
+	    xs[x] = x;
+
+	evalMany(xs, out, lo, hi + 1);
+
+	return out;
+    }
+
+
     /**
      * Calls initialize in the super class ParemeterizedObject which 
      * checks parameters
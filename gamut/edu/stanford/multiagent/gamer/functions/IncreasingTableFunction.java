@@ -58,20 +58,32 @@ public class IncreasingTableFunction extends TableFunction
   }
   
 
-  // -- Convert a derivative into a function
+  // -- Convert a derivative into a function.  Works in place:
+  // -- the derivative array becomes the table.
   protected void intAndNorm(double[] deriv)
   {
     double min = getDoubleParameter(pMin.name);
     double max = getDoubleParameter(pMax.name);
     int nPoints=(int)getLongParameter(pPoints.name);
 
+    // -- The table is the running sum of the derivative read
+    // -- backwards, so reverse it and sum in place
+    table = deriv;
+    for(int i=0, j=nPoints-1; i<j; i++, j--)
+      {
+	double t = table[i];
+	table[i] = table[j];
+	table[j] = t;
+      }
+
     // -- Generate unnormalized points
-    table = new double[nPoints];
-    table[0] = 0;
+    double sum = 0;
     double tMin=0, tMax=0;
-    for(int i=1; i<table.length; i++)
+    for(int i=0; i<table.length; i++)
       {
-	table[i] = table[i-1] + deriv[nPoints - i];
+	double d = table[i];
+	table[i] = sum;
+	sum += d;
 
 	if(table[i] < tMin)
 	  tMin = table[i];
@@ -89,23 +101,57 @@ public class IncreasingTableFunction extends TableFunction
   }
 
 
-  // -- Recusively generate increasing function
+  // -- Generate increasing function by splitting the interval at
+  // -- a random point and then splitting each side the same way,
+  // -- left side first.  Uses an explicit stack of the intervals
+  // -- still to be split, so that long tables cannot overflow the
+  // -- call stack, and draws the same random numbers in the same 
+  // -- order as splitting recursively would.
   protected void recGenerate(int minIdx, int maxIdx, double min, double max)
   {
     // -- assume boundary elements are set
-    
-    // -- base case
-    if(maxIdx - minIdx <=1)
-      return; //-- nothing to do
-    
-    // -- otherwise
-    int idx = Global.randomInt(minIdx+1, maxIdx-1);
-    table[idx] = Global.randomDouble(min, max);
-
-    // -- left
-    recGenerate(minIdx, idx, min, table[idx]);
-    // --right
-    recGenerate(idx, maxIdx, table[idx], max);
+
+    int[] loIdx = new int[64], hiIdx = new int[64];
+    double[] loVal = new double[64], hiVal = new double[64];
+    int top = 1;
+
+    loIdx[0] = minIdx; hiIdx[0] = maxIdx;
+    loVal[0] = min;    hiVal[0] = max;
+
+    while(top > 0)
+      {
+	top--;
+	int a = loIdx[top], b = hiIdx[top];
+	double va = loVal[top], vb = hiVal[top];
+
+	if(b - a <= 1)
+	  continue; //-- nothing to do
+
+	int idx = Global.randomInt(a+1, b-1);
+	double v = Global.randomDouble(va, vb);
+	table[idx] = v;
+
+	if(top + 2 > loIdx.length)
+	  {
+	    int n = loIdx.length * 2;
+	    int[] ti = new int[n];
+	    System.arraycopy(loIdx, 0, ti, 0, top); loIdx = ti;
+	    ti = new int[n];
+	    System.arraycopy(hiIdx, 0, ti, 0, top); hiIdx = ti;
+	    double[] td = new double[n];
+	    System.arraycopy(loVal, 0, td, 0, top); loVal = td;
+	    td = new double[n];
+	    System.arraycopy(hiVal, 0, td, 0, top); hiVal = td;
+	  }
+
+	// -- push the right side first, so the left is split next
+	loIdx[top] = idx; hiIdx[top] = b;
+	loVal[top] = v;   hiVal[top] = vb;
+	top++;
+	loIdx[top] = a;   hiIdx[top] = idx;
+	loVal[top] = va;  hiVal[top] = v;
+	top++;
+      }
   }
 
   // -- generate the table
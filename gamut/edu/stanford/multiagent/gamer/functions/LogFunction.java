@@ -101,5 +101,20 @@ public class LogFunction extends Function
 	return log;
     }
 
+
+    /**
+     * Evaluates the function at many points, looking up the
+     * parameters only once.
+     */
+    public void evalMany(double[] xs, double[] out, int from, int to)
+    {
+	double alpha = (double) getDoubleParameter(pAlpha.name);
+	double beta = (double) getDoubleParameter(pBeta.name);
+	double s = shift;
+
+	for (int i = from; i < to; i++)
+	    out[i] = alpha * Math.log(xs[i] + s) + beta;
+    }
+
 }
 
@@ -26,10 +26,9 @@ import edu.stanford.multiagent.gamer.*;
 
 public class PolyFunction extends Function
 {
-    // -- Constants for minimization
-    protected static final double EPSILON = 0.00001;
-    protected static final int MAX_ITER = 100000;
-    protected static final int N_RESTARTS = 50;
+    // -- Relative tolerance for treating a turning point as a
+    // -- double root
+    protected static final double ROOT_TOL = 1e-12;
 
     // -- Parameters
 
@@ -133,6 +132,32 @@ public class PolyFunction extends Function
     }
 
 
+    /**
+     * Evaluates the polynomial at many points, with the same
+     * arithmetic as eval().
+     */
+    public void evalMany(double[] xs, double[] out, int from, int to)
+    {
+	double[] c=coefs;
+	double c0=c[0];
+
+	for(int i=from; i<to; i++)
+	    {
+		double x=xs[i];
+		double val=c0;
+		double y=x;
+
+		for(int j=1; j<c.length; j++)
+		    {
+			val+=c[j]*y;
+			y*=x;
+		    }
+
+		out[i]=val;
+	    }
+    }
+
+
     /**
      *Randomize things
      */
@@ -169,59 +194,49 @@ public class PolyFunction extends Function
     }
 
     /**
-     * Finds the minimum value of the function.
+     * Finds the minimum value of the function on its domain.
      * 
-     * Note that this is probably not the best way to go about it.
-     * Ideally, should be changed to a better algorithm later.
+     * The minimum is attained either at an end of the domain or
+     * at a root of the derivative, and the real roots are found
+     * exactly (up to machine precision) by findRoots(), so the 
+     * result does not depend on any random restarts.
      */
     public double getMinimum()
     {
+	double minval = Math.min(eval(dMin), eval(dMax));
 
-	PolyFunction deriv=null;
-	try {
-	    deriv=getDerivative();
-	} catch (Exception e) {
-	    Global.handleError(e, "Couldn't make derivative!");
-	}
-
-	Vector v = new Vector();
-	v.add(new Double(dMin));
-	v.add(new Double(dMax));
-
-	getMinima(dMin, dMax, deriv, v);
-
-	double minval = eval(dMin);
-
-	for(int i=0; i<v.size(); i++)
-	    {
-		double x = ((Double)v.get(i)).doubleValue();
-		double val=eval(x);
-		minval=Math.min(val, minval);
-	    }
+	double[] crit = findRoots(derivative(coefs), dMin, dMax);
+	for(int i=0; i<crit.length; i++)
+	    minval=Math.min(eval(crit[i]), minval);
 
 	return minval;
     }
 
     /**
-     * Appends all local minima in the specified interval to v.
+     * Appends all local minima in the interior of the specified 
+     * interval to v.
      */
     public void getMinima(double a, double b, PolyFunction deriv, Vector v)
     {
+	double[] crit = findRoots(deriv.coefs, a, b);
 
-	double x=getMinimum(a,b, deriv);
-
-	if( Math.abs(a-x) > EPSILON && Math.abs(b-x) > EPSILON )
+	// -- a critical point is a local minimum if the derivative
+	// -- goes from negative to positive across it
+	for(int i=0; i<crit.length; i++)
 	    {
-		v.add(new Double(x));
+		double left = (i == 0 ? a : crit[i-1]);
+		double right = (i == crit.length-1 ? b : crit[i+1]);
 
-		getMinima(x+EPSILON, b, deriv, v);
-		getMinima(a, x-EPSILON, deriv, v);
+		if(crit[i] > a && crit[i] < b &&
+		   deriv.eval((left+crit[i])/2) < 0 &&
+		   deriv.eval((crit[i]+right)/2) > 0)
+		    v.add(new Double(crit[i]));
 	    }
-
     }
 
     /**
-     * Does gradient descent to get a local minimum in an interval a,b.
+     * Returns the point at which the function is smallest in 
+     * an interval a,b.
      */
     public double getMinimum(double a, double b, PolyFunction deriv)
     {
@@ -233,44 +248,157 @@ public class PolyFunction extends Function
 		minVal=eval(a);
 	    }
 
-	int nIter=0;
-	double alpha=(b-a)/10000;
+	double[] crit = findRoots(deriv.coefs, a, b);
+	for(int i=0; i<crit.length; i++)
+	    if(eval(crit[i]) < minVal)
+		{
+		    min=crit[i];
+		    minVal=eval(crit[i]);
+		}
+
+	return min;
+    }
+
+    /**
+     * Returns the coefficients of the derivative of a polynomial.
+     */
+    protected static double[] derivative(double[] c)
+    {
+	if(c.length <= 1)
+	    return new double[] {0.0};
+
+	double[] d=new double[c.length-1];
+	for(int i=1; i<c.length; i++)
+	    d[i-1]=c[i]*i;
+
+	return d;
+    }
+
+    /**
+     * Evaluates a polynomial with the given coefficients.
+     */
+    protected static double evalCoefs(double[] c, double x)
+    {
+	double val=0;
+	for(int i=c.length-1; i>=0; i--)
+	    val=val*x + c[i];
+
+	return val;
+    }
+
+    /**
+     * Evaluates the sum of the absolute values of the terms of a
+     * polynomial, the scale against which rounding error in 
+     * evalCoefs() is measured.
+     */
+    protected static double evalAbs(double[] c, double x)
+    {
+	double val=0;
+	double ax=Math.abs(x);
+	for(int i=c.length-1; i>=0; i--)
+	    val=val*ax + Math.abs(c[i]);
+
+	return val;
+    }
+
+    /**
+     * Returns the real roots of a polynomial in the interval a,b 
+     * in increasing order.  The roots of the derivative split the
+     * interval into pieces on which the polynomial is monotone,
+     * so each piece holds at most one root, which is found by 
+     * bisection.  Roots of even multiplicity are found as roots 
+     * of the derivative.
+     *
+     * @param c coefficients, in the increasing order of degree
+     * @param a lower end of the interval
+     * @param b upper end of the interval
+     */
+    public static double[] findRoots(double[] c, double a, double b)
+    {
+	// -- drop leading zeros so the degree is exact
+	int deg=c.length-1;
+	while(deg > 0 && c[deg] == 0)
+	    deg--;
+
+	if(deg == 0 || a > b)
+	    return new double[0];
+
+	if(deg < c.length-1)
+	    {
+		double[] t=new double[deg+1];
+		System.arraycopy(c, 0, t, 0, deg+1);
+		c=t;
+	    }
+
+	if(deg == 1)
+	    {
+		double x=-c[0]/c[1];
+		return (x >= a && x <= b ? new double[] {x} : new double[0]);
+	    }
 
-	Random rand=new Random(System.currentTimeMillis());
+	// -- split the interval at the turning points
+	double[] turns=findRoots(derivative(c), a, b);
+	double[] ends=new double[turns.length+2];
+	ends[0]=a;
+	System.arraycopy(turns, 0, ends, 1, turns.length);
+	ends[ends.length-1]=b;
 
-	for(int n=0; n<N_RESTARTS; n++)
+	double[] roots=new double[ends.length];
+	int nRoots=0;
+
+	for(int i=0; i<ends.length-1; i++)
 	    {
-		double x;
-		double newx=a+(b-a)*rand.nextDouble();
-		
-		nIter=0;
-		
-		do    
+		double lo=ends[i], hi=ends[i+1];
+		double flo=evalCoefs(c, lo), fhi=evalCoefs(c, hi);
+
+		if(flo == 0)
+		    {
+			if(nRoots == 0 || roots[nRoots-1] != lo)
+			    roots[nRoots++]=lo;
+			continue;
+		    }
+
+		if(fhi == 0 || (flo < 0) == (fhi < 0))
+		    {
+			// -- no sign change, so the only root can be at the
+			// -- upper end, either exactly or as a turning point
+			// -- that touches zero
+			if(fhi == 0 || (i+1 < ends.length-1 && 
+			   Math.abs(fhi) <= ROOT_TOL * evalAbs(c, hi)))
+			    roots[nRoots++]=hi;
+			continue;
+		    }
+
+		// -- bisect until the interval cannot shrink any more
+		while(true)
 		    {
-			x=newx;
-			double xval=eval(x);
-			if(xval<minVal)
+			double mid=lo+(hi-lo)/2;
+			if(mid <= lo || mid >= hi)
+			    break;
+
+			double fmid=evalCoefs(c, mid);
+			if(fmid == 0)
 			    {
-				min=x;
-				minVal=xval;
+				lo=hi=mid;
+				break;
 			    }
-		     
-			newx=x-alpha*deriv.eval(x);
-			if(newx<a) newx=a;
-			if(newx>b) newx=b;
-		     
-			nIter++;
 
-		    } while (Math.abs(newx-x)>EPSILON && nIter <=MAX_ITER);
-
-		//if(nIter >= MAX_ITER)
-		    //System.err.println("WARNING: #iterations exceeded in PolyFunction");
+			if((fmid < 0) == (flo < 0))
+			    {
+				lo=mid;
+				flo=fmid;
+			    }
+			else
+			    hi=mid;
+		    }
 
-		if(eval(newx)<minVal)
-		    min=newx;
+		roots[nRoots++]=lo;
 	    }
 
-	return min;
+	double[] r=new double[nRoots];
+	System.arraycopy(roots, 0, r, 0, nRoots);
+
+	return r;
     }
 
     /**
@@ -34,6 +34,9 @@ public class TableFunction extends Function
     protected static Parameters.ParamInfo pMax;
     protected static Parameters.ParamInfo pPoints;
     protected static Parameters.ParamInfo[] tfParam;
+
+    // -- largest number of points picked when randomizing
+    protected static final long MAX_RANDOM_POINTS = 10000;
   
     static {
 
@@ -41,7 +44,7 @@ public class TableFunction extends Function
     
 	pMax = new Parameters.ParamInfo("max", Parameters.ParamInfo.DOUBLE_PARAM, new Double(-1000), new Double(1000), "maximum of the function", false, new Double(1));
     
-	pPoints = new Parameters.ParamInfo("points", Parameters.ParamInfo.LONG_PARAM, new Long(2), new Long(10000), "number of points in the table lookup",false, new Long(100));
+	pPoints = new Parameters.ParamInfo("points", Parameters.ParamInfo.LONG_PARAM, new Long(2), new Long(10000000), "number of points in the table lookup.  Randomized between 2 and 10000.",false, new Long(100));
 
 	tfParam = new Parameters.ParamInfo[] {pMin, pMax, pPoints};
 
@@ -92,7 +95,12 @@ public class TableFunction extends Function
      */
     public void randomizeParameters()
     {
-	parameters.randomizeParameter(pPoints.name);
+	try {
+	    if(!parameters.setByUser(pPoints.name))
+		parameters.setParameter(pPoints.name, new Long(Global.randomLong(2, MAX_RANDOM_POINTS)), true);
+	} catch (Exception e) {
+	    Global.handleError(e, "Randomizing table function");
+	}
 
 	if(parameters.setByUser(pMin.name))
 	    {
@@ -140,6 +148,28 @@ public class TableFunction extends Function
     }
 
 
+    /**
+     * Looks up many points in the table at once.
+     */
+    public void evalMany(double[] xs, double[] out, int from, int to)
+    {
+	double[] t=table;
+	double lo=dMin, hi=dMax, width=dMax-dMin;
+	int n=t.length;
+
+	for(int i=from; i<to; i++)
+	    {
+		double x=xs[i];
+		if(x<=lo)
+		    out[i]=t[0];
+		else if(x>=hi)
+		    out[i]=t[n-1];
+		else
+		    out[i]=t[(int)(((x-lo)/width)*n)];
+	    }
+    }
+
+
     /**
      * Used only for testings
      */
@@ -22,12 +22,32 @@ import edu.stanford.multiagent.gamer.*;
 /**
  * An Adjacency list implementation of the Graph interface.
  *
+ * While the graph is being built, each node keeps a growable array
+ * of its neighbours (and, if any edge data has been set, a parallel
+ * array of edge data), in insertion order.  Calling 
+ * <code>freeze()</code> compacts the lists into compressed sparse 
+ * row (CSR) form: one array of row offsets, one of edge targets and
+ * one of edge data, plus a per-node sorted copy of the targets used
+ * to answer <code>areNeighbours()</code> and <code>getEdge()</code> 
+ * by binary search.  Any structural change to a frozen graph 
+ * unfreezes it again.
  */
 
 
 public abstract class ALGraph extends Graph
 {
-    protected Vector nodes;
+    // -- mutable representation
+    private int[][] adj;
+    private Object[][] adjData;
+    private int[] deg;
+
+    // -- frozen (CSR) representation
+    private boolean frozen;
+    private int[] offsets;
+    private int[] targets;
+    private Object[] edgeData;
+    private int[] sortedTargets;
+    private int[] sortedPos;
 
     /**
      * Constructor
@@ -36,7 +56,10 @@ public abstract class ALGraph extends Graph
 	throws Exception
     {
 	super();
-	nodes=new Vector();
+	adj = new int[16][];
+	adjData = new Object[16][];
+	deg = new int[16];
+	frozen = false;
     }
 
 
@@ -49,11 +72,13 @@ public abstract class ALGraph extends Graph
 	throws Exception
     {
 	super();
-	nodes = new Vector(nNodes);
-	this.nNodes=nNodes;
+	adj = new int[Math.max(nNodes, 1)][];
+	adjData = new Object[Math.max(nNodes, 1)][];
+	deg = new int[Math.max(nNodes, 1)];
+	frozen = false;
 
 	for(int i=0; i<nNodes; i++)
-	    nodes.add(new LinkedList());
+	    addNode();
     }
 
 
@@ -62,8 +87,26 @@ public abstract class ALGraph extends Graph
      */
     public void addNode()
     {
+	thaw();
+
+	if (nNodes == adj.length) {
+	    int n = 2*adj.length;
+
+	    int[][] newAdj = new int[n][];
+	    System.arraycopy(adj, 0, newAdj, 0, nNodes);
+	    adj = newAdj;
+
+	    Object[][] newAdjData = new Object[n][];
+	    System.arraycopy(adjData, 0, newAdjData, 0, nNodes);
+	    adjData = newAdjData;
+
+	    int[] newDeg = new int[n];
+	    System.arraycopy(deg, 0, newDeg, 0, nNodes);
+	    deg = newDeg;
+	}
+
+	adj[nNodes] = new int[4];
 	nNodes++;
-	nodes.add(new LinkedList());
     }
 
 
@@ -91,10 +134,44 @@ public abstract class ALGraph extends Graph
       if(areNeighbours(s,t))
 	return;
 
-	LinkedList list = (LinkedList)nodes.get(s);
-	Edge e=new Edge(s, t);
-	e.setData(data);
-	list.add(e);
+      addEdgeUnchecked(s, t, data);
+    }
+
+
+    /**
+     * Adds an edge without checking whether it already exists.
+     * Generators which can guarantee that they never add the same
+     * edge twice should use this to avoid the neighbour lookup.
+     *
+     * @param s the index of the node where the edge should start
+     * @param t the index of the node where the edge should end
+     * @param data the data which is to be stored at the edge
+     */
+    protected void addEdgeUnchecked(int s, int t, Object data)
+    {
+	thaw();
+
+	int d = deg[s];
+	if (d == adj[s].length) {
+	    int[] newRow = new int[2*d];
+	    System.arraycopy(adj[s], 0, newRow, 0, d);
+	    adj[s] = newRow;
+
+	    if (adjData[s] != null) {
+		Object[] newDataRow = new Object[2*d];
+		System.arraycopy(adjData[s], 0, newDataRow, 0, d);
+		adjData[s] = newDataRow;
+	    }
+	}
+
+	adj[s][d] = t;
+	if (data != null) {
+	    if (adjData[s] == null)
+		adjData[s] = new Object[adj[s].length];
+	    adjData[s][d] = data;
+	}
+
+	deg[s]++;
 	nEdges++;
     }
 
@@ -108,42 +185,65 @@ public abstract class ALGraph extends Graph
      */
     public void setEdgeData(int s, int t, Object data)
     {
-	LinkedList list = (LinkedList)nodes.get(s);
-	Iterator it = list.iterator(); 
-	while(it.hasNext())
-	    {
-		Edge e = (Edge)it.next();
-		if(e.getDest() == t)
-		    {
-			it.remove();
-			e.setData(data);
-			list.add(e);
-			return;
-		    }
-	    }
+	int k = indexOf(s, t);
+	if (k < 0)
+	    return;
+
+	if (frozen) {
+	    edgeData[offsets[s] + k] = data;
+	    return;
+	}
+
+	if (adjData[s] == null) {
+	    if (data == null)
+		return;
+	    adjData[s] = new Object[adj[s].length];
+	}
+	adjData[s][k] = data;
     }
 
 
     /**
-     * Removes an edge from the graph.
+     * Returns the data stored at an edge, or null if the edge does
+     * not exist.
+     *
+     * @param s the index of the node where the edge begins
+     * @param t the index of the node where the edge ends
+     */
+    public Object getEdgeData(int s, int t)
+    {
+	int k = indexOf(s, t);
+	if (k < 0)
+	    return null;
+
+	return getEdgeDataAt(s, k);
+    }
+
+
+    /**
+     * Removes an edge from the graph.  The order of the remaining
+     * edges is preserved.
      * 
      * @param s the index of the node where the edge begins
      * @param t the index of the node where the edge ends
      */
     public void removeEdge(int s, int t)
     {
-	LinkedList list = (LinkedList)nodes.get(s);
-	Iterator it=list.iterator(); 
-	while(it.hasNext())
-	    {
-		Edge e = (Edge)it.next();
-		if(e.getDest()==t)
-		    {
-			it.remove();
-			nEdges--;
-			return;
-		    }
-	    }
+	int k = indexOf(s, t);
+	if (k < 0)
+	    return;
+
+	thaw();
+
+	int tail = deg[s] - k - 1;
+	System.arraycopy(adj[s], k+1, adj[s], k, tail);
+	if (adjData[s] != null) {
+	    System.arraycopy(adjData[s], k+1, adjData[s], k, tail);
+	    adjData[s][deg[s]-1] = null;
+	}
+
+	deg[s]--;
+	nEdges--;
     }
 
     /** 
@@ -153,30 +253,23 @@ public abstract class ALGraph extends Graph
      */
     public void removeEdge(Edge e)
     {
-	LinkedList list = (LinkedList)nodes.get(e.getSource());
-	list.remove(e);
-	nEdges--;
+	removeEdge(e.getSource(), e.getDest());
     }
 
 
     /**
-     * Returns an Edge object from the graph.
+     * Returns an Edge object from the graph.  The Edge returned
+     * reads and writes its data through the graph.
      * 
      * @param s the index of the node where the edge begins
      * @param t the index of the node where the edge ends
      */
     public Edge getEdge(int s, int t)
     {
-	LinkedList list = (LinkedList)nodes.get(s);
-	Iterator it=list.iterator(); 
-	while(it.hasNext())
-	    {
-		Edge e = (Edge)it.next();
-		if(e.getDest()==t)
-		    return e;
-	    }
+	if (indexOf(s, t) < 0)
+	    return null;
 
-	return null;
+	return new EdgeView(s, t);
     }
 
 
@@ -189,16 +282,7 @@ public abstract class ALGraph extends Graph
      */
     public boolean areNeighbours(int from, int to)
     {
-	LinkedList list = (LinkedList)nodes.get(from);
-	Iterator it=list.iterator(); 
-	while(it.hasNext())
-	    {
-		Edge e = (Edge)it.next();
-		if(e.getDest()==to)
-		    return true;
-	    }
-
-	return false;
+	return indexOf(from, to) >= 0;
     }
 
 
@@ -208,23 +292,24 @@ public abstract class ALGraph extends Graph
      * @param from the index of the node whose neighbours should
      * be returned
      */
-    public Iterator getNeighbours(int from)
+    public Iterator getNeighbours(final int from)
     {
-	LinkedList list = (LinkedList)nodes.get(from);
-	final Iterator it = list.iterator();
-
 	return new Iterator() {
+
+		private int k = 0;
 		
 		public void remove() { 
 		    throw new UnsupportedOperationException("Graph Iterator");
 		}
 		
 		public Object next() {
-		    return new Integer(((Edge)it.next()).getDest());
+		    if (k >= getNumNeighbours(from))
+			throw new NoSuchElementException("Graph Iterator");
+		    return new Integer(getNeighbour(from, k++));
 		}
 
 		public boolean hasNext() {
-		    return it.hasNext();
+		    return k < getNumNeighbours(from);
 		}
 	    };
     }
@@ -236,9 +321,26 @@ public abstract class ALGraph extends Graph
      * @param from the index of the node whose neighbours should
      * be returned
      */
-    public Iterator getEdges(int from)
+    public Iterator getEdges(final int from)
     {
-	return ((LinkedList)nodes.get(from)).iterator();
+	return new Iterator() {
+
+		private int k = 0;
+		
+		public void remove() { 
+		    throw new UnsupportedOperationException("Graph Iterator");
+		}
+		
+		public Object next() {
+		    if (k >= getNumNeighbours(from))
+			throw new NoSuchElementException("Graph Iterator");
+		    return new EdgeView(from, getNeighbour(from, k++));
+		}
+
+		public boolean hasNext() {
+		    return k < getNumNeighbours(from);
+		}
+	    };
     }
 
 
@@ -249,7 +351,158 @@ public abstract class ALGraph extends Graph
      */
     public int getNumNeighbours(int from)
     {
-	return ((LinkedList)nodes.get(from)).size();
+	if (frozen)
+	    return offsets[from+1] - offsets[from];
+
+	return deg[from];
+    }
+
+
+    /**
+     * Returns the k-th neighbour of a node, in insertion order.
+     *
+     * @param from the index of the node
+     * @param k the position of the neighbour
+     */
+    public int getNeighbour(int from, int k)
+    {
+	if (frozen)
+	    return targets[offsets[from] + k];
+
+	return adj[from][k];
+    }
+
+
+    /**
+     * Returns the data stored at the k-th outgoing edge of a node.
+     *
+     * @param from the index of the node
+     * @param k the position of the edge
+     */
+    public Object getEdgeDataAt(int from, int k)
+    {
+	if (frozen)
+	    return edgeData[offsets[from] + k];
+
+	return (adjData[from] == null ? null : adjData[from][k]);
+    }
+
+
+    /**
+     * Compacts the adjacency lists into CSR arrays and builds the
+     * sorted neighbour index.
+     */
+    public void freeze()
+    {
+	if (frozen)
+	    return;
+
+	offsets = new int[nNodes+1];
+	for (int i = 0; i < nNodes; i++)
+	    offsets[i+1] = offsets[i] + deg[i];
+
+	targets = new int[nEdges];
+	edgeData = new Object[nEdges];
+	sortedTargets = new int[nEdges];
+	sortedPos = new int[nEdges];
+
+	for (int i = 0; i < nNodes; i++) {
+	    int base = offsets[i];
+	    System.arraycopy(adj[i], 0, targets, base, deg[i]);
+	    if (adjData[i] != null)
+		System.arraycopy(adjData[i], 0, edgeData, base, deg[i]);
+
+	    // -- insertion sort of the row's (target, position) pairs;
+	    // -- rows are short and mostly generated in order
+	    for (int k = 0; k < deg[i]; k++) {
+		int t = adj[i][k];
+		int j = base + k;
+		while (j > base && sortedTargets[j-1] > t) {
+		    sortedTargets[j] = sortedTargets[j-1];
+		    sortedPos[j] = sortedPos[j-1];
+		    j--;
+		}
+		sortedTargets[j] = t;
+		sortedPos[j] = k;
+	    }
+	}
+
+	adj = null;
+	adjData = null;
+	deg = null;
+	frozen = true;
+    }
+
+
+    /**
+     * Returns true if the graph has been frozen into CSR form.
+     */
+    public boolean isFrozen()
+    {
+	return frozen;
+    }
+
+
+    /**
+     * Converts a frozen graph back to the growable representation
+     * so that it can be modified.
+     */
+    private void thaw()
+    {
+	if (!frozen)
+	    return;
+
+	int cap = Math.max(nNodes, 16);
+	adj = new int[cap][];
+	adjData = new Object[cap][];
+	deg = new int[cap];
+
+	for (int i = 0; i < nNodes; i++) {
+	    int d = offsets[i+1] - offsets[i];
+	    deg[i] = d;
+	    adj[i] = new int[Math.max(d, 4)];
+	    System.arraycopy(targets, offsets[i], adj[i], 0, d);
+
+	    for (int k = 0; k < d; k++)
+		if (edgeData[offsets[i] + k] != null) {
+		    adjData[i] = new Object[adj[i].length];
+		    System.arraycopy(edgeData, offsets[i], adjData[i], 0, d);
+		    break;
+		}
+	}
+
+	offsets = targets = sortedTargets = sortedPos = null;
+	edgeData = null;
+	frozen = false;
+    }
+
+
+    /**
+     * Returns the position of the edge from s to t in the adjacency
+     * list of s, or -1 if there is no such edge.
+     */
+    private int indexOf(int s, int t)
+    {
+	if (frozen) {
+	    int lo = offsets[s], hi = offsets[s+1] - 1;
+	    while (lo <= hi) {
+		int mid = (lo + hi) >>> 1;
+		if (sortedTargets[mid] < t)
+		    lo = mid + 1;
+		else if (sortedTargets[mid] > t)
+		    hi = mid - 1;
+		else
+		    return sortedPos[mid];
+	    }
+	    return -1;
+	}
+
+	int[] row = adj[s];
+	for (int k = 0, d = deg[s]; k < d; k++)
+	    if (row[k] == t)
+		return k;
+
+	return -1;
     }
 
 
@@ -19,14 +19,32 @@ package edu.stanford.multiagent.gamer.graphs;
 import java.util.*;
 
 /**
- * An Adjacency matrix implementation of the Graph interface
- *
- * Not fully implemented.
+ * An Adjacency matrix implementation of the Graph interface.  Each
+ * node keeps a BitSet of its neighbours, so neighbour checks take 
+ * constant time; this is the better choice for dense graphs.
+ * Edge data, if any, is kept in a per-node array indexed by the
+ * destination node, allocated the first time data is stored on an 
+ * edge out of that node.  Neighbours are always visited in 
+ * increasing order of node index.
+ * <p>
+ * <code>freeze()</code> counts the neighbours of each node in 
+ * blocks of 64 possible destinations, so that the k-th neighbour
+ * is found by a binary search over the blocks and a short 
+ * <code>nextSetBit()</code> walk within one.  Any structural 
+ * change to a frozen graph unfreezes it again.
  */
 
 public abstract class AMGraph extends Graph
 {
-    private Vector nodes;
+    private BitSet[] rows;
+    private Object[][] rowData;
+    private int[] deg;
+
+    // -- when frozen, rank[s][b] is the number of neighbours of s
+    // -- below node 64*b, for b up to the number of blocks
+    private int[][] rank;
+
+    private static final int BLOCK = 64;
 
     /**
      * Constructor
@@ -34,10 +52,10 @@ public abstract class AMGraph extends Graph
     public AMGraph()
 	throws Exception
     {
-      throw new UnsupportedOperationException("AMGraph is not yet functional. Implement it, or use ALGraph instead.");
-      //super();
-      //nodes=new Vector();
-      
+	super();
+	rows = new BitSet[16];
+	rowData = new Object[16][];
+	deg = new int[16];
     }
 
     /**
@@ -46,15 +64,13 @@ public abstract class AMGraph extends Graph
     public AMGraph(int nNodes)
 	throws Exception
     {
-      throw new UnsupportedOperationException("AMGraph is not yet functional. Implement it, or use ALGraph instead.");
-      /*
-      super();
-      nodes = new Vector(nNodes);
-      this.nNodes=nNodes;
-      
-      for(int i=0; i<nNodes; i++)
-      nodes.add(new BitSet(nNodes));
-      */
+	super();
+	rows = new BitSet[Math.max(nNodes, 1)];
+	rowData = new Object[Math.max(nNodes, 1)][];
+	deg = new int[Math.max(nNodes, 1)];
+
+	for(int i=0; i<nNodes; i++)
+	    addNode();
     }
 
     /**
@@ -62,8 +78,25 @@ public abstract class AMGraph extends Graph
      */
     public void addNode()
     {
+	if (nNodes == rows.length) {
+	    int n = 2*rows.length;
+
+	    BitSet[] newRows = new BitSet[n];
+	    System.arraycopy(rows, 0, newRows, 0, nNodes);
+	    rows = newRows;
+
+	    Object[][] newRowData = new Object[n][];
+	    System.arraycopy(rowData, 0, newRowData, 0, nNodes);
+	    rowData = newRowData;
+
+	    int[] newDeg = new int[n];
+	    System.arraycopy(deg, 0, newDeg, 0, nNodes);
+	    deg = newDeg;
+	}
+
+	rows[nNodes] = new BitSet();
 	nNodes++;
-	nodes.add(new BitSet(nNodes));
+	rank = null;
     }
 
     /**
@@ -71,25 +104,26 @@ public abstract class AMGraph extends Graph
      */
     public void addEdge(int s, int t)
     {
-	BitSet b = (BitSet)nodes.get(s);
-	b.set(t);
-	nEdges++;
+	addEdge(s, t, null);
     }
 
 
     /**
-     * Add an edge with data
-     *
-     * Currently not implemented, does the same thing as the other
-     * version of addEdge.
+     * Add an edge with data.  Does nothing if the edge already 
+     * exists.
      */
     public void addEdge(int s, int t, Object data)
     {
-	BitSet b = (BitSet) nodes.get(s);
-	b.set(t);
-	nEdges--;
+	if (rows[s].get(t))
+	    return;
+
+	rows[s].set(t);
+	deg[s]++;
+	nEdges++;
+	rank = null;
 
-	// --- TODO: set the edge data
+	if (data != null)
+	    setEdgeData(s, t, data);
     }
     
 
@@ -99,19 +133,53 @@ public abstract class AMGraph extends Graph
      */
     public void setEdgeData(int s, int t, Object data)
     {
-	// --- TODO: fill in this function
+	if (!rows[s].get(t))
+	    return;
+
+	Object[] row = rowData[s];
+	if (row == null || row.length <= t) {
+	    if (data == null)
+		return;
+	    Object[] newRow = new Object[Math.max(t+1, nNodes)];
+	    if (row != null)
+		System.arraycopy(row, 0, newRow, 0, row.length);
+	    rowData[s] = row = newRow;
+	}
+
+	row[t] = data;
     }
 
 
+    /**
+     * Returns the data stored on the edge between s and t, or null
+     * if there is no such edge.
+     */
+    public Object getEdgeData(int s, int t)
+    {
+	Object[] row = rowData[s];
+	if (row == null || row.length <= t || !rows[s].get(t))
+	    return null;
+
+	return row[t];
+    }
+
 
     /**
      * Removes an edge
      */
     public void removeEdge(int s, int t)
     {
-	BitSet b = (BitSet)nodes.get(s);
-	b.clear(t);
+	if (!rows[s].get(t))
+	    return;
+
+	rows[s].clear(t);
+	deg[s]--;
 	nEdges--;
+	rank = null;
+
+	Object[] row = rowData[s];
+	if (row != null && t < row.length)
+	    row[t] = null;
     }
 
     public void removeEdge(Edge e)
@@ -120,11 +188,15 @@ public abstract class AMGraph extends Graph
     }
 
     /**
-     * Gets an Edge
+     * Gets an Edge.  The Edge returned reads and writes its data
+     * through the graph.
      */
     public Edge getEdge(int s, int t)
     {
-	throw new UnsupportedOperationException("Edges not supported in matrix graph");
+	if (!rows[s].get(t))
+	    return null;
+
+	return new EdgeView(s, t);
     }
 
 
@@ -133,16 +205,101 @@ public abstract class AMGraph extends Graph
      */
     public boolean areNeighbours(int from, int to)
     {
-	BitSet b = (BitSet)nodes.get(from);
-	return b.get(to);
+	return rows[from].get(to);
+    }
+
+    /**
+     * Returns the number of outgoing edges from a node.
+     */
+    public int getNumNeighbours(int from)
+    {
+	return deg[from];
+    }
+
+    /**
+     * Returns the k-th neighbour of a node, in increasing order of
+     * node index.
+     */
+    public int getNeighbour(int from, int k)
+    {
+	if (k < 0 || k >= deg[from])
+	    throw new NoSuchElementException("Graph Iterator");
+
+	BitSet b = rows[from];
+	int bit;
+
+	if (rank == null)
+	    bit = b.nextSetBit(0);
+	else {
+	    // -- the last block with fewer than k+1 neighbours below it
+	    int[] r = rank[from];
+	    int lo = 0, hi = r.length - 1;
+	    while (hi - lo > 1) {
+		int mid = (lo + hi) >>> 1;
+		if (r[mid] <= k)
+		    lo = mid;
+		else
+		    hi = mid;
+	    }
+
+	    bit = b.nextSetBit(lo * BLOCK);
+	    k -= r[lo];
+	}
+
+	for (; k > 0; k--)
+	    bit = b.nextSetBit(bit + 1);
+
+	return bit;
+    }
+
+
+    /**
+     * Returns the data stored on the k-th outgoing edge of a node.
+     */
+    public Object getEdgeDataAt(int from, int k)
+    {
+	return getEdgeData(from, getNeighbour(from, k));
+    }
+
+
+    /**
+     * Counts the neighbours of every node block by block, so that
+     * getNeighbour() no longer walks the whole row.
+     */
+    public void freeze()
+    {
+	int blocks = (nNodes + BLOCK - 1) / BLOCK;
+	int[][] newRank = new int[nNodes][];
+
+	for (int s = 0; s < nNodes; s++) {
+	    int[] r = new int[blocks + 1];
+	    BitSet b = rows[s];
+	    for (int t = b.nextSetBit(0); t >= 0; t = b.nextSetBit(t+1))
+		r[t / BLOCK + 1]++;
+	    for (int i = 0; i < blocks; i++)
+		r[i+1] += r[i];
+	    newRank[s] = r;
+	}
+
+	rank = newRank;
+    }
+
+
+    /**
+     * Returns true if the graph is currently frozen.
+     */
+    public boolean isFrozen()
+    {
+	return rank != null;
     }
 
+
     /**
      * Returns an iterator over the node's neighbours
      */
     public Iterator getNeighbours(int from)
     {
-	final BitSet b = (BitSet)nodes.get(from);
+	final BitSet b = rows[from];
 
 	return new Iterator() {
 		
@@ -169,9 +326,24 @@ public abstract class AMGraph extends Graph
     /**
      * Return an iterator over the outgoing edges
      */
-    public Iterator getEdges(int from)
+    public Iterator getEdges(final int from)
     {
-	throw new UnsupportedOperationException("Edges not supported in matrix graph");
+	final Iterator it = getNeighbours(from);
+
+	return new Iterator() {
+		
+		public void remove() { 
+		    throw new UnsupportedOperationException("Graph Iterator");
+		}
+		
+		public Object next() {
+		    return new EdgeView(from, ((Integer)it.next()).intValue());
+		}
+
+		public boolean hasNext() {
+		    return it.hasNext();
+		}
+	    };
     }
 
 }
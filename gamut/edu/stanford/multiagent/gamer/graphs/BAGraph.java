@@ -22,6 +22,12 @@ import edu.stanford.multiagent.gamer.*;
 /**
  * Generetes a power-law out-degree graph using Barabasi-Albert model.
  * Gives exponent of -3.
+ *
+ * Preferential attachment is sampled from a list of repeated 
+ * endpoints: every node appears in the list once for itself and 
+ * once more for each edge it is on, so a uniform pick from the list
+ * is a pick proportional to degree+1.  Generation takes time linear
+ * in the number of edges.
  */
 
 public class BAGraph extends ALGraph
@@ -72,12 +78,21 @@ public class BAGraph extends ALGraph
 
     
     /**
-     * Calls graph initialize 
+     * Calls graph initialize and adds the m0+t nodes of the graph 
+     * if they have not yet been added.
      */
     public void initialize()
 	throws Exception 
     {
 	super.initialize();
+
+	if (getNNodes() == 0) {
+	    long numNodes = getLongParameter(pStartNodes.name) +
+		getLongParameter(pTime.name);
+
+	    for (long i = 0; i < numNodes; i++)
+		addNode();
+	}
     }
 
 
@@ -122,43 +137,47 @@ public class BAGraph extends ALGraph
 	int m=(int)getLongParameter(pAddEdges.name);
 	int t=(int)getLongParameter(pTime.name);
 
-	// -- initialize (cumulative) probabilities
-	int[] degrees=new int[m0+t];
-	int[] cumul=new int[m0+t];
-
-	for(int i=0; i<degrees.length; i++)
-	    degrees[i]=1;
+	// -- Each node enters the list once for itself and each
+	// -- edge adds both of its endpoints.
+	int[] endpoints=new int[m0 + t + 2*m*t];
+	int size=0;
 
-	// -- add initial nodes
 	for(int i=0; i<m0; i++)
-	    addNode();
+	    endpoints[size++]=i;
+
+	int[] targets=new int[m];
 
 	// -- Now start adding nodes
-	for(int currNode=m0; currNode<degrees.length; currNode++)
+	for(int currNode=m0; currNode<m0+t; currNode++)
 	    {
-		addNode();
-
-		// -- generate cumul distribution
-		cumul[0]=degrees[0];
-		for(int i=1; i<currNode; i++)
-		    cumul[i]=cumul[i-1]+degrees[i];
+		// -- Only the endpoints present at the start of the
+		// -- step can be chosen, so the new node's own edges
+		// -- do not change its neighbours' odds.
+		int available=size;
 
-		// -- now add to it m edges
+		// -- now add to it m edges to m distinct nodes
 		for(int j=0; j<m; j++)
 		    {
-			int r=Global.randomInt(1, cumul[currNode-1]);
 			int n;
-			for(n=0; n<currNode; n++)
-			    if(r<=cumul[n])
-				break;
-	    
-			addEdge(currNode, n); addEdge(n, currNode);
-			degrees[n]++; degrees[currNode]++;
+			boolean repeat;
+			do {
+			    n=endpoints[Global.randomInt(0, available-1)];
+			    repeat=false;
+			    for(int k=0; k<j; k++)
+				if(targets[k]==n)
+				    repeat=true;
+			} while(repeat);
+			targets[j]=n;
+
+			addEdgeUnchecked(currNode, n, null);
+			addEdgeUnchecked(n, currNode, null);
+			endpoints[size++]=n;
+			endpoints[size++]=currNode;
 		    }
+
+		endpoints[size++]=currNode;
 	    }
     }
   
 
 }
-
-
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer.graphs;
+
+import java.util.*;
+import edu.stanford.multiagent.gamer.*;
+
+/**
+ * Generates a random graph according to the G(n,p) model: each
+ * possible edge is present independently with probability p.
+ *
+ * If the sym flag is set, then every time there is an edge 
+ * from a to b, there will also be an edge from b to a, and p is
+ * the probability of each such pair.
+ *
+ * Instead of flipping a coin for every possible edge, the gap to 
+ * the next present edge is drawn from the geometric distribution
+ * (Batagelj and Brandes, 2005), so generation takes time 
+ * proportional to the number of edges produced.
+ *
+ * With p fixed the graph is dense, so it is kept as an adjacency
+ * matrix: a bit per possible edge takes less memory than the
+ * indices ALGraph keeps per edge once p is above about 1/64, and neighbour checks take 
+ * constant time.  The slots are added in increasing order, so the
+ * neighbours of every node are too, as they are in AMGraph.
+ *
+ * It is left out of GraphWithNodeParam, so that games whose graph
+ * is picked by -random_params get the same graph class for a given
+ * seed as before; ask for it by name with -graph BernoulliGraph.
+ */
+
+public class BernoulliGraph extends AMGraph
+{
+
+    // ---------------------------------------------------
+    // Parameters: The number of nodes, the probability of 
+    // each edge, and the flags for symmetric and reflexive edges.
+    //
+
+    private static Parameters.ParamInfo pEdgeProb;
+    private static Parameters.ParamInfo[] bgParam;
+
+    static {
+
+	pEdgeProb = new Parameters.ParamInfo("p", Parameters.ParamInfo.DOUBLE_PARAM, new Double(0), new Double(1), "Probability with which each possible edge (or pair of edges, if sym_edges is set) is present.  Defaults to 0.5.", false, new Double(0.5));
+
+	bgParam = new Parameters.ParamInfo[] {Graph.pNumNodes, pEdgeProb,
+					      Graph.pSymEdges, 
+					      Graph.pReflexEdges};
+
+	Global.registerParams(BernoulliGraph.class, bgParam);
+    }
+
+    // ----------------------------------------------
+
+
+
+    public BernoulliGraph()
+	throws Exception
+    {
+	super();
+    }
+  
+
+    protected  String getGraphHelp()
+    {
+	return "BernoulliGraph: Generates a random graph according to G(n,p) model, in which every edge is present independently with probability p.";
+    }
+
+    
+    /**
+     * Calls graph initialize and also adds the nodes if they
+     * have not yet been added.
+     */
+    public void initialize()
+	throws Exception 
+    {
+	super.initialize();
+
+	if (getNNodes() == 0) {
+	    int numNodes = 0;
+
+	    try {
+		numNodes = (int) getLongParameter(Graph.pNumNodes.name);
+	    } catch (Exception e) {
+		Global.handleError(e, "Could not get parameter to " +
+				   "initialize BernoulliGraph");
+	    }
+	    
+	    for(int i = 0; i < numNodes; i++)
+		addNode();
+	}
+    }
+
+
+
+    /**
+     * Makes sure that the parameters are in the proper range.
+     */
+    protected void checkParameters() throws Exception 
+    {
+	if (getLongParameter(Graph.pNumNodes.name) <= 0)
+	    throw new Exception("nodes <= 0");
+
+	double p = getDoubleParameter(pEdgeProb.name);
+	if (p < 0 || p > 1)
+	    throw new Exception("p must be in [0, 1]");
+    }
+
+
+    /**
+     * Returns true if it must be the case that for every edge
+     * a to b there is also an edge b to a
+     */
+    public boolean hasSymEdges() {
+	return (getBooleanParameter(Graph.pSymEdges.name));
+    }
+
+
+
+    /**
+     * Returns true if reflexive edges are allowed.
+     */
+    public boolean reflexEdgesOk() {
+	return (getBooleanParameter(Graph.pReflexEdges.name));
+    }
+
+
+    /**
+     * Randomizes the parameters not set by the user.
+     */
+    public void randomizeParameters()
+    {
+	parameters.randomizeParameter(Graph.pSymEdges.name);
+	parameters.randomizeParameter(Graph.pReflexEdges.name);
+	parameters.randomizeParameter(pEdgeProb.name);
+	parameters.randomizeParameter(Graph.pNumNodes.name);
+    }
+
+
+    /**
+     * Generates a random graph with given parameters.
+     */
+    public void doGenerate() {
+
+	int numNodes = (int) getLongParameter(Graph.pNumNodes.name);
+	double p = getDoubleParameter(pEdgeProb.name);
+
+	boolean sym = hasSymEdges();
+	boolean reflex = reflexEdgesOk();
+	long numSlots = RandomGraph.getNumSlots(numNodes, sym, reflex);
+
+	if (p <= 0)
+	    return;
+
+	int[] edge = new int[2];
+
+	if (p >= 1) {
+	    for (long k = 0; k < numSlots; k++)
+		addSlotEdge(k, numNodes, sym, reflex, edge);
+	    return;
+	}
+
+	// -- The number of absent slots before the next present one
+	// -- is geometric: floor(log(1-r) / log(1-p)).
+	double logq = Math.log(1 - p);
+	long k = -1;
+
+	while (true) {
+	    double r = Global.randomDouble();
+	    double skip = Math.floor(Math.log(1 - r) / logq);
+
+	    if (k + 1 + skip >= numSlots)
+		break;
+
+	    k += 1 + (long) skip;
+	    addSlotEdge(k, numNodes, sym, reflex, edge);
+	}
+    } 
+
+
+    /**
+     * Adds the edge numbered k, and its reverse for symmetric 
+     * graphs.  See RandomGraph for the numbering.
+     */
+    private void addSlotEdge(long k, int n, boolean sym, boolean reflex,
+			     int[] edge)
+    {
+	RandomGraph.slotToEdge(k, n, sym, reflex, edge);
+	addEdge(edge[0], edge[1]);
+	if (sym && edge[0] != edge[1])
+	    addEdge(edge[1], edge[0]);
+    }
+
+}
+
@@ -21,10 +21,12 @@ import edu.stanford.multiagent.gamer.*;
 
 /**
  * Generates a complete graph with the specified number of
- * nodes.
+ * nodes.  The edges are implicit: node i is connected to every
+ * node j, in increasing order of j, skipping i itself unless 
+ * reflexive edges are allowed.
  */
 
-public class CompleteGraph extends ALGraph
+public class CompleteGraph extends ImplicitGraph
 {
 
     // ---------------------------------------------------
@@ -43,6 +45,10 @@ public class CompleteGraph extends ALGraph
 
     // ----------------------------------------------
 
+    private boolean reflexive;
+
+    // ----------------------------------------------
+
     protected  String getGraphHelp()
     {
 	return "CompleteGraph: Generates a complete graph with a specified number of nodes.";
@@ -50,7 +56,7 @@ public class CompleteGraph extends ALGraph
 
     /**
      * Constructor to be used when parameters are coming from
-     * the command line.  The nodes vector will then be set up in
+     * the command line.  The number of nodes will then be set in
      * initialize rather than here.
      */
     public CompleteGraph()
@@ -67,7 +73,7 @@ public class CompleteGraph extends ALGraph
     public CompleteGraph(long numNodes, boolean reflexive)
 	throws Exception
     {
-	super((int) numNodes);
+	super();
 
 	try {
 
@@ -85,15 +91,15 @@ public class CompleteGraph extends ALGraph
 
 
     /**
-     * Calls graph initialize and also set up the nodes Vector
-     * if it has not yet been set up
+     * Calls graph initialize and also sets the number of nodes
+     * if it has not yet been set
      */
     public void initialize()
 	throws Exception 
     {
 	super.initialize();
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 
 	    int numNodes = 0;
 
@@ -104,9 +110,10 @@ public class CompleteGraph extends ALGraph
 				   "to initialize CompleteGraph");
 	    }
 
-	    for(int i = 0; i < numNodes; i++)
-		addNode();
+	    setNumNodes(numNodes);
 	}
+
+	reflexive = reflexEdgesOk();
     }
 
 
@@ -119,9 +126,6 @@ public class CompleteGraph extends ALGraph
 	    parameters.randomizeParameter(pReflexEdges.name);
 
 	if(!parameters.setByUser(Graph.pNumNodes.name)) {
-	    // Do not want to allow very large graphs when we
-	    // are randomizing since these are not always appropriate.
-	    Graph.pNumNodes.high = new Long(20);	    
 	    parameters.randomizeParameter(pNumNodes.name);
 	}
     }
@@ -156,22 +160,64 @@ public class CompleteGraph extends ALGraph
 
 
     /**
-     * Generate a random graph with given parameters.
+     * Returns the largest number of neighbours of any node.
      */
-    public void doGenerate() {
-
-	long numNodes = getLongParameter(pNumNodes.name);
-	long currEdges = 0;
-	
-	// Add edges between every pair of points in both directions.
-	// Only add the egde from a node to itself if the reflexive
-	// flag is set.
-	for (int i = 0; i < numNodes; i++)
-	    for (int j = 0; j < numNodes; j++)
-		if ((reflexEdgesOk()) || (i != j))
-		    addEdge(i, j);
+    protected int getMaxNeighbours()
+    {
+	return nNodes;
     }
 
-}
 
+    /**
+     * Returns the number of neighbours of a node.
+     */
+    public int getNumNeighbours(int from)
+    {
+	return (reflexive ? nNodes : nNodes - 1);
+    }
+
+
+    /**
+     * Returns the k-th neighbour of a node.
+     */
+    public int getNeighbour(int from, int k)
+    {
+	return ((reflexive || k < from) ? k : k + 1);
+    }
+
+
+    /**
+     * Checks if two nodes are neighbours.
+     */
+    public boolean areNeighbours(int from, int to)
+    {
+	return (reflexive || from != to);
+    }
+
+
+    /**
+     * Returns the position of to among the neighbours of from, or -1.
+     */
+    protected int indexOfNeighbour(int from, int to)
+    {
+	if (!areNeighbours(from, to))
+	    return -1;
+
+	return ((reflexive || to < from) ? to : to - 1);
+    }
+
+
+    /**
+     * Writes the neighbours of a node into buf and returns how many there are.
+     */
+    protected int listNeighbours(int from, int[] buf)
+    {
+	int n = getNumNeighbours(from);
+	for (int k = 0; k < n; k++)
+	    buf[k] = getNeighbour(from, k);
+
+	return n;
+    }
+
+}
 
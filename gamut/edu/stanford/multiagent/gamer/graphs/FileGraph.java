@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer.graphs;
+
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import edu.stanford.multiagent.gamer.*;
+
+/**
+ * A graph read from a file written by Graph.writeBinary(), so 
+ * that the same structure can be shared by many game instances
+ * without being generated again.  The file is mapped into memory
+ * rather than read, so neighbours are looked up directly in the
+ * file's pages and large graphs load in constant time.
+ *
+ * A FileGraph can also be filled in from a graph stored inside 
+ * another file, with readBinary(), or from neighbour lists, with
+ * setNeighbours(), without setting its parameters.
+ */
+
+public class FileGraph extends ImplicitGraph
+{
+
+    // ---------------------------------------------------
+    // Parameters: the name of the file, and optionally the
+    // number of nodes, which games set to the number of
+    // players or actions and which must then match the file.
+    //
+
+    private static Parameters.ParamInfo pFile;
+    private static Parameters.ParamInfo pFileNodes;
+
+    private static Parameters.ParamInfo[] fileParam;
+
+    static {
+
+	pFile = new Parameters.ParamInfo("file", Parameters.ParamInfo.STRING_PARAM, null, null, "Name of a file written by Graph.writeBinary(), for example with the -graph_out option.");
+
+	pFileNodes = new Parameters.ParamInfo("nodes", Parameters.ParamInfo.LONG_PARAM, new Long(0), new Long(Integer.MAX_VALUE), "Number of nodes in the graph.  If set, must match the number of nodes in the file.  Games which use a graph set this to the number of players or actions.", false, new Long(0));
+
+	fileParam = new Parameters.ParamInfo[] {pFile, pFileNodes};
+	Global.registerParams(FileGraph.class, fileParam);
+    }
+
+    // ----------------------------------------------
+
+    private IntBuffer offsets;
+    private IntBuffer targets;
+    private boolean symEdges;
+    private boolean reflexOk;
+    private int maxNeighbours;
+
+
+    public FileGraph()
+	throws Exception
+    {
+	super();
+    }
+
+
+    protected  String getGraphHelp()
+    {
+	return "FileGraph: Reads a graph saved in binary form by another run.";
+    }
+
+
+    /**
+     * Maps the file into memory and reads its header.
+     */
+    public void initialize()
+	throws Exception 
+    {
+	super.initialize();
+
+	String fileName = getStringParameter(pFile.name);
+	RandomAccessFile raf = new RandomAccessFile(fileName, "r");
+
+	try {
+	    FileChannel ch = raf.getChannel();
+	    long headerBytes = 4L * Graph.BINARY_HEADER_INTS;
+
+	    if (ch.size() < headerBytes)
+		throw new IOException(fileName + " is not a graph file");
+
+	    IntBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0,
+				      headerBytes).asIntBuffer();
+
+	    if (header.get(0) != Graph.BINARY_MAGIC)
+		throw new IOException(fileName + " is not a graph file");
+	    if (header.get(1) != Graph.BINARY_VERSION)
+		throw new IOException("Unsupported graph file version " +
+				      header.get(1));
+
+	    int n = header.get(2);
+	    int nE = header.get(3);
+	    symEdges = (header.get(4) & Graph.FLAG_SYM_EDGES) != 0;
+	    reflexOk = (header.get(4) & Graph.FLAG_REFLEX_OK) != 0;
+
+	    long offsetBytes = 4L * (n + 1);
+	    long targetBytes = 4L * nE;
+	    if (ch.size() != headerBytes + offsetBytes + targetBytes)
+		throw new IOException(fileName + " is truncated or corrupt");
+
+	    long want = getLongParameter(pFileNodes.name);
+	    if (want != 0 && want != n)
+		throw new Exception("Graph in " + fileName + " has " + n + 
+				    " nodes, but " + want + " are needed");
+
+	    // -- a mapping stays valid after its channel is closed
+	    offsets = ch.map(FileChannel.MapMode.READ_ONLY, headerBytes,
+			     offsetBytes).asIntBuffer();
+	    targets = ch.map(FileChannel.MapMode.READ_ONLY, 
+			     headerBytes + offsetBytes,
+			     targetBytes).asIntBuffer();
+
+	    setStructure(n, nE);
+	} finally {
+	    raf.close();
+	}
+    }
+
+
+    /**
+     * Checks the neighbour lists and sets up the graph over them.
+     */
+    private void setStructure(int n, int nE)
+	throws IOException
+    {
+	if (offsets.get(0) != 0 || offsets.get(n) != nE)
+	    throw new IOException("Graph is corrupt");
+
+	maxNeighbours = 1;
+	for (int i = 0; i < n; i++) {
+	    int d = offsets.get(i + 1) - offsets.get(i);
+	    if (d < 0)
+		throw new IOException("Graph is corrupt");
+	    if (d > maxNeighbours)
+		maxNeighbours = d;
+	}
+
+	setNumNodes(n);
+	nEdges = nE;
+    }
+
+
+    /**
+     * Sets the graph to the given neighbour lists, in compressed
+     * form: the neighbours of node i are targets[offsets[i]] to
+     * targets[offsets[i+1]-1].  The arrays are not copied.
+     *
+     * @throws IOException if the lists are inconsistent
+     */
+    public void setNeighbours(int[] offsets, int[] targets, 
+			      boolean symEdges, boolean reflexOk)
+	throws IOException
+    {
+	this.offsets = IntBuffer.wrap(offsets);
+	this.targets = IntBuffer.wrap(targets);
+	this.symEdges = symEdges;
+	this.reflexOk = reflexOk;
+
+	int n = offsets.length - 1;
+	for (int j = 0; j < targets.length; j++)
+	    if (targets[j] < 0 || targets[j] >= n)
+		throw new IOException("Graph is corrupt");
+
+	setStructure(n, targets.length);
+    }
+
+
+    /**
+     * Reads a graph written by Graph.writeBinary(DataOutputStream)
+     * from a stream.
+     *
+     * @throws IOException if the stream does not hold a graph
+     */
+    public void readBinary(DataInputStream in)
+	throws IOException
+    {
+	if (in.readInt() != Graph.BINARY_MAGIC)
+	    throw new IOException("Not a graph");
+
+	int version = in.readInt();
+	if (version != Graph.BINARY_VERSION)
+	    throw new IOException("Unsupported graph version " + version);
+
+	int n = in.readInt();
+	int nE = in.readInt();
+	int flags = in.readInt();
+	if (n < 0 || nE < 0)
+	    throw new IOException("Graph is corrupt");
+
+	int[] off = new int[n + 1];
+	for (int i = 0; i <= n; i++)
+	    off[i] = in.readInt();
+
+	int[] tgt = new int[nE];
+	for (int j = 0; j < nE; j++)
+	    tgt[j] = in.readInt();
+
+	setNeighbours(off, tgt, (flags & Graph.FLAG_SYM_EDGES) != 0,
+		      (flags & Graph.FLAG_REFLEX_OK) != 0);
+    }
+
+
+    /**
+     * Nothing to randomize: the graph is given by the file.
+     */
+    public void randomizeParameters()
+    {
+    }
+
+
+    /**
+     * Symmetry is recorded in the file.
+     */
+    public boolean hasSymEdges() {
+	return symEdges;
+    }
+
+
+    /**
+     * Reflexivity is recorded in the file.
+     */
+    public boolean reflexEdgesOk() {
+	return reflexOk;
+    }
+
+
+    protected int getMaxNeighbours()
+    {
+	return maxNeighbours;
+    }
+
+
+    /**
+     * Returns the number of neighbours of a node.
+     */
+    public int getNumNeighbours(int from)
+    {
+	return offsets.get(from + 1) - offsets.get(from);
+    }
+
+
+    /**
+     * Returns the k-th neighbour of a node.
+     */
+    public int getNeighbour(int from, int k)
+    {
+	if (k >= getNumNeighbours(from))
+	    throw new NoSuchElementException("Graph Iterator");
+
+	return targets.get(offsets.get(from) + k);
+    }
+
+
+    /**
+     * Returns the position of to among the neighbours of from, or -1.
+     */
+    protected int indexOfNeighbour(int from, int to)
+    {
+	int start = offsets.get(from), end = offsets.get(from + 1);
+	for (int j = start; j < end; j++)
+	    if (targets.get(j) == to)
+		return j - start;
+
+	return -1;
+    }
+
+
+    /**
+     * Writes the neighbours of a node into buf and returns how many there are.
+     */
+    protected int listNeighbours(int from, int[] buf)
+    {
+	int start = offsets.get(from), n = getNumNeighbours(from);
+	for (int k = 0; k < n; k++)
+	    buf[k] = targets.get(start + k);
+
+	return n;
+    }
+}
@@ -17,12 +17,24 @@
 package edu.stanford.multiagent.gamer.graphs;
 
 import java.util.*;
+import java.io.*;
 import edu.stanford.multiagent.gamer.*;
 
 /**
  * An abstract base class for graph implementations.  Note that 
  * currently nodes are assumed to be consecutive, starting at 0,
  * and that this class must be updated, if node removal is desired.
+ *
+ * Node data is kept in an array indexed by node.  Implementations
+ * may support freezing: once a graph has been generated, 
+ * <code>freeze()</code> compacts it into a read-optimized form, and
+ * the indexed accessors <code>getNumNeighbours()</code>,
+ * <code>getNeighbour()</code> and <code>getEdgeDataAt()</code> can
+ * be used to walk a node's edges without allocating iterators or
+ * Edge objects.
+ *
+ * The structure of any graph can be saved with 
+ * <code>writeBinary()</code> and loaded again as a FileGraph.
  */
 
 public abstract class Graph extends ParameterizedObject
@@ -32,7 +44,7 @@ public abstract class Graph extends ParameterizedObject
      */
     protected int nEdges;
     protected int nNodes;
-    protected HashMap nodeData;
+    protected Object[] nodeData;
 
 
     // -----------------------------------------------------------
@@ -48,7 +60,7 @@ public abstract class Graph extends ParameterizedObject
 	super();
 
 	nEdges=nNodes=0;
-	nodeData = new HashMap();
+	nodeData = new Object[16];
     }
 
 
@@ -111,7 +123,10 @@ public abstract class Graph extends ParameterizedObject
      */
     public Object getNodeData(int n)
     {
-	return nodeData.get(new Integer(n));
+	if (n < 0 || n >= nodeData.length)
+	    return null;
+
+	return nodeData[n];
     }
 
     
@@ -123,7 +138,13 @@ public abstract class Graph extends ParameterizedObject
      */
     public void setNodeData(int n, Object data)
     {
-	nodeData.put(new Integer(n), data);
+	if (n >= nodeData.length) {
+	    Object[] newData = new Object[Math.max(n+1, 2*nodeData.length)];
+	    System.arraycopy(nodeData, 0, newData, 0, nodeData.length);
+	    nodeData = newData;
+	}
+
+	nodeData[n] = data;
     }
 
 
@@ -230,6 +251,188 @@ public abstract class Graph extends ParameterizedObject
     public abstract boolean reflexEdgesOk();
 
 
+    /**
+     * Returns the data stored on the edge from s to t, or null if
+     * there is no such edge.  Implementations should override this
+     * to avoid creating an Edge object.
+     *
+     * @param s index of the first node on the edge
+     * @param t index of the second node on the edge
+     */
+    public Object getEdgeData(int s, int t)
+    {
+	Edge e = getEdge(s, t);
+	return (e == null ? null : e.getData());
+    }
+
+
+    /**
+     * Returns the number of outgoing edges from a node.
+     *
+     * @param from index of the node
+     */
+    public int getNumNeighbours(int from)
+    {
+	int count = 0;
+	for (Iterator it = getNeighbours(from); it.hasNext(); it.next())
+	    count++;
+
+	return count;
+    }
+
+
+    /**
+     * Returns the k-th neighbour of a node, in the same order in 
+     * which <code>getNeighbours()</code> and <code>getEdges()</code>
+     * visit them.
+     *
+     * @param from index of the node
+     * @param k position of the neighbour, from 0 to 
+     * getNumNeighbours(from)-1
+     */
+    public int getNeighbour(int from, int k)
+    {
+	Iterator it = getNeighbours(from);
+	for (int i = 0; i < k; i++)
+	    it.next();
+
+	return ((Integer) it.next()).intValue();
+    }
+
+
+    /**
+     * Returns the data stored on the k-th outgoing edge of a node.
+     *
+     * @param from index of the node
+     * @param k position of the edge, from 0 to 
+     * getNumNeighbours(from)-1
+     */
+    public Object getEdgeDataAt(int from, int k)
+    {
+	return getEdgeData(from, getNeighbour(from, k));
+    }
+
+
+    /**
+     * Compacts the graph into a form optimized for lookups.  Should
+     * be called once generation is complete.  Structural changes
+     * made afterwards are still allowed but may be expensive.  The
+     * default implementation does nothing.
+     */
+    public void freeze()
+    {
+    }
+
+
+    /**
+     * Returns true if the graph is currently frozen.
+     */
+    public boolean isFrozen()
+    {
+	return false;
+    }
+
+
+    // -- binary format: a header of five big-endian ints (magic,
+    // -- version, nodes, edges, flags), then nodes+1 offsets into
+    // -- the edge list, then the destination of every edge, node
+    // -- by node in neighbour order.  Edge data is not saved.
+
+    public static final int BINARY_MAGIC = 0x474D5447;
+    public static final int BINARY_VERSION = 1;
+    public static final int BINARY_HEADER_INTS = 5;
+    public static final int FLAG_SYM_EDGES = 1;
+    public static final int FLAG_REFLEX_OK = 2;
+
+
+    /**
+     * Writes the structure of the graph to a file in binary form,
+     * so that it can be reused by FileGraph without generating it
+     * again.  Neighbours are written in the order they are listed
+     * by getNeighbour(), so games built over the loaded graph are
+     * identical to games built over this one.
+     *
+     * @param fileName the name of the file to write
+     * @throws IOException
+     */
+    public void writeBinary(String fileName)
+	throws IOException
+    {
+	DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+
+	try {
+	    writeBinary(out);
+	} finally {
+	    out.close();
+	}
+    }
+
+
+    /**
+     * Writes the structure of the graph to a stream in the same
+     * binary form, so that it can be stored inside other files.
+     *
+     * @param out the stream to write to
+     * @throws IOException
+     */
+    public void writeBinary(DataOutputStream out)
+	throws IOException
+    {
+	int n = getNNodes();
+
+	long nE = 0;
+	for (int i = 0; i < n; i++)
+	    nE += getNumNeighbours(i);
+
+	if (nE > Integer.MAX_VALUE)
+	    throw new IOException("Too many edges to save: " + nE);
+
+	out.writeInt(BINARY_MAGIC);
+	out.writeInt(BINARY_VERSION);
+	out.writeInt(n);
+	out.writeInt((int) nE);
+	out.writeInt((hasSymEdges() ? FLAG_SYM_EDGES : 0) |
+		     (reflexEdgesOk() ? FLAG_REFLEX_OK : 0));
+
+	int offset = 0;
+	out.writeInt(offset);
+	for (int i = 0; i < n; i++) {
+	    offset += getNumNeighbours(i);
+	    out.writeInt(offset);
+	}
+
+	for (int i = 0; i < n; i++) {
+	    int d = getNumNeighbours(i);
+	    for (int k = 0; k < d; k++)
+		out.writeInt(getNeighbour(i, k));
+	}
+    }
+
+
+    /**
+     * An edge that does not hold its own data but reads and writes
+     * it through the graph it came from, so that graphs which keep
+     * edge data in arrays can still hand out Edge objects.
+     */
+    protected class EdgeView extends Edge
+    {
+	public EdgeView(int from, int to)
+	{
+	    super(from, to);
+	}
+
+	public Object getData()
+	{
+	    return getEdgeData(getSource(), getDest());
+	}
+
+	public void setData(Object d)
+	{
+	    setEdgeData(getSource(), getDest(), d);
+	}
+    }
+
+
 
     //-------------------------------------------------------
     // -- Static stuff: Parameters which are used in many
@@ -245,7 +448,7 @@ public abstract class Graph extends ParameterizedObject
 
 	pReflexEdges = new Parameters.ParamInfo("reflex_ok", Parameters.ParamInfo.BOOLEAN_PARAM, new Boolean(false), new Boolean(true), "Set this to true if reflexive edges are allowed.", false, Boolean.FALSE);
 
-	pNumNodes = new Parameters.ParamInfo("nodes", Parameters.ParamInfo.LONG_PARAM, new Long(2), new Long(100000), "Number of nodes in the random graph.  May be set very large by hand, but when randomized will not be set to anything over 20 since very large graphs do not work well in some games.  Occasionally this parameter must be set to something even smaller by hand.");
+	pNumNodes = new Parameters.ParamInfo("nodes", Parameters.ParamInfo.LONG_PARAM, new Long(2), new Long(100000), "Number of nodes in the graph.  Games which use a graph set this to the number of players or actions.  Occasionally this parameter must be set to something smaller by hand.");
 
     }
 
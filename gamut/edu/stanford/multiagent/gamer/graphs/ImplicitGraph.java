@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2004 Jennifer Wortman, Eugene Nudelman, Kevin Leyton-Brown, Yoav Shoham.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.stanford.multiagent.gamer.graphs;
+
+import java.util.*;
+import edu.stanford.multiagent.gamer.*;
+
+/**
+ * An abstract base class for structured graphs whose edges
+ * follow from a formula, so that neighbours can be computed 
+ * from node indices instead of being stored.  Only the number 
+ * of nodes is kept, plus edge data if any is set: a single value
+ * shared by all edges, and per-node rows of data that are
+ * allocated the first time data is stored on an edge out of that
+ * node.
+ *
+ * Subclasses list a node's neighbours in order with
+ * <code>listNeighbours()</code>, and should override 
+ * <code>getNumNeighbours()</code>, <code>getNeighbour()</code> and
+ * <code>areNeighbours()</code> when a closed form is available.
+ * The structure cannot be modified: adding or removing edges 
+ * throws UnsupportedOperationException.
+ */
+
+public abstract class ImplicitGraph extends Graph
+{
+    private Object uniformEdgeData;
+    private Object[][] edgeData;
+
+
+    /**
+     * Constructor
+     */
+    public ImplicitGraph()
+	throws Exception
+    {
+	super();
+	nEdges = -1;
+    }
+
+
+    /**
+     * Sets the number of nodes in the graph.  Called from the
+     * subclass's initialize() once its parameters are known.
+     *
+     * @param numNodes the number of nodes
+     */
+    protected void setNumNodes(int numNodes)
+    {
+	nNodes = numNodes;
+	nEdges = -1;
+	edgeData = null;
+    }
+
+
+    /**
+     * Writes the neighbours of a node into buf, in order, and 
+     * returns how many there are.
+     *
+     * @param from index of the node
+     * @param buf array of at least getMaxNeighbours() elements
+     */
+    protected abstract int listNeighbours(int from, int[] buf);
+
+
+    /**
+     * Returns an upper bound on the number of neighbours of any
+     * node, used to size the buffer for listNeighbours().
+     */
+    protected abstract int getMaxNeighbours();
+
+
+    /**
+     * Returns the number of edges, counting them the first time
+     * this is called.
+     */
+    public int getNEdges()
+    {
+	if (nEdges < 0) {
+	    long count = 0;
+	    for (int i = 0; i < nNodes; i++)
+		count += getNumNeighbours(i);
+	    nEdges = (int) count;
+	}
+
+	return nEdges;
+    }
+
+
+    /**
+     * Returns the number of neighbours of a node.
+     */
+    public int getNumNeighbours(int from)
+    {
+	return listNeighbours(from, new int[getMaxNeighbours()]);
+    }
+
+
+    /**
+     * Returns the k-th neighbour of a node.
+     */
+    public int getNeighbour(int from, int k)
+    {
+	int[] buf = new int[getMaxNeighbours()];
+	if (k >= listNeighbours(from, buf))
+	    throw new NoSuchElementException("Graph Iterator");
+
+	return buf[k];
+    }
+
+
+    /**
+     * Returns the position of to among the neighbours of from,
+     * or -1 if they are not neighbours.
+     */
+    protected int indexOfNeighbour(int from, int to)
+    {
+	int[] buf = new int[getMaxNeighbours()];
+	int n = listNeighbours(from, buf);
+	for (int k = 0; k < n; k++)
+	    if (buf[k] == to)
+		return k;
+
+	return -1;
+    }
+
+
+    /**
+     * Checks if two nodes are neighbours.
+     */
+    public boolean areNeighbours(int from, int to)
+    {
+	return indexOfNeighbour(from, to) >= 0;
+    }
+
+
+    /**
+     * Not supported: nodes are determined by the parameters.
+     */
+    public void addNode()
+    {
+	throw new UnsupportedOperationException("Cannot add nodes to " + 
+						getClass().getName());
+    }
+
+
+    /**
+     * Not supported: edges are determined by the parameters.
+     */
+    public void addEdge(int s, int t)
+    {
+	throw new UnsupportedOperationException("Cannot add edges to " + 
+						getClass().getName());
+    }
+
+
+    /**
+     * Not supported: edges are determined by the parameters.
+     */
+    public void addEdge(int s, int t, Object data)
+    {
+	addEdge(s, t);
+    }
+
+
+    /**
+     * Not supported: edges are determined by the parameters.
+     */
+    public void removeEdge(int s, int t)
+    {
+	throw new UnsupportedOperationException("Cannot remove edges " +
+						"from " + getClass().getName());
+    }
+
+
+    /**
+     * Not supported: edges are determined by the parameters.
+     */
+    public void removeEdge(Edge e)
+    {
+	removeEdge(e.getSource(), e.getDest());
+    }
+
+
+    /**
+     * Sets the data which is returned for every edge that has
+     * no data of its own.  Takes constant memory, however many
+     * edges there are.
+     *
+     * @param data the data to be shared by all edges
+     */
+    public void setUniformEdgeData(Object data)
+    {
+	uniformEdgeData = data;
+    }
+
+
+    /**
+     * Sets the data item for the edge between s and t if this 
+     * edge exists.
+     */
+    public void setEdgeData(int s, int t, Object data)
+    {
+	int k = indexOfNeighbour(s, t);
+	if (k < 0)
+	    return;
+
+	if (edgeData == null) {
+	    if (data == null)
+		return;
+	    edgeData = new Object[nNodes][];
+	}
+
+	if (edgeData[s] == null) {
+	    if (data == null)
+		return;
+	    edgeData[s] = new Object[getNumNeighbours(s)];
+	}
+
+	edgeData[s][k] = data;
+    }
+
+
+    /**
+     * Returns the data stored on the edge between s and t, or null
+     * if there is no such edge.
+     */
+    public Object getEdgeData(int s, int t)
+    {
+	int k = indexOfNeighbour(s, t);
+	if (k < 0)
+	    return null;
+
+	return getEdgeDataAt(s, k);
+    }
+
+
+    /**
+     * Returns the data stored on the k-th outgoing edge of a node.
+     */
+    public Object getEdgeDataAt(int from, int k)
+    {
+	if (edgeData != null && edgeData[from] != null &&
+	    edgeData[from][k] != null)
+	    return edgeData[from][k];
+
+	return uniformEdgeData;
+    }
+
+
+    /**
+     * Gets an Edge.  The Edge returned reads and writes its data
+     * through the graph.
+     */
+    public Edge getEdge(int s, int t)
+    {
+	if (!areNeighbours(s, t))
+	    return null;
+
+	return new EdgeView(s, t);
+    }
+
+
+    /**
+     * Returns an iterator over the node's neighbours.
+     */
+    public Iterator getNeighbours(int from)
+    {
+	final int[] buf = new int[getMaxNeighbours()];
+	final int n = listNeighbours(from, buf);
+
+	return new Iterator() {
+
+		private int k = 0;
+		
+		public void remove() { 
+		    throw new UnsupportedOperationException("Graph Iterator");
+		}
+		
+		public Object next() {
+		    if (k >= n)
+			throw new NoSuchElementException("Graph Iterator");
+		    return new Integer(buf[k++]);
+		}
+
+		public boolean hasNext() {
+		    return k < n;
+		}
+	    };
+    }
+
+
+    /**
+     * Returns an iterator over the outgoing edges from a node.
+     */
+    public Iterator getEdges(final int from)
+    {
+	final Iterator it = getNeighbours(from);
+
+	return new Iterator() {
+		
+		public void remove() { 
+		    throw new UnsupportedOperationException("Graph Iterator");
+		}
+		
+		public Object next() {
+		    return new EdgeView(from, ((Integer)it.next()).intValue());
+		}
+
+		public boolean hasNext() {
+		    return it.hasNext();
+		}
+	    };
+    }
+
+
+    /**
+     * Implicit graphs are always in their compact form.
+     */
+    public boolean isFrozen()
+    {
+	return true;
+    }
+
+
+    /**
+     * Generating an implicit graph does nothing: the edges are
+     * known as soon as the graph has been initialized.
+     */
+    public void doGenerate()
+    {
+    }
+
+
+    /**
+     * May be implemented by subclasses to check parameters 
+     * if any exist.
+     */
+    protected void checkParameters() throws Exception
+    {
+	return;
+    } 
+
+}
+
@@ -24,7 +24,7 @@ import edu.stanford.multiagent.gamer.*;
  *
  */
 
-public class NAryTree extends ALGraph
+public class NAryTree extends ImplicitGraph
 {
 
     // ---------------------------------------------------
@@ -52,6 +52,10 @@ public class NAryTree extends ALGraph
 
     // ----------------------------------------------
 
+    private int branching;
+
+    // ----------------------------------------------
+
 
     protected  String getGraphHelp()
     {
@@ -72,15 +76,15 @@ public class NAryTree extends ALGraph
 
     
     /**
-     * Calls graph initialize and also set up the nodes Vector
-     * if it has not yet been set up
+     * Calls graph initialize and also sets the number of nodes
+     * if it has not yet been set
      */
     public void initialize()
 	throws Exception 
     { 
 	super.initialize();
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 
 	    long n = 0, depth = 0;
 
@@ -93,9 +97,10 @@ public class NAryTree extends ALGraph
 	    }
 
 	    int numNodes = (int) getNumNodes(n, depth);
-	    for(int i = 0; i < numNodes; i++)
-		addNode();
+	    setNumNodes(numNodes);
 	}
+
+	branching = (int) getLongParameter(pN.name);
     }
 
 
@@ -153,34 +158,79 @@ public class NAryTree extends ALGraph
 
 
     /**
-     * Generates the N-ary tree of the given depth
+     * Nodes are numbered breadth first, so the children of node p
+     * are p*n+1 .. p*n+n.  A node lists its parent first and then
+     * its children.
+     */
+    protected int listNeighbours(int from, int[] buf)
+    {
+	int count = getNumNeighbours(from);
+	for (int k = 0; k < count; k++)
+	    buf[k] = getNeighbour(from, k);
+
+	return count;
+    }
+
+
+    /**
+     * Returns the largest number of neighbours of any node.
      */
-    public void doGenerate() {
+    protected int getMaxNeighbours()
+    {
+	return branching + 1;
+    }
 
-	long n = getLongParameter(pN.name);
-	long depth = getLongParameter(pDepth.name);
-	int numNodes = (int) getNumNodes(n, depth);
 
-	int child = 1;
-	int parent = 0;
+    /**
+     * Returns the number of neighbours of a node.
+     */
+    public int getNumNeighbours(int from)
+    {
+	long firstChild = (long) from * branching + 1;
+	int children = (int) Math.max(0, Math.min(branching, 
+						  nNodes - firstChild));
 
-	while (child < numNodes - 1) {
-	    for (int i = 0; i < n; i++) {
+	return (from > 0 ? 1 : 0) + children;
+    }
 
-		try {
-		    // Note that edges are being added in both 
-		    // directions (parent to child and also child to
-		    // parent) at the moment.
-		    addEdge(parent, child);
-		    addEdge(child, parent);
-		} catch (Exception e) {
-		    Global.handleError(e, "Error adding edge to tree");
-		}
 
-		child++;
-	    }
-	    parent++;
+    /**
+     * Returns the k-th neighbour of a node.
+     */
+    public int getNeighbour(int from, int k)
+    {
+	if (from > 0) {
+	    if (k == 0)
+		return (from - 1) / branching;
+	    k--;
 	}
+
+	return from * branching + 1 + k;
+    }
+
+
+    /**
+     * Checks if two nodes are neighbours.
+     */
+    public boolean areNeighbours(int from, int to)
+    {
+	return indexOfNeighbour(from, to) >= 0;
+    }
+
+
+    /**
+     * Returns the position of to among the neighbours of from, or -1.
+     */
+    protected int indexOfNeighbour(int from, int to)
+    {
+	if (from > 0 && to == (from - 1) / branching)
+	    return 0;
+
+	int k = to - (from * branching + 1);
+	if (k < 0 || k >= branching || to >= nNodes)
+	    return -1;
+
+	return (from > 0 ? k + 1 : k);
     }
 
 
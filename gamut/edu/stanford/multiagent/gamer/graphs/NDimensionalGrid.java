@@ -24,9 +24,13 @@ import edu.stanford.multiagent.gamer.*;
  * is a line, 2D is a regular grid, and so on.  Currently
  * all dimensions are the same length to keep parameterization
  * from getting out of hand.
+ *
+ * The edges are implicit: a node is identified with its 
+ * coordinates, and its neighbours are the nodes one step away 
+ * in some dimension.
  */
 
-public class NDimensionalGrid extends ALGraph
+public class NDimensionalGrid extends ImplicitGraph
 {
 
     // ---------------------------------------------------
@@ -50,6 +54,15 @@ public class NDimensionalGrid extends ALGraph
 
     // ----------------------------------------------
 
+    protected int numDimensions;
+    protected int dimSize;
+
+    // -- stride[i] is the difference in node index between nodes
+    // -- one step apart in dimension i
+    protected int[] stride;
+
+    // ----------------------------------------------
+
     protected  String getGraphHelp()
     {
 	return "NDimensionalGrid: Generates an n-dimensional grid with a given number of points in each dimension. Each node is connected to its neighbors.";
@@ -66,14 +79,14 @@ public class NDimensionalGrid extends ALGraph
 
 
     /**
-     * Calls graph initialize and also sets up the nodes Vector,
+     * Calls graph initialize and also sets the number of nodes.
      */
     public void initialize()
 	throws Exception 
     {
 	super.initialize();
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 
 	    long dimensionSize = 0;
 	    int dimensions = 0;
@@ -88,9 +101,16 @@ public class NDimensionalGrid extends ALGraph
 	    
 	    int numNodes = (int) Math.pow(dimensionSize, dimensions);
 
-	    for(int i = 0; i < numNodes; i++)
-		addNode();
+	    setNumNodes(numNodes);
 	}
+
+	numDimensions = (int) getLongParameter(pN.name);
+	dimSize = (int) getLongParameter(pDimSize.name);
+
+	stride = new int[numDimensions];
+	stride[numDimensions-1] = 1;
+	for (int i = numDimensions - 2; i >= 0; i--)
+	    stride[i] = stride[i+1] * dimSize;
     }
 
 
@@ -178,56 +198,131 @@ public class NDimensionalGrid extends ALGraph
 
 
     /**
-     * Generate an N-dimensional grid graph
+     * Lists the neighbours of a node in the order in which the 
+     * grid has always been generated: nodes are visited with the
+     * first coordinate changing fastest, starting from the node
+     * after the origin and ending with the origin, and each visit 
+     * connects a node to its successor in every dimension.  The
+     * neighbours are therefore the predecessors from the last
+     * dimension to the first, then the successors from the first
+     * dimension to the last, with the origin (visited last) at 
+     * the end.
      */
-    public void doGenerate() {
-
-	int n = (int) getLongParameter(pN.name);
-	long dimSize = getLongParameter(pDimSize.name);
-
-	boolean hasMore = true;
-	int currNode[] = new int[n];
-
-	// Set the index in each dimension to be 0 first
-	for (int i = 0; i < n; i++)
-	    currNode[i] = 0;
-
-	// Systematically loop through all nodes indexed by their
-	// position in the n-dimensional grid, adding edges
-	// between adjacent nodes
-	while (hasMore) {
-
-	    // First find the next node
-	    for (int i = 0; i < n; i++) {
-		if (currNode[i] < dimSize - 1) {
-		    currNode[i]++;
-		    break;
-		} else {
-		    currNode[i] = 0;
-		    if(i == n - 1)
-			hasMore = false;
-		}
-	    }
+    protected int listNeighbours(int v, int[] buf)
+    {
+	int n = getNumNeighbours(v);
+	for (int k = 0; k < n; k++)
+	    buf[k] = getNeighbour(v, k);
 
-	    int node1 = translateIndices(currNode, dimSize, n);
+	return n;
+    }
 
-	    // Now add one to each dimension in the node and
-	    // add edges back and forth
-	    for (int i = 0; i < n; i++) {
-		if (currNode[i] + 1 < dimSize) {
-		    currNode[i]++;
-		    int node2 = translateIndices(currNode, dimSize, n);
 
-		    // Add the edges to the graph
-		    addEdge(node1, node2);
-		    addEdge(node2, node1);
+    /**
+     * Returns the number of slots passed to neighbourInSlot().
+     */
+    protected int getNumSlots()
+    {
+	return 2 * numDimensions + 1;
+    }
 
-		    // Reset currNode to the currentNode
-		    currNode[i]--;
-		}
-	    }
+
+    /**
+     * Returns the neighbour of v in slot j, or -1 if the slot is
+     * empty.  Walking the slots in order lists the neighbours in 
+     * the order described at listNeighbours(): slot j < n holds the
+     * predecessor in dimension n-1-j, slot n+i the successor in 
+     * dimension i, and slot 2n the origin, for n dimensions.
+     */
+    protected int neighbourInSlot(int v, int j)
+    {
+	int d = numDimensions;
+
+	if (j < d) {
+	    int i = d - 1 - j;
+	    int u = v - stride[i];
+	    return ((v / stride[i]) % dimSize > 0 && u != 0 ? u : -1);
+	}
+
+	if (j < 2*d) {
+	    int i = j - d;
+	    return ((v / stride[i]) % dimSize + 1 < dimSize ? 
+		    v + stride[i] : -1);
 	}
+
+	// -- the origin is a neighbour of the nodes one step from it
+	for (int i = 0; i < d; i++)
+	    if (v == stride[i] && dimSize > 1)
+		return 0;
+
+	return -1;
     }
-}
 
 
+    /**
+     * Returns the number of neighbours of a node.
+     */
+    public int getNumNeighbours(int v)
+    {
+	int n = 0;
+	for (int j = getNumSlots() - 1; j >= 0; j--)
+	    if (neighbourInSlot(v, j) >= 0)
+		n++;
+
+	return n;
+    }
+
+
+    /**
+     * Returns the k-th neighbour of a node.
+     */
+    public int getNeighbour(int v, int k)
+    {
+	int slots = getNumSlots();
+	for (int j = 0; j < slots; j++) {
+	    int u = neighbourInSlot(v, j);
+	    if (u >= 0 && k-- == 0)
+		return u;
+	}
+
+	throw new NoSuchElementException("Graph Iterator");
+    }
+
+
+    /**
+     * Checks if two nodes are neighbours.
+     */
+    public boolean areNeighbours(int from, int to)
+    {
+	return indexOfNeighbour(from, to) >= 0;
+    }
+
+
+    /**
+     * Returns the position of to among the neighbours of from, or -1.
+     */
+    protected int indexOfNeighbour(int from, int to)
+    {
+	int slots = getNumSlots();
+	int k = 0;
+	for (int j = 0; j < slots; j++) {
+	    int u = neighbourInSlot(from, j);
+	    if (u < 0)
+		continue;
+	    if (u == to)
+		return k;
+	    k++;
+	}
+
+	return -1;
+    }
+
+
+    /**
+     * Returns the largest number of neighbours of any node.
+     */
+    protected int getMaxNeighbours()
+    {
+	return 2 * numDimensions;
+    }
+}
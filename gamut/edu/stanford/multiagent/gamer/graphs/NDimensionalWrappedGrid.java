@@ -60,72 +60,74 @@ public class NDimensionalWrappedGrid extends NDimensionalGrid
   }
 
 
-    // 
-    // Generate an N-dimensional wrapped grid graph.  Is
-    // generated in exactly the same way as NDimensionaGrid
-    // except that edges that wrap around the outsides of the
-    // grids are also added.
-    //
-    public void doGenerate() {
-
-	int n = (int) getLongParameter("num_dimensions");
-	long dimSize = getLongParameter("dim_size");
-
-	long currEdges = 0;
-
-	boolean hasMore = true;
-	int currNode[] = new int[n];
-
-	// Set the index in each dimension to be 0 first
-	for (int i = 0; i < n; i++)
-	    currNode[i] = 0;
-
-	// Systematically loop through all nodes indexed by their
-	// position in the n-dimensional grid, adding edges
-	// between adjacent nodes
-	while (hasMore) {
-
-	    // First find the next node
-	    for (int i = 0; i < n; i++) {
-		if (currNode[i] < dimSize - 1) {
-		    currNode[i]++;
-		    break;
-		} else {
-		    currNode[i] = 0;
-		    if(i == n - 1)
-			hasMore = false;
-		}
-	    }
-
-	    int node1 = translateIndices(currNode, dimSize, n);
-
-	    // Now add one to each dimension in the node and
-	    // add edges back and forth
-	    for (int i = 0; i < n; i++) {
-
-		if (currNode[i] + 1 < dimSize) {
-		    currNode[i]++;
-		} else {
-		    // wrap around
-		    currNode[i] = 0;
-		}
-
-		int node2 = translateIndices(currNode, dimSize, n);
-		
-		// Add the edges to the graph
-		addEdge(node1, node2);
-		addEdge(node2, node1);
-		
-		// Reset currNode to the currentNode
-		if (currNode[i] > 0) {
-		    currNode[i]--;
-		} else {
-		    // for the case of the wrap-arounds
-		    currNode[i] = (int) dimSize - 1;
-		}
-	    }
-	}
+    /**
+     * Returns the number of slots passed to neighbourInSlot().
+     */
+    protected int getNumSlots()
+    {
+	return 3 * numDimensions + 1;
     }
-}
 
 
+    /**
+     * Returns the neighbour of v in slot j, or -1 if the slot is
+     * empty, so that walking the slots lists the neighbours in the
+     * order in which the wrapped grid has always been generated.
+     * Nodes are visited in the same order as in NDimensionalGrid,
+     * and each visit connects a node to its successor in every 
+     * dimension, wrapping around.  So for n dimensions, slot j < n
+     * holds the predecessor in dimension n-1-j if it was visited 
+     * earlier, slot n+i the successor in dimension i, slot 2n+i the
+     * predecessor in dimension i if wrapping makes it visited later,
+     * and slot 3n the origin, visited last.  The origin itself lists
+     * its predecessors, all wrapped, and then its successors.  
+     * Repeated and reflexive edges, which only arise when dim_size 
+     * is 1 or 2, are left out.
+     */
+    protected int neighbourInSlot(int v, int j)
+    {
+	int d = numDimensions;
+
+	if (dimSize == 1)
+	    return -1;
+
+	if (v == 0) {
+	    if (j < d)
+		return (dimSize - 1) * stride[j];
+	    if (j < 2*d && dimSize > 2)
+		return stride[j - d];
+	    return -1;
+	}
+
+	if (j < d) {
+	    int i = d - 1 - j;
+	    int u = v - stride[i];
+	    return ((v / stride[i]) % dimSize > 0 && u != 0 ? u : -1);
+	}
+
+	if (j < 2*d) {
+	    int i = j - d;
+	    int c = (v / stride[i]) % dimSize;
+
+	    // -- with two nodes in a dimension the successor is also
+	    // -- the predecessor, which may have been listed already
+	    if (dimSize == 2 && c == 1 && v - stride[i] != 0)
+		return -1;
+
+	    return (c + 1 < dimSize ? v + stride[i] 
+		    : v - (dimSize - 1) * stride[i]);
+	}
+
+	if (j < 3*d) {
+	    int i = j - 2*d;
+	    return ((v / stride[i]) % dimSize == 0 && dimSize > 2 ? 
+		    v + (dimSize - 1) * stride[i] : -1);
+	}
+
+	for (int i = 0; i < d; i++)
+	    if (v == stride[i] && dimSize > 2)
+		return 0;
+
+	return -1;
+    }
+}
@@ -80,7 +80,7 @@ public class PLODGraph extends ALGraph
     {
 	super.initialize();
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 	    int numNodes = 0;
 
 	    try {
@@ -115,8 +115,6 @@ public class PLODGraph extends ALGraph
 		Graph.pNumNodes.low = new Long(Math.round(Math.ceil(x)));
 	    }
 	
-	    Graph.pNumNodes.high = new Long(20);
-
 	    if (((Long)Graph.pNumNodes.high).longValue() < 
 		((Long)Graph.pNumNodes.low).longValue()) {
 		Global.handleError("Cannot randomize parameter nodes because " +
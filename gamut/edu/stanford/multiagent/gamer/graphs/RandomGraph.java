@@ -26,6 +26,14 @@ import edu.stanford.multiagent.gamer.*;
  * If the sym flag is set, then every time there is an edge 
  * from a to b, there will also be an edge from b to a, and the 
  * number of edges will really be twice the number specified.
+ *
+ * The possible edges are numbered as slots and a uniformly random 
+ * set of distinct slots is drawn with Floyd's algorithm, so no 
+ * draw is ever wasted on an existing edge.  When more than half of
+ * the slots are wanted, the complement is drawn instead.  A given 
+ * seed still yields the same graph, but not the one that earlier
+ * versions, which drew edges one at a time and retried existing
+ * ones, produced for it.
  */
 
 public class RandomGraph extends ALGraph
@@ -78,7 +86,7 @@ public class RandomGraph extends ALGraph
     {
 	super.initialize();
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 	    int numNodes = 0;
 
 	    try {
@@ -189,8 +197,6 @@ public class RandomGraph extends ALGraph
 		}
 	    }
 	
-	    Graph.pNumNodes.high = new Long(20);
-
 	    if (((Long)Graph.pNumNodes.high).longValue() < 
 		((Long)Graph.pNumNodes.low).longValue()) {
 		Global.handleError("Cannot randomize parameter nodes because " +
@@ -224,46 +230,106 @@ public class RandomGraph extends ALGraph
      */
     public void doGenerate() {
 
-	long numNodes = getLongParameter(Graph.pNumNodes.name);
+	int numNodes = (int) getLongParameter(Graph.pNumNodes.name);
 	long numEdges = getLongParameter(pNumEdges.name);
 
-	long currEdges = 0;
-	
-	if (hasSymEdges()) {
-	    
-	    // Add numEdges pairs of edges in both directions
-	    // between nodes randomly 
-	    while (currEdges < numEdges) {
-		int i = (int) Global.randomLong(0, numNodes-1);
-		int j = (int) Global.randomLong(0, numNodes-1);
-
-		if (!areNeighbours(i, j)) {
-		    if ((i != j) || (reflexEdgesOk())) {
-			addEdge(i, j);
-			if (i != j) addEdge(j, i);
-			currEdges++;
-		    }
-		}
-	    }
+	boolean sym = hasSymEdges();
+	boolean reflex = reflexEdgesOk();
+	long numSlots = getNumSlots(numNodes, sym, reflex);
+
+	int[] edge = new int[2];
+	boolean complement = (numEdges > numSlots / 2);
+	long numDrawn = (complement ? numSlots - numEdges : numEdges);
+
+	// -- Floyd's algorithm: a uniform sample of numDrawn distinct
+	// -- slots with exactly numDrawn random draws
+	HashSet drawn = new HashSet();
+	for (long j = numSlots - numDrawn; j < numSlots; j++) {
+	    Long slot = new Long(Global.randomLong(0, j));
+	    if (drawn.contains(slot))
+		slot = new Long(j);
+	    drawn.add(slot);
+
+	    if (!complement)
+		addSlotEdge(this, slot.longValue(), numNodes, sym, reflex, edge);
+	}
 
-	} else {
+	if (complement)
+	    for (long k = 0; k < numSlots; k++)
+		if (!drawn.contains(new Long(k)))
+		    addSlotEdge(this, k, numNodes, sym, reflex, edge);
+    } 
 
-	    // Add numEdges undirected edges randomly
-	    while (currEdges < numEdges) {
-		int i = (int) Global.randomLong(0, numNodes-1);
-		int j = (int) Global.randomLong(0, numNodes-1);
-		
-		if (!areNeighbours(i, j)) {
-		    if ((i != j) || (reflexEdgesOk())) {
-			addEdge(i, j);
-			currEdges++;
-		    }
-		}
-	    }   
+
+    // ----------------------------------------------
+    // -- Edge slots.  The possible edges of a graph on n nodes are
+    // -- numbered 0..getNumSlots()-1: row by row over (i, j) for
+    // -- directed graphs, and over the lower triangle j < i (or
+    // -- j <= i if reflexive edges are allowed) for symmetric ones.
+
+
+    /**
+     * Returns the number of possible edges, counting a symmetric
+     * pair once.
+     */
+    static long getNumSlots(long n, boolean sym, boolean reflex)
+    {
+	if (sym)
+	    return (reflex ? n * (n+1) / 2 : n * (n-1) / 2);
+
+	return (reflex ? n * n : n * (n-1));
+    }
+
+
+    /**
+     * Finds the edge numbered k and stores its endpoints in edge.
+     */
+    static void slotToEdge(long k, int n, boolean sym, boolean reflex,
+			   int[] edge)
+    {
+	int i, j;
+
+	if (!sym) {
+	    if (reflex) {
+		i = (int) (k / n);
+		j = (int) (k % n);
+	    } else {
+		i = (int) (k / (n-1));
+		j = (int) (k % (n-1));
+		if (j >= i) j++;
+	    }
+	} else if (reflex) {
+	    // -- row i holds slots i(i+1)/2 .. i(i+1)/2 + i
+	    long r = (long) ((Math.sqrt(8.0 * k + 1) - 1) / 2);
+	    while (r * (r+1) / 2 > k) r--;
+	    while ((r+1) * (r+2) / 2 <= k) r++;
+	    i = (int) r;
+	    j = (int) (k - r * (r+1) / 2);
+	} else {
+	    // -- row i holds slots i(i-1)/2 .. i(i-1)/2 + i-1
+	    long r = (long) ((Math.sqrt(8.0 * k + 1) + 1) / 2);
+	    while (r * (r-1) / 2 > k) r--;
+	    while ((r+1) * r / 2 <= k) r++;
+	    i = (int) r;
+	    j = (int) (k - r * (r-1) / 2);
 	}
-    } 
 
+	edge[0] = i;
+	edge[1] = j;
+    }
 
-}
 
+    /**
+     * Adds the edge numbered k to g, and its reverse for symmetric
+     * graphs.  Slots are distinct, so no duplicate check is needed.
+     */
+    static void addSlotEdge(ALGraph g, long k, int n, boolean sym, 
+			    boolean reflex, int[] edge)
+    {
+	slotToEdge(k, n, sym, reflex, edge);
+	g.addEdgeUnchecked(edge[0], edge[1], null);
+	if (sym && edge[0] != edge[1])
+	    g.addEdgeUnchecked(edge[1], edge[0], null);
+    }
 
+}
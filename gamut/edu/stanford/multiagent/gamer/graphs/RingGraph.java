@@ -24,7 +24,7 @@ import edu.stanford.multiagent.gamer.*;
  * of nodes.
  */
 
-public class RingGraph extends ALGraph
+public class RingGraph extends ImplicitGraph
 {
 
     // ---------------------------------------------------
@@ -51,6 +51,11 @@ public class RingGraph extends ALGraph
 
     // ----------------------------------------------
 
+    private int innerNodes;
+    private int outerNodes;
+
+    // ----------------------------------------------
+
 
     /**
      * Constructor
@@ -69,14 +74,14 @@ public class RingGraph extends ALGraph
 
 
     /**
-     * Calls graph initialize and also sets up the nodes Vector.
+     * Calls graph initialize and also sets the number of nodes.
      */
     public void initialize()
 	throws Exception 
     {
 	super.initialize();
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 
 	    long innerNodes = 0, outerNodes = 0;
 
@@ -90,9 +95,11 @@ public class RingGraph extends ALGraph
 	    
 	    int numNodes = (int) (innerNodes * outerNodes);
 
-	    for(int i = 0; i < numNodes; i++)
-		addNode();
+	    setNumNodes(numNodes);
 	}
+
+	innerNodes = (int) getLongParameter(pInnerNodes.name);
+	outerNodes = (int) getLongParameter(pOuterNodes.name);
     }
 
 
@@ -149,57 +156,137 @@ public class RingGraph extends ALGraph
 
 
     /**
-     * Generates a ring structured graph getting the number
-     * of nodes from the parameters
+     * Lists the neighbours of a node in the order in which the
+     * ring would be built: for i = 0 .. inner_nodes-1, first the 
+     * edge from inner node i*outer_nodes to the next inner node, 
+     * then the outer ring starting at node i*outer_nodes.  Repeated
+     * and reflexive edges, which only arise in very small rings,
+     * are left out.
      */
-    public void doGenerate() {
+    protected int listNeighbours(int v, int[] buf)
+    {
+	int n = getNumNeighbours(v);
+	for (int k = 0; k < n; k++)
+	    buf[k] = getNeighbour(v, k);
 
-	int innerNodes = (int) getLongParameter(pInnerNodes.name);
-	int outerNodes = (int) getLongParameter(pOuterNodes.name);
+	return n;
+    }
 
-	for (int i = 0; i < innerNodes; i++) {
-	    
-	    // Add two edges on the graph between the current 
-	    // inner node and the next inner node
-	    if (i < innerNodes - 1) {
-		try {
-		    addEdge(i * outerNodes, (i+1) * outerNodes);
-		    addEdge((i+1) * outerNodes, i * outerNodes);
-		} catch (Exception e) {
-		    Global.handleError(e, "Error adding edge");
-		}
-	    } else {
-		try {
-		    addEdge(i * outerNodes, 0);
-		    addEdge(0, i * outerNodes);
-		} catch (Exception e) {
-		    Global.handleError(e, "Error adding edge");
-		}
-	    }
 
-	    // Also add a loop of size outerNodes starting with
-	    // the node (i * outerNodes)
-
-	    for (int j = (i * outerNodes);
-		 j < ((i + 1) * outerNodes); j++) {
-
-		if (j < ((i + 1) * outerNodes) - 1) {
-		    try {
-			addEdge(j, j + 1);
-			addEdge(j + 1, j);
-		    } catch (Exception e) {
-			Global.handleError(e, "Error adding edge");
-		    }
-		} else {
-		    try {
-			addEdge(j, i * outerNodes);
-			addEdge(i * outerNodes, j);
-		    } catch (Exception e) {
-			Global.handleError(e, "Error adding edge");
-		    }
-		}
-	    }
+    /**
+     * Returns the j-th of the (at most five) edges out of v in the
+     * order described at listNeighbours, or -1 if there is no such
+     * edge.  Inner nodes have one slot before their outer ring for
+     * the inner edge added earlier, and one after it for the edge
+     * added at the last step, which only node 0 uses.
+     */
+    private int slot(int v, int j)
+    {
+	int o = outerNodes;
+	int i = v / o;
+	int hub = i * o;
+
+	if (v != hub) {
+	    if (j == 0)
+		return v - 1;
+	    if (j == 1)
+		return (v < hub + o - 1 ? v + 1 : hub);
+	    return -1;
 	}
+
+	int prev = (i == 0 ? innerNodes - 1 : i - 1);
+	switch (j) {
+	case 0: return (prev < i ? prev * o : -1);
+	case 1: return (i < innerNodes - 1 ? (i+1) * o : 0);
+	case 2: return (o > 1 ? hub + 1 : hub);
+	case 3: return hub + o - 1;
+	case 4: return (prev > i ? prev * o : -1);
+	}
+	return -1;
+    }
+
+
+    /**
+     * Returns the node in slot j if it is a neighbour listed there
+     * for the first time, or -1.
+     */
+    private int neighbourInSlot(int v, int j)
+    {
+	int u = slot(v, j);
+	if (u < 0 || u == v)
+	    return -1;
+
+	for (int k = 0; k < j; k++)
+	    if (slot(v, k) == u)
+		return -1;
+
+	return u;
+    }
+
+
+    /**
+     * Returns the number of neighbours of a node.
+     */
+    public int getNumNeighbours(int v)
+    {
+	int n = 0;
+	for (int j = 0; j < 5; j++)
+	    if (neighbourInSlot(v, j) >= 0)
+		n++;
+
+	return n;
+    }
+
+
+    /**
+     * Returns the k-th neighbour of a node.
+     */
+    public int getNeighbour(int v, int k)
+    {
+	for (int j = 0; j < 5; j++) {
+	    int u = neighbourInSlot(v, j);
+	    if (u >= 0 && k-- == 0)
+		return u;
+	}
+
+	throw new NoSuchElementException("Graph Iterator");
+    }
+
+
+    /**
+     * Checks if two nodes are neighbours.
+     */
+    public boolean areNeighbours(int from, int to)
+    {
+	return indexOfNeighbour(from, to) >= 0;
+    }
+
+
+    /**
+     * Returns the position of to among the neighbours of from, or -1.
+     */
+    protected int indexOfNeighbour(int from, int to)
+    {
+	int k = 0;
+	for (int j = 0; j < 5; j++) {
+	    int u = neighbourInSlot(from, j);
+	    if (u < 0)
+		continue;
+	    if (u == to)
+		return k;
+	    k++;
+	}
+
+	return -1;
+    }
+
+
+    /**
+     * Returns the largest number of neighbours of any node.
+     */
+    protected int getMaxNeighbours()
+    {
+	return 4;
     }
 
 }
@@ -21,10 +21,12 @@ import edu.stanford.multiagent.gamer.*;
 
 /**
  * Generates a road graph with the specified number 
- * of nodes.
+ * of nodes.  The edges are implicit: node i is connected to 
+ * i-2 and i+2 along its side of the road, and to i+1 (for even i)
+ * or i-1 (for odd i) across it, where these nodes exist.
  */
 
-public class RoadGraph extends ALGraph
+public class RoadGraph extends ImplicitGraph
 {
 
     // ---------------------------------------------------
@@ -59,14 +61,14 @@ public class RoadGraph extends ALGraph
 
 
     /**
-     * Calls graph initialize and also sets up the nodes Vector.
+     * Calls graph initialize and also sets the number of nodes.
      */
     public void initialize()
 	throws Exception 
     {
 	super.initialize();
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 	    int numNodes = 0;
 
 	    try {
@@ -76,8 +78,7 @@ public class RoadGraph extends ALGraph
 				   "to initialize RoadGraph");
 	    }
 
-	    for(int i = 0; i < numNodes; i++)
-		addNode();
+	    setNumNodes(numNodes);
 	}
     }
 
@@ -88,9 +89,6 @@ public class RoadGraph extends ALGraph
     public void randomizeParameters()
     {
 	if(!parameters.setByUser(Graph.pNumNodes.name)) {
-	    // Do not want to allow very large graphs when we
-	    // are randomizing since these are not always appropriate.
-	    Graph.pNumNodes.high = new Long(20);	    
 	    parameters.randomizeParameter(Graph.pNumNodes.name);
 	}
     }
@@ -125,57 +123,109 @@ public class RoadGraph extends ALGraph
 
 
     /**
-     * Generates a road structured graph getting the number
-     * of nodes from the parameters.
+     * Lists the neighbours of a node in the order i-2, i+2, then
+     * the node across the road.
      */
-    public void doGenerate() {
-
-	long numNodes = getLongParameter(Graph.pNumNodes.name);
-	
-	// Now add edges in the graph in the appropriate places.
-	// For all node i, add edges to i-2 and i+2.  For even
-	// numbered nods, also add i+1 and for odd numbered
-	// nodes also add i-1, unless of course some of these 
-	// nodes do not exist.
-	for (int i = 0; i < numNodes; i++) {
-
-	    if (i-2 >= 0) {
-		try {
-		    addEdge(i, i-2);
-		} catch (Exception e) {
-		    Global.handleError(e, "Error adding edge");
-		}
-	    }
-	    
-	    if (i+2 < numNodes) {
-		try {
-		    addEdge(i, i+2);
-		} catch (Exception e) {
-		    Global.handleError(e, "Error adding edge");
-		}
-	    }
+    protected int listNeighbours(int i, int[] buf)
+    {
+	int n = getNumNeighbours(i);
+	for (int k = 0; k < n; k++)
+	    buf[k] = getNeighbour(i, k);
 
-	    if (i%2 == 0) {
-
-		// For nodes on the even side of the road
-		if (i + 1 < numNodes) {
-		    try {
-			addEdge(i, i+1);
-		    } catch (Exception e) {
-			Global.handleError(e, "Error adding edge");
-		    }
-		}
-
-	    } else {
-
-		// For nodes on the odd side of the road
-		try {
-		    addEdge(i, i-1);
-		} catch (Exception e) {
-		    Global.handleError(e, "Error adding edge");
-		}
-	    }
+	return n;
+    }
+
+
+    /**
+     * Returns the node across the road from i, or -1 if the road
+     * ends before it.
+     */
+    private int across(int i)
+    {
+	if (i%2 == 0)
+	    // For nodes on the even side of the road
+	    return (i+1 < nNodes ? i+1 : -1);
+
+	// For nodes on the odd side of the road
+	return i-1;
+    }
+
+
+    /**
+     * Returns the number of neighbours of a node.
+     */
+    public int getNumNeighbours(int i)
+    {
+	return (i-2 >= 0 ? 1 : 0) + (i+2 < nNodes ? 1 : 0) + 
+	    (across(i) >= 0 ? 1 : 0);
+    }
+
+
+    /**
+     * Returns the k-th neighbour of a node.
+     */
+    public int getNeighbour(int i, int k)
+    {
+	if (i-2 >= 0) {
+	    if (k == 0)
+		return i-2;
+	    k--;
+	}
+
+	if (i+2 < nNodes) {
+	    if (k == 0)
+		return i+2;
+	    k--;
 	}
+
+	int j = across(i);
+	if (k > 0 || j < 0)
+	    throw new NoSuchElementException("Graph Iterator");
+
+	return j;
+    }
+
+
+    /**
+     * Checks if two nodes are neighbours.
+     */
+    public boolean areNeighbours(int from, int to)
+    {
+	return indexOfNeighbour(from, to) >= 0;
+    }
+
+
+    /**
+     * Returns the position of to among the neighbours of from, or -1.
+     */
+    protected int indexOfNeighbour(int from, int to)
+    {
+	if (to < 0 || to >= nNodes)
+	    return -1;
+
+	int k = 0;
+	if (from-2 >= 0) {
+	    if (to == from-2)
+		return k;
+	    k++;
+	}
+
+	if (from+2 < nNodes) {
+	    if (to == from+2)
+		return k;
+	    k++;
+	}
+
+	return (to == across(from) ? k : -1);
+    }
+
+
+    /**
+     * Returns the largest number of neighbours of any node.
+     */
+    protected int getMaxNeighbours()
+    {
+	return 3;
     }
 
 }
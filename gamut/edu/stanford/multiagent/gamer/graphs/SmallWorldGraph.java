@@ -24,6 +24,11 @@ import edu.stanford.multiagent.gamer.*;
  * Nature 1998.
  *
  * Taken from Albert and Barabasi Tutorial.
+ *
+ * A rewired edge is moved to a node drawn uniformly from the nodes
+ * not yet adjacent to its source; for sparse nodes by retrying, 
+ * and for dense nodes by drawing from an explicit list of the 
+ * free nodes, so rewiring never spins.
  */
 
 public class SmallWorldGraph extends ALGraph
@@ -74,7 +79,7 @@ public class SmallWorldGraph extends ALGraph
     {
 	super.initialize();
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 	    int numNodes = 0;
 
 	    try {
@@ -99,9 +104,6 @@ public class SmallWorldGraph extends ALGraph
 	parameters.randomizeParameter(pRewireParam.name);
 	
 	if(!parameters.setByUser(Graph.pNumNodes.name)) {
-	    // Do not want to allow very large graphs when we
-	    // are randomizing since these are not always appropriate.
-	    Graph.pNumNodes.high = new Long(20);	    
 	    parameters.randomizeParameter(Graph.pNumNodes.name);
 	}
 
@@ -156,38 +158,69 @@ public class SmallWorldGraph extends ALGraph
 
 	// -- First set-up original ring
 	// -- need to do that because rewiring prohibits duplication
+	// -- (the lattice only has duplicate edges when 2K >= nodes)
 
+	boolean mayRepeat = (2*K >= numNodes);
 	for(int i=1; i<=K; i++)
 	    for(int n=0; n<numNodes; n++) {
 		int t= (n + i) % numNodes;
-		addEdge(n,t);
-		addEdge(t,n);
+		if (mayRepeat) {
+		    addEdge(n,t);
+		    addEdge(t,n);
+		} else {
+		    addEdgeUnchecked(n,t,null);
+		    addEdgeUnchecked(t,n,null);
+		}
 	    }
 
 	// -- now do rewiring
+	boolean[] isNeighbour = new boolean[numNodes];
+	int[] candidates = new int[numNodes];
+
 	for(int i=1; i<=K; i++)
 	    for(int n=0; n<numNodes; n++) {
 		double d = Global.randomDouble();
 
-		if(getNumNeighbours(n)>=numNodes-1)
+		int free = numNodes - 1 - getNumNeighbours(n);
+		if(free<=0)
 		  continue; // -- cannot rewire
 
 		if(d<=p) {
 		    // -- rewire
 		  
 		    int t;
-		    do {
-			t=Global.randomInt(1, numNodes - 1);
-			t= (n+t) % numNodes;
+		    if (2*free >= numNodes - 1) {
+			// -- at least half of the other nodes are free,
+			// -- so a retry is needed less than half the time
+			do {
+			    t=Global.randomInt(1, numNodes - 1);
+			    t= (n+t) % numNodes;
+			}
+			while(areNeighbours(n, t));
+		    } else {
+			// -- dense node: pick directly from the free nodes
+			for(int k=0; k<getNumNeighbours(n); k++)
+			    isNeighbour[getNeighbour(n, k)] = true;
+
+			int c=0;
+			for(int k=1; k<numNodes; k++) {
+			    int u = (n+k) % numNodes;
+			    if (!isNeighbour[u])
+				candidates[c++] = u;
+			}
+
+			for(int k=0; k<getNumNeighbours(n); k++)
+			    isNeighbour[getNeighbour(n, k)] = false;
+
+			t = candidates[Global.randomInt(0, c-1)];
 		    }
-		    while(areNeighbours(n, t));
 		  
 		    int s = (n+i) % numNodes;
 
 		    removeEdge(n, s);
 		    removeEdge(s, n);
-		    addEdge(n, t);
-		    addEdge(t, n);
+		    addEdgeUnchecked(n, t, null);
+		    addEdgeUnchecked(t, n, null);
 		}
 	    }
     } 
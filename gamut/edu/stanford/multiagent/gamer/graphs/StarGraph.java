@@ -23,7 +23,7 @@ import edu.stanford.multiagent.gamer.*;
  * Generates a star graph with n nodes total.
  */
 
-public class StarGraph extends ALGraph
+public class StarGraph extends ImplicitGraph
 {
 
     // ---------------------------------------------------
@@ -65,7 +65,7 @@ public class StarGraph extends ALGraph
 
 	int numNodes = 0;
 
-	if (nodes.isEmpty()) {
+	if (getNNodes() == 0) {
 
 	    try {
 		numNodes = (int) getLongParameter(Graph.pNumNodes.name);
@@ -73,8 +73,7 @@ public class StarGraph extends ALGraph
 		Global.handleError(e, "Could not get number of nodes.");
 	    }
 
-	    for(int i = 0; i < numNodes; i++)
-		addNode();
+	    setNumNodes(numNodes);
 	}
     }
 
@@ -86,9 +85,6 @@ public class StarGraph extends ALGraph
     public void randomizeParameters()
     {
 	if(!parameters.setByUser(Graph.pNumNodes.name)) {
-	    // Do not want to allow very large graphs when we
-	    // are randomizing since these are not always appropriate.
-	    Graph.pNumNodes.high = new Long(20);	    
 	    parameters.randomizeParameter(Graph.pNumNodes.name);
 	}
     }
@@ -126,23 +122,64 @@ public class StarGraph extends ALGraph
 
 
     /**
-     * Generate the Star graph
+     * Node 0 is the root, connected to all other nodes in
+     * increasing order; every other node is connected only to
+     * the root.
      */
-    public void doGenerate() {
+    protected int getMaxNeighbours()
+    {
+	return Math.max(nNodes - 1, 1);
+    }
 
-	int numNodes = (int) getLongParameter(Graph.pNumNodes.name);
 
-	// Set node 0 to be the root.  Add edges from the root to
-	// all other nodes and from all other nodes to the root.
-	for (int i = 1; i < numNodes; i++) {
-	    try {
-		addEdge(0, i);
-		addEdge(i, 0);
-	    } catch (Exception e) {
-		Global.handleError(e, "Error adding edge to tree.");
-	    }
-	}
+    /**
+     * Returns the number of neighbours of a node.
+     */
+    public int getNumNeighbours(int from)
+    {
+	return (from == 0 ? nNodes - 1 : 1);
     }
-}
 
 
+    /**
+     * Returns the k-th neighbour of a node.
+     */
+    public int getNeighbour(int from, int k)
+    {
+	return (from == 0 ? k + 1 : 0);
+    }
+
+
+    /**
+     * Checks if two nodes are neighbours.
+     */
+    public boolean areNeighbours(int from, int to)
+    {
+	return (from != to) && (from == 0 || to == 0);
+    }
+
+
+    /**
+     * Returns the position of to among the neighbours of from, or -1.
+     */
+    protected int indexOfNeighbour(int from, int to)
+    {
+	if (!areNeighbours(from, to))
+	    return -1;
+
+	return (from == 0 ? to - 1 : 0);
+    }
+
+
+    /**
+     * Writes the neighbours of a node into buf and returns how many there are.
+     */
+    protected int listNeighbours(int from, int[] buf)
+    {
+	int n = getNumNeighbours(from);
+	for (int k = 0; k < n; k++)
+	    buf[k] = getNeighbour(from, k);
+
+	return n;
+    }
+}
@@ -0,0 +1,30 @@
+#!/bin/sh
+#
+# Checks that -sample with -parallel gives the same outcomes and
+# payoffs every time.  Runs gamut twice with the given arguments,
+# which should include -g, -sample and -random_seed, adding
+# -parallel, and compares the two outputs but for the command line.
+#
+# usage: scripts/check_sample.sh [gamut arguments]
+#
+# Set CLASSPATH to find the compiled classes and gamut.jar.  The
+# sample is evaluated on all processors, so on a machine with few
+# of them set JAVA_OPTS to, say, -XX:ActiveProcessorCount=8 to
+# run more threads than there are processors.
+
+out=${TMPDIR:-/tmp}/check_sample.$$
+trap 'rm -f $out.1 $out.2' 0
+
+for run in 1 2; do
+    java $JAVA_OPTS edu.stanford.multiagent.gamer.Main "$@" -parallel \
+	-f $out.all > /dev/null || exit 2
+    grep -v "^# Cmd Line:" $out.all > $out.$run
+    rm -f $out.all
+done
+
+if cmp -s $out.1 $out.2; then
+    echo "same: $(grep -vc '^#' $out.1) outcomes"
+else
+    echo "DIFFERENT: $(diff $out.1 $out.2 | grep -c '^<') outcomes"
+    exit 1
+fi